@@ -27,10 +27,13 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Queue;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -39,6 +42,7 @@ import java.util.logging.Logger;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import javax.swing.tree.TreePath;
+import oa.com.tests.actions.ActionArguments;
 import oa.com.utils.I18n;
 import org.apache.commons.io.IOUtils;
 import org.json.simple.JSONObject;
@@ -308,6 +312,165 @@ public abstract class Utils {
         return resp;
     }
 
+    /**
+     * Como {@link #getRunnableFiles(TreePath)}, para un script dentro de una
+     * carpeta: los _start.txt desde la carpeta hasta el script, el script y
+     * luego los _end.txt en orden inverso.
+     *
+     * @param root
+     * @param script
+     * @return
+     * @throws IllegalArgumentException Si el script no esta dentro de la
+     * carpeta.
+     */
+    public static Queue<File> getRunnableFiles(File root, File script) {
+        final File rootFile = root.getAbsoluteFile();
+        final LinkedList<File> folders = new LinkedList<>();
+        File folder = script.getAbsoluteFile().getParentFile();
+        while (folder != null && !folder.equals(rootFile)) {
+            folders.addFirst(folder);
+            folder = folder.getParentFile();
+        }
+        if (folder == null) {
+            throw new IllegalArgumentException(script.getPath());
+        }
+        folders.addFirst(rootFile);
+        Queue<File> resp = new ArrayDeque<>();
+        for (File dir : folders) {
+            final File start = new File(dir, "_start.txt");
+            if (start.exists()) {
+                resp.add(start);
+            }
+        }
+        resp.add(script);
+        final Iterator<File> reversed = folders.descendingIterator();
+        while (reversed.hasNext()) {
+            final File end = new File(reversed.next(), "_end.txt");
+            if (end.exists()) {
+                resp.add(end);
+            }
+        }
+        return resp;
+    }
+
+    /**
+     * Archivos a ejecutar para una carpeta completa. Se recorre en
+     * profundidad: el _start.txt de cada carpeta se ejecuta una sola vez al
+     * entrar y su _end.txt una sola vez al salir, como la preparacion de una
+     * clase de pruebas. Los _start.txt y _end.txt de las carpetas entre la
+     * raiz y la carpeta tambien se ejecutan una sola vez.
+     *
+     * @param root Raiz del arbol de scripts.
+     * @param folder
+     * @param isolated Si cada script se ejecuta con todos sus _start.txt y
+     * _end.txt, como al ejecutarlo solo.
+     * @return
+     * @throws IllegalArgumentException Si la carpeta no esta dentro de la
+     * raiz.
+     */
+    public static Queue<File> getFolderRunnableFiles(File root, File folder, boolean isolated) {
+        final Queue<File> resp = new ArrayDeque<>();
+        if (isolated) {
+            for (File script : findScripts(folder)) {
+                resp.addAll(getRunnableFiles(root, script));
+            }
+            return resp;
+        }
+        //Las carpetas desde la raiz hasta la carpeta, sin ella
+        final File rootFile = root.getAbsoluteFile();
+        final File folderFile = folder.getAbsoluteFile();
+        final LinkedList<File> ancestors = new LinkedList<>();
+        File ancestor = folderFile;
+        while (ancestor != null && !ancestor.equals(rootFile)) {
+            ancestor = ancestor.getParentFile();
+            if (ancestor != null) {
+                ancestors.addFirst(ancestor);
+            }
+        }
+        if (ancestor == null) {
+            throw new IllegalArgumentException(folder.getPath());
+        }
+        for (File dir : ancestors) {
+            final File start = new File(dir, "_start.txt");
+            if (start.exists()) {
+                resp.add(start);
+            }
+        }
+        addFolderRunnableFiles(folderFile, resp);
+        final Iterator<File> reversed = ancestors.descendingIterator();
+        while (reversed.hasNext()) {
+            final File end = new File(reversed.next(), "_end.txt");
+            if (end.exists()) {
+                resp.add(end);
+            }
+        }
+        return resp;
+    }
+
+    /**
+     * Todos los scripts de una carpeta y sus subcarpetas, sin los _start.txt
+     * ni _end.txt, ordenados por ruta.
+     *
+     * @param root
+     * @return
+     */
+    public static List<File> findScripts(File root) {
+        final List<File> resp = new ArrayList<>();
+        addScripts(root, resp);
+        resp.sort(Comparator.comparing(File::getPath));
+        return resp;
+    }
+
+    /**
+     * Si un archivo es un script que se ejecuta por si mismo: un .txt que no
+     * es _start.txt ni _end.txt.
+     *
+     * @param file
+     * @return
+     */
+    public static boolean isScript(File file) {
+        final String name = file.getName();
+        return !file.isDirectory() && name.toLowerCase(Locale.ROOT).trim().endsWith(".txt")
+                && !Arrays.asList("_start.txt", "_end.txt").contains(name);
+    }
+
+    private static void addScripts(File folder, List<File> resp) {
+        final File[] children = folder.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                addScripts(child, resp);
+            } else if (isScript(child)) {
+                resp.add(child);
+            }
+        }
+    }
+
+    private static void addFolderRunnableFiles(File folder, Queue<File> resp) {
+        final File[] children = folder.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children, (f1, f2) -> f1.getName().compareTo(f2.getName()));
+        final File start = new File(folder, "_start.txt");
+        if (start.exists()) {
+            resp.add(start);
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                addFolderRunnableFiles(child, resp);
+            } else if (isScript(child)) {
+                resp.add(child);
+            }
+        }
+        final File end = new File(folder, "_end.txt");
+        if (end.exists()) {
+            resp.add(end);
+        }
+    }
+
     private static Queue<File> getRunnableFiles(TreePath item, ActionRunnerManager.ACTIONTYPE type) {
         final TreePath parent = item.getParentPath();
         Queue<File> resp = new ArrayDeque<>();
@@ -429,19 +592,14 @@ public abstract class Utils {
     }
 
     /**
-     * Busca un atributo JSON a traves de todos los lenguajes disponibles
+     * Busca un atributo JSON a traves de todos los lenguajes disponibles.
+     * Para leer varios atributos de una accion es mejor usar
+     * {@link oa.com.tests.actions.TestAction#getArguments()}, que interpreta el JSON una sola vez.
      * @param key La clave por la cual buscar
      * @param JSONtext Texto en el cual buscar la entrada.
      * @return el valor del atributo o null, si no encontrado.
      */
     public static String getJSONAttributeML(String JSONtext,String key) {
-        for (String attrAlias : I18n.aliases(key)) {
-            try {
-                return Utils.getJSONAttribute(JSONtext,attrAlias);
-            } catch (ParseException ex) {
-                ;
-            }
-        }
-        return null;
+        return ActionArguments.parse(JSONtext).getString(key);
     }
 }
@@ -13,7 +13,8 @@
  */
 package oa.com.tests.actionrunners.interfaces;
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import oa.com.tests.actions.TestAction;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
@@ -29,19 +30,24 @@ import org.openqa.selenium.WebDriver;
 public abstract class AbstractDefaultScriptActionRunner implements ScriptActionRunner {
 
     private TestAction action;
-    private HashMap<String, Boolean> supportedActionCache = new HashMap<>();
+    /**
+     * Cache compartido de nombres de accion aceptados por cada tipo de
+     * ejecutor.
+     */
+    private static final Map<String, Boolean> supportedActionCache = new ConcurrentHashMap<>();
 
     public AbstractDefaultScriptActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
         final String actionName = action.getName();
         if (action == null) {
             throw new IllegalArgumentException(actionName);
         }
+        final String cacheKey = getClass().getName() + "|" + actionName;
         boolean matches = false;
-        if (supportedActionCache.containsKey(actionName)) {
-            matches = supportedActionCache.get(actionName);
+        if (supportedActionCache.containsKey(cacheKey)) {
+            matches = supportedActionCache.get(cacheKey);
         } else {
             matches = matches(action);
-            supportedActionCache.put(actionName, matches);
+            supportedActionCache.put(cacheKey, matches);
         }
         if (!matches) {
             final NoActionSupportedException except = new NoActionSupportedException(actionName);
@@ -13,16 +13,26 @@
  */
 package oa.com.tests.actionrunners.interfaces;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
 import oa.com.tests.actions.TestAction;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.PathKeeper.SearchTypes;
+import oa.com.tests.globals.ElementCache;
+import oa.com.tests.globals.ExecutionContext;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -37,6 +47,15 @@ public abstract class AbstractSelectorActionRunner
         extends AbstractDefaultScriptActionRunner {
 
     private PathKeeper selector;
+    /**
+     * Cache de elementos de la ejecucion en curso; null si el ejecutor se usa
+     * sin contexto.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private ElementCache cache;
 
     public AbstractSelectorActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
         super(action);
@@ -57,6 +76,16 @@ public abstract class AbstractSelectorActionRunner
         return true;
     }
 
+    /**
+     * Si el ejecutor busca su elemento con {@link #get(WebDriver)}, de modo
+     * que vale la pena buscarlo por adelantado.
+     *
+     * @return
+     */
+    public boolean usesElementCache() {
+        return true;
+    }
+
     protected WebElement get(WebDriver driver) throws BadSyntaxException {
         final String actionCommand = getAction().getCommand();
         if (this.selector == null) {
@@ -67,6 +96,9 @@ public abstract class AbstractSelectorActionRunner
 
     private WebElement get(WebDriver driver, PathKeeper selector) {
         if (selector.hasPath()) {
+            if (cache != null) {
+                return cache.find(driver, selector.getType(), selector.getPath());
+            }
             return get(driver, selector.getType(), selector.getPath());
         } else { //mal diligenciado?
             return null;
@@ -101,6 +133,23 @@ public abstract class AbstractSelectorActionRunner
         return resp;
     }
 
+    /**
+     * Paso de JavaScript con la operacion y el selector de este ejecutor. Ver
+     * {@link FusableActionRunner}.
+     *
+     * @param op
+     * @return
+     */
+    protected Map<String, Object> fusedStep(String op) {
+        final Map<String, Object> resp = new HashMap<>();
+        resp.put("op", op);
+        if (selector != null && selector.hasPath()) {
+            resp.put("type", selector.getType().name().toLowerCase(Locale.ROOT));
+            resp.put("path", selector.getPath());
+        }
+        return resp;
+    }
+
     protected List<WebElement> getMany(WebDriver driver) throws BadSyntaxException {
         final String actionCommand = getAction().getCommand();
         if (this.selector == null) {
@@ -121,6 +170,22 @@ public abstract class AbstractSelectorActionRunner
         return resp;
     }
 
+    /**
+     * Ejecuta buscando los elementos primero en el cache de la ejecucion.
+     *
+     * @param context
+     * @throws Exception
+     */
+    @Override
+    public void run(ExecutionContext context) throws Exception {
+        cache = context.getElementCache();
+        try {
+            run(context.getDriver(), context.getLog());
+        } finally {
+            cache = null;
+        }
+    }
+
     @Override
     public void run(WebDriver driver, Logger log) throws Exception {
         String templateMsg = getActionLog();
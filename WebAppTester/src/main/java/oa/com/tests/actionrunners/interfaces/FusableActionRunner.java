@@ -0,0 +1,44 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actionrunners.interfaces;
+
+import java.util.Map;
+
+/**
+ * Ejecutor que se puede agrupar con otros en una sola llamada de JavaScript
+ * en el modo rapido (ver {@link oa.com.tests.globals.StepFuser}).
+ *
+ * @author nesto
+ */
+public interface FusableActionRunner {
+
+    /**
+     * Paso para el JavaScript generado: la operacion en "op" y sus datos. Los
+     * valores se pasan como argumentos de la llamada, sin escribirlos en el
+     * codigo.
+     *
+     * @return El paso, o null si esta instruccion no se puede agrupar.
+     */
+    Map<String, Object> toFusedStep();
+
+    /**
+     * Si despues de este paso se debe cerrar el grupo, porque puede cambiar
+     * la pagina.
+     *
+     * @return
+     */
+    default boolean endsBatch() {
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actionrunners.interfaces;
+
+/**
+ * Ejecutor que se puede repetir sin efectos en la pagina, como una espera.
+ * Con reintentos configurados, se repite ante cualquier error del navegador
+ * y no solo ante los que pasan antes de actuar (ver
+ * {@link oa.com.tests.globals.RetryPolicy#retries(Exception, boolean)}).
+ *
+ * @author nesto
+ */
+public interface IdempotentActionRunner {
+}
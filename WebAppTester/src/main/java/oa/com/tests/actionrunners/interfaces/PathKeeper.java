@@ -14,7 +14,7 @@
 package oa.com.tests.actionrunners.interfaces;
 
 import lombok.Data;
-import oa.com.tests.Utils;
+import oa.com.tests.actions.ActionArguments;
 import oa.com.tests.actions.TestAction;
 
 /**
@@ -44,17 +44,15 @@ public class PathKeeper {
     private boolean required;
 
     public PathKeeper(TestAction action) {
-        String key = "CssSelectorActionRunner.attr.selector";
-        final String actionCommand = action.getCommand();
-        this.path = Utils.getJSONAttributeML(actionCommand, key);
+        final ActionArguments arguments = action.getArguments();
+        this.path = arguments.getString("CssSelectorActionRunner.attr.selector");
         if (path == null && !isRequired()) {
             return;
         } 
         this.type = SearchTypes.CSS;
-        key = "CssSelectorActionRunner.attr.type";
-        String strType = Utils.getJSONAttributeML(actionCommand, key);
-        if (strType != null) {
-            this.type = SearchTypes.valueOf(strType.toUpperCase());
+        SearchTypes argType = arguments.getEnum("CssSelectorActionRunner.attr.type", SearchTypes.class);
+        if (argType != null) {
+            this.type = argType;
         }
     }
 
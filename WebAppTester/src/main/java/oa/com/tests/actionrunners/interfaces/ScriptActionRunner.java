@@ -13,9 +13,11 @@
  */
 package oa.com.tests.actionrunners.interfaces;
 
+import java.util.Locale;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import oa.com.tests.actions.TestAction;
+import oa.com.tests.globals.ExecutionContext;
 import java.util.logging.Logger;
 import oa.com.utils.I18n;
 import org.openqa.selenium.WebDriver;
@@ -35,7 +37,18 @@ public interface ScriptActionRunner {
      * @return
      */
     public default String getActionName() {
-        return ResourceBundle.getBundle("application").getString(getClass().getSimpleName() + ".action");
+        return ResourceBundle.getBundle("application").getString(actionKey(getClass()));
+    }
+
+    /**
+     * Clave en el archivo de propiedades con el nombre de la accion de un
+     * ejecutor.
+     *
+     * @param runnerCls
+     * @return
+     */
+    public static String actionKey(Class<?> runnerCls) {
+        return runnerCls.getSimpleName() + ".action";
     }
     /**
      * Busca el mensaje con el cual debe correr esta accion.
@@ -65,21 +78,35 @@ public interface ScriptActionRunner {
     public void run(WebDriver driver, Logger log) throws Exception;
 
     /**
-     * Si este runner soporta este comando o no.
+     * Ejecucion del script dentro de una ejecucion. Por omision usa el
+     * navegador y el registro del contexto; los ejecutores que necesitan mas
+     * del estado de la ejecucion (variables, cambiar de navegador...) lo
+     * sobreescriben.
+     *
+     * @param context
+     * @throws Exception
+     */
+    public default void run(ExecutionContext context) throws Exception {
+        run(context.getDriver(), context.getLog());
+    }
+
+    /**
+     * Si este runner soporta este comando o no. No distingue mayusculas, igual
+     * que {@link oa.com.tests.globals.RunnerRegistry#find(String)}.
      *
      * @param action
      * @return
      */
     public default boolean matches(TestAction action) {
-        final String actionName = action.getName();
-        if (getActionName().equals(actionName)) {
+        final String actionName = action.getName().toLowerCase(Locale.ROOT);
+        if (getActionName().toLowerCase(Locale.ROOT).equals(actionName)) {
             return true;
         }
 
-        final String key = getClass().getSimpleName() + ".action";
+        final String key = actionKey(getClass());
         Optional<String> aliasmatch = I18n.aliases(key)
                 .stream()
-                .filter(alias->alias.equals(actionName))
+                .filter(alias->alias.toLowerCase(Locale.ROOT).equals(actionName))
                 .findFirst();
         return aliasmatch.isPresent();
     }
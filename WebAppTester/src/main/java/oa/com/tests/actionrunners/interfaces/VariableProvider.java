@@ -22,5 +22,15 @@ import oa.com.tests.lang.Variable;
 public interface VariableProvider {
 
     Variable getVariable();
+
+    /**
+     * Nombre de la variable que se va a crear. Se conoce sin ejecutar la
+     * accion. Null si no se conoce.
+     *
+     * @return
+     */
+    default String getVariableName() {
+        return null;
+    }
     
 }
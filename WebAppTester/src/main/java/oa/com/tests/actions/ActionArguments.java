@@ -0,0 +1,221 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actions;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import oa.com.utils.I18n;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Argumentos JSON de una accion, interpretados una sola vez. Los atributos se
+ * buscan por su clave en el archivo de propiedades (por ejemplo
+ * <code>WriteActionRunner.attr.text</code>), aceptando el nombre en cualquiera
+ * de los lenguajes soportados. Un atributo que no esta retorna null.
+ *
+ * @author nesto
+ */
+public final class ActionArguments {
+
+    /**
+     * Sin argumentos.
+     */
+    public static final ActionArguments EMPTY = new ActionArguments(Collections.emptyMap(), false);
+
+    private static final Pattern DURATION = Pattern.compile("^\\s*([0-9]+)\\s*([Ssmhd]?)\\s*$");
+
+    private final Map<String, Object> values;
+    private final boolean json;
+
+    private ActionArguments(Map<String, Object> values, boolean json) {
+        this.values = values;
+        this.json = json;
+    }
+
+    /**
+     * Interpreta el cuerpo de una accion.
+     *
+     * @param command
+     * @return Los argumentos, o {@link #EMPTY} si el cuerpo no es un objeto
+     * JSON.
+     */
+    @SuppressWarnings("unchecked")
+    public static ActionArguments parse(String command) {
+        final Object parsed;
+        try {
+            parsed = new JSONParser().parse(command);
+        } catch (ParseException ex) {
+            return EMPTY;
+        }
+        if (!(parsed instanceof JSONObject)) {
+            return EMPTY;
+        }
+        return new ActionArguments(Collections.unmodifiableMap(
+                new HashMap<>((Map<String, Object>) parsed)), true);
+    }
+
+    /**
+     * Si el cuerpo de la accion era un objeto JSON.
+     *
+     * @return
+     */
+    public boolean isJSON() {
+        return json;
+    }
+
+    public boolean has(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Valor de un atributo como texto.
+     *
+     * @param key Clave del atributo en el archivo de propiedades.
+     * @return El valor o null si no esta.
+     */
+    public String getString(String key) {
+        final Object value = get(key);
+        return value == null ? null : value.toString();
+    }
+
+    public String getString(String key, String defaultValue) {
+        final String resp = getString(key);
+        return resp == null ? defaultValue : resp;
+    }
+
+    /**
+     * Valor de un atributo como entero.
+     *
+     * @param key
+     * @return El valor o null si no esta.
+     * @throws NumberFormatException Si el valor no es un entero.
+     */
+    public Integer getInt(String key) {
+        final Object value = get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Long) {
+            return Math.toIntExact((Long) value);
+        }
+        return Integer.parseInt(value.toString().trim());
+    }
+
+    public int getInt(String key, int defaultValue) {
+        final Integer resp = getInt(key);
+        return resp == null ? defaultValue : resp;
+    }
+
+    /**
+     * Valor de un atributo como booleano: true, o "si" en cualquiera de los
+     * lenguajes (<code>options.value.YES</code>).
+     *
+     * @param key
+     * @param defaultValue Si el atributo no esta.
+     * @return
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        final Object value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        final String text = value.toString().trim();
+        if (text.equalsIgnoreCase("true")) {
+            return true;
+        }
+        return I18n.aliases("options.value.YES").stream()
+                .anyMatch(text::equalsIgnoreCase);
+    }
+
+    /**
+     * Valor de un atributo como constante de una enumeracion, sin importar
+     * mayusculas.
+     *
+     * @param <E>
+     * @param key
+     * @param type
+     * @return El valor o null si no esta.
+     * @throws IllegalArgumentException Si no es una constante de la
+     * enumeracion.
+     */
+    public <E extends Enum<E>> E getEnum(String key, Class<E> type) {
+        final String value = getString(key);
+        return value == null ? null : Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Valor de un atributo como duracion. Acepta un numero seguido de la
+     * unidad: S milisegundos, s segundos, m minutos, h horas o d dias. Sin
+     * unidad son milisegundos.
+     *
+     * @param key
+     * @return El valor o null si no esta.
+     * @throws IllegalArgumentException Si no tiene el formato.
+     */
+    public Duration getDuration(String key) {
+        final String value = getString(key);
+        return value == null ? null : parseDuration(value);
+    }
+
+    /**
+     * Lee una duracion con el formato de {@link #getDuration(String)}.
+     *
+     * @param value
+     * @return
+     * @throws IllegalArgumentException Si no tiene el formato.
+     */
+    public static Duration parseDuration(String value) {
+        final Matcher matcher = DURATION.matcher(value);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(value);
+        }
+        final long amount = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            case "S":
+            default:
+                return Duration.ofMillis(amount);
+        }
+    }
+
+    private Object get(String key) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        for (String alias : I18n.aliases(key)) {
+            final Object value = values.get(alias);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -14,6 +14,7 @@
 package oa.com.tests.actions;
 
 import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import lombok.AccessLevel;
@@ -32,6 +33,11 @@ import oa.com.tests.actionrunners.interfaces.ActionRunner;
 public class TestAction {
     private String name;
     private String command;
+    /**
+     * Argumentos del comando, interpretados la primera vez que se piden.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile ActionArguments arguments;
     /**
      * Constructora a partir de un comando completo.
      * @param fullCommand 
@@ -44,7 +50,29 @@ public class TestAction {
             throw new BadSyntaxException(fullCommand);
         }
         int counter = 1;
-        name=matcher.group(counter++).toLowerCase();
+        name=matcher.group(counter++).toLowerCase(Locale.ROOT);
         command="{"+matcher.group(counter++)+"}";
     }
+    /**
+     * Constructora a partir del nombre y el cuerpo ya separados, como los
+     * entrega {@link oa.com.tests.lang.ScriptTokenizer}.
+     * @param name
+     * @param command Cuerpo de la accion, con las llaves.
+     */
+    public TestAction(String name, String command){
+        this.name=name.toLowerCase(Locale.ROOT);
+        this.command=command;
+    }
+    /**
+     * Argumentos JSON del comando.
+     * @return 
+     */
+    public ActionArguments getArguments(){
+        ActionArguments resp = arguments;
+        if(resp == null){
+            resp = ActionArguments.parse(command);
+            arguments = resp;
+        }
+        return resp;
+    }
 }
@@ -17,24 +17,26 @@ import oa.com.tests.Utils;
 import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.IdempotentActionRunner;
 import oa.com.tests.actions.TestAction;
-import oa.com.tests.webapptester.MainApp;
-import java.awt.HeadlessException;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.net.URLClassLoader;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.ResourceBundle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
-import javax.swing.JOptionPane;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.MutableTreeNode;
@@ -42,6 +44,7 @@ import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 import lombok.Data;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
@@ -49,17 +52,18 @@ import org.openqa.selenium.ie.InternetExplorerDriver;
 import org.openqa.selenium.opera.OperaDriver;
 import org.openqa.selenium.safari.SafariDriver;
 import oa.com.tests.actionrunners.interfaces.ScriptActionRunner;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import oa.com.tests.actionrunners.exceptions.ScriptSyntaxException;
 import oa.com.tests.actionrunners.interfaces.PathKeeper;
 import oa.com.tests.actionrunners.interfaces.VariableProvider;
+import oa.com.tests.lang.CompiledScript;
+import oa.com.tests.lang.CompiledStatement;
+import oa.com.tests.lang.ScriptTokenizer;
+import oa.com.tests.lang.StringVariable;
+import oa.com.tests.lang.Template;
 import oa.com.tests.lang.Variable;
-import oa.com.tests.lang.SelectorVariable;
-import oa.com.utils.Encryption;
-import org.openqa.selenium.Keys;
+import oa.com.utils.Settings;
 import org.openqa.selenium.edge.EdgeDriverService;
 import org.openqa.selenium.ie.InternetExplorerDriverService;
 
@@ -88,13 +92,24 @@ public final class ActionRunnerManager {
     private static ResourceBundle globals = ResourceBundle.getBundle("application");
 
     /**
-     * Listado con todas las clases de funciones registradas.
+     * Indice de ejecutores por nombre de accion.
      */
-    private static List<Class<? extends ScriptActionRunner>> runnersCls = null;
+    private static RunnerRegistry registry = null;
+    /**
+     * Cargadores de clases de los plugins.
+     */
+    private static List<URLClassLoader> pluginLoaders = new LinkedList<>();
 
     static {
         try {
-            runnersCls = findRunnersCls();
+            final ClassLoader loader = ActionRunnerManager.class.getClassLoader();
+            final RunnerRegistry.Builder builder = RunnerRegistry.builder().addIndex(loader);
+            if (builder.isEmpty()) {
+                //Compilado sin el indice: busca las clases
+                builder.addClasses(findRunnersCls());
+            }
+            pluginLoaders = PluginLoader.addPlugins(builder, loader, PluginLoader.pluginsDir());
+            registry = builder.build();
         } catch (ClassNotFoundException ex) {
             Logger.getLogger(ActionRunnerManager.class.getName()).log(Level.SEVERE, null, ex);
         } catch (IOException ex) {
@@ -105,66 +120,96 @@ public final class ActionRunnerManager {
      * Listado con todas las funciones registradas.
      */
     private TreeModel rootTree;
-    private BROWSERTYPE browserType;
-    private WebDriver driver;
-    @SuppressWarnings("unchecked")
-    private List<Variable> variables = new LinkedList();
-    private static ActionRunnerManager instance = new ActionRunnerManager();
-    final private static String sqOpen = Pattern.quote("[");
-    final private static String sqClose = Pattern.quote("]");
-    final private static String KEY_SEPARATOR = ",";
+    /**
+     * Navegador, variables y demas estado de la ejecucion.
+     */
+    private final ExecutionContext context;
+    /**
+     * Se avisa cuando un script cambia el navegador de la interfaz.
+     */
+    private static volatile Consumer<BROWSERTYPE> browserListener = btype -> {
+    };
+
+    /**
+     * Gestor de la interfaz grafica. Se crea la primera vez que se usa, de
+     * modo que las ejecuciones sin interfaz no lo cargan.
+     */
+    private static final class Gui {
+
+        private static final ActionRunnerManager INSTANCE = new ActionRunnerManager();
+    }
 
     private ActionRunnerManager() {
-        //Clases
-        try {
-            //Carpetas
-            rootTree = asTree();
-            //Acciones
-        } //TODO: Mandar estas excepciones a UI
-        catch (Exception ex) {
-            Logger.getLogger("Probador Web").log(Level.SEVERE, null, ex);
-        }
+        context = ExecutionContext.builder()
+                .switcher((ctx, btype) -> {
+                    final WebDriver resp = ExecutionContext.replaceDriver(ctx, btype);
+                    browserListener.accept(btype);
+                    return resp;
+                })
+                .build();
+    }
+
+    private ActionRunnerManager(ExecutionContext context) {
+        this.context = context;
     }
 
     public static void quit() {
-        if (instance.driver != null) {
-            instance.driver.quit();
+        if (Gui.INSTANCE.getDriver() != null) {
+            Gui.INSTANCE.getDriver().quit();
         }
     }
 
-    private AbstractDefaultScriptActionRunner findRunner(String actionCommand) throws BadSyntaxException {
-        TestAction tester;
-        tester = new TestAction(actionCommand);
-        AbstractDefaultScriptActionRunner runner = null;
-        for (Class runnerCls : ActionRunnerManager.runnersCls) {
-            try {
-                @SuppressWarnings("unchecked")
-                final Constructor constructor = runnerCls.getConstructor(TestAction.class);
-                runner = (AbstractDefaultScriptActionRunner) constructor.newInstance(tester);
-                break;
-            } catch (IllegalAccessException | IllegalArgumentException | InstantiationException | NoSuchMethodException | SecurityException | InvocationTargetException ex) {
-                //Runner incorrecto, va con otro
-//                ex.printStackTrace();
-            }
-        }
-        return runner;
+    public WebDriver getDriver() {
+        return context.getDriver();
     }
 
-    @Override
-    protected void finalize() throws Throwable {
-        super.finalize();
-        if (driver != null) {
-            driver.quit();
-        }
+    public BROWSERTYPE getBrowserType() {
+        return context.getBrowserType();
     }
 
+    /**
+     * Escucha los cambios de navegador que hacen los scripts en la ejecucion
+     * de la interfaz.
+     *
+     * @param listener
+     */
+    public static void setBrowserListener(Consumer<BROWSERTYPE> listener) {
+        browserListener = listener;
+    }
+
+    /**
+     * Busca y crea el ejecutor para una accion.
+     *
+     * @param tester
+     * @return El ejecutor, o null si ninguno corresponde con el nombre de la
+     * accion.
+     * @throws InvalidActionException Si el ejecutor no acepta la accion.
+     */
+    static AbstractDefaultScriptActionRunner findRunner(TestAction tester) throws InvalidActionException {
+        return registry.create(tester);
+    }
+
+    /**
+     * Indice de ejecutores por nombre de accion.
+     *
+     * @return
+     */
+    public static RunnerRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Arbol de la carpeta de scripts. Si no existe, se crea con los ejemplos.
+     *
+     * @return
+     */
     public static TreeModel getTreeModel() {
         try {
-            instance.rootTree = asTree();
+            Gui.INSTANCE.rootTree = asTree();
         } catch (IOException ex) {
             Logger.getLogger("Probador Web").log(Level.SEVERE, null, ex);
         }
-        return instance.getRootTree();
+        return Gui.INSTANCE.getRootTree();
     }
 
     /**
@@ -173,40 +218,8 @@ public final class ActionRunnerManager {
      * @param btype
      */
     public static void set(BROWSERTYPE btype) {
-        final BROWSERTYPE instanceBrowserType = instance.getBrowserType();
-        if (instanceBrowserType != null) {
-            if (instanceBrowserType == btype) {
-                return;
-            }
-        }
-        instance.setBrowserType(btype);
-        final WebDriver instance_driver = instance.getDriver();
-        if (instance_driver != null) {
-            instance_driver.quit();
-        }
-        WebDriver driver = null;
         try {
-            switch (btype) {
-                case CHROME:
-                    driver = new ChromeDriver();
-                    break;
-                case EDGE:
-                    driver = new EdgeDriver();
-                    break;
-                case FIREFOX:
-                    driver = new FirefoxDriver();
-                    break;
-                case INTERNET_EXPLORER:
-                    driver = new InternetExplorerDriver();
-                    break;
-                case OPERA:
-                    driver = new OperaDriver();
-                    break;
-                case SAFARI:
-                default:
-                    driver = new SafariDriver();
-                    break;
-            }
+            Gui.INSTANCE.context.swapBrowser(btype);
         } catch (Exception e) {
             String message = globals.getString("settings.driver.createException")
                     .replace("{0}", btype.name());
@@ -214,32 +227,80 @@ public final class ActionRunnerManager {
 //            JOptionPane.showMessageDialog(null, message,
 //                    globals.getString("globals.error.title"),
 //                    JOptionPane.ERROR_MESSAGE);
-            return;
         }
-        instance.setDriver(driver);
     }
 
     /**
-     * Ejecuta una opcion del arbol
+     * Abre un navegador nuevo.
+     *
+     * @param btype
+     * @return
+     */
+    public static WebDriver createDriver(BROWSERTYPE btype) {
+        switch (btype) {
+            case CHROME:
+                return new ChromeDriver();
+            case EDGE:
+                return new EdgeDriver();
+            case FIREFOX:
+                return new FirefoxDriver();
+            case INTERNET_EXPLORER:
+                return new InternetExplorerDriver();
+            case OPERA:
+                return new OperaDriver();
+            case SAFARI:
+            default:
+                return new SafariDriver();
+        }
+    }
+
+    /**
+     * Crea un gestor independiente para ejecutar scripts en un navegador ya
+     * abierto, con sus propias variables. Sirve para ejecutar varios scripts
+     * al tiempo, cada uno en su navegador.
+     *
+     * @param btype
+     * @param driver
+     * @return
+     */
+    public static ActionRunnerManager newSession(BROWSERTYPE btype, WebDriver driver) {
+        return newSession(ExecutionContext.builder().browser(btype, driver).build());
+    }
+
+    /**
+     * Crea un gestor independiente para una ejecucion.
+     *
+     * @param context
+     * @return
+     */
+    public static ActionRunnerManager newSession(ExecutionContext context) {
+        return new ActionRunnerManager(context);
+    }
+
+    /**
+     * Ejecuta una opcion del arbol. Si es una carpeta, se ejecutan todos sus
+     * scripts, con cada _start.txt y _end.txt una sola vez (ver
+     * {@link Utils#getFolderRunnableFiles(File, File, boolean)}), a menos que
+     * la propiedad webapptester.folder.isolated sea true.
      *
      * @param item
+     * @return Los errores de la ejecucion.
      */
-    public static void exec(TreePath item, Logger log)
+    public static List<Exception> exec(TreePath item, Logger log)
             throws InvalidVarNameException, FileNotFoundException, IOException {
         File file = Utils.getFile(item);
-        final String ERR_TITLE = globals.getString("globals.error.title");
-        if (file.isDirectory()) {
-            JOptionPane.showMessageDialog(MainApp.getInstance(), globals.getString("exec.err.isFolder"), ERR_TITLE, JOptionPane.WARNING_MESSAGE);
-            return;
-        }
+        final Queue<File> files = file.isDirectory()
+                ? Utils.getFolderRunnableFiles(Utils.getFile(new TreePath(item.getPathComponent(0))), file,
+                        Boolean.parseBoolean(Settings.get("folder.isolated", "false")))
+                : Utils.getRunnableFiles(item);
         List<Exception> exceptions = new LinkedList<>();
-        for (File f : Utils.getRunnableFiles(item)) {
-            exceptions.addAll(instance.exec(f, log));
-        }
-        //Errores de la ejecucion
-        if (!exceptions.isEmpty()) {
-            MainApp.addException(exceptions.toArray(new Exception[]{}));
+        for (File f : files) {
+            if (Gui.INSTANCE.context.isCancelled()) {
+                break;
+            }
+            exceptions.addAll(Gui.INSTANCE.exec(f));
         }
+        return exceptions;
     }
 
     /**
@@ -254,9 +315,6 @@ public final class ActionRunnerManager {
         final String FOLDER_NAME = globals.getString("globals.actionfolder.name");
         File rootFile = new File(FOLDER_NAME);
         if (!rootFile.exists()) {
-            final String message = globals.getString("globals.folder.read.errNoFolder");
-            final String title = globals.getString("globals.error.title");
-            JOptionPane.showMessageDialog(null, message, title, JOptionPane.WARNING_MESSAGE);
             Utils.buildDefaultActionRunnerFolder(FOLDER_NAME);
             rootFile = new File(FOLDER_NAME);
         }
@@ -301,90 +359,288 @@ public final class ActionRunnerManager {
     }
 
     /**
-     * Ejecuta las instrucciones en un archivo.
+     * Ejecuta las instrucciones en un archivo. Los archivos muy grandes no se
+     * guardan en el cache de planes: se ejecutan a medida que se leen. Si el
+     * contexto guarda sesiones, un _start.txt que ya se ejecuto puede
+     * cambiarse por la sesion que dejo.
      *
      * @param file
-     * @param log
+     * @return Los errores de la ejecucion.
      */
-    public List<Exception> exec(File file, Logger log)
+    public List<Exception> exec(File file)
             throws InvalidVarNameException, FileNotFoundException, IOException {
-//        final List<String> filteredLines = Files.lines(FileSystems.getDefault().getPath(file.getAbsolutePath()))
-//                .map(String::trim)
-//                .filter(l -> !l.isEmpty() && !l.startsWith("#"))
-//                .collect(toList());
+        final Logger log = context.getLog();
         List<Exception> resp = new LinkedList<>();
-        final List<String> filteredLines = new LinkedList<>();
-        BufferedReader reader = new BufferedReader(new FileReader(file));
-        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-            line = line.trim();
-            if (line.isEmpty() || line.startsWith("#")) {
-                continue;
+        context.resetFilePolicy();
+        if (ScriptPlanCache.isStreamed(file)) {
+            try (ScriptTokenizer tokenizer = new ScriptTokenizer(new FileReader(file))) {
+                while (true) {
+                    final ScriptTokenizer.Token token;
+                    final CompiledStatement statement;
+                    try {
+                        token = tokenizer.next();
+                        if (token == null || context.isCancelled()) {
+                            break;
+                        }
+                        statement = ScriptPlanCache.compileStatement(token);
+                    } catch (ScriptSyntaxException ex) {
+                        addSyntaxError(ex, file, log, resp);
+                        continue;
+                    }
+                    if (!exec(statement, file, log, resp)
+                            && context.isStopOnFailure()) {
+                        break;
+                    }
+                }
             }
-            filteredLines.add(line);
-        };
-        reader.close();
-
-        List<String> command = new LinkedList<>();
-        int lineCounter = 0;
-//        try {
-        while (lineCounter < filteredLines.size()) {
-            boolean correct = true;
-            command.add(filteredLines.get(lineCounter++));
-            String actionCommand = command.stream().collect(joining(" "));
-            actionCommand = parse(actionCommand);
-            correct = !command.isEmpty();
-            if (correct) {
-                AbstractDefaultScriptActionRunner runner;
-                try {
-                    runner = findRunner(actionCommand);
-                } catch (BadSyntaxException ex) {
-//                        ex.printStackTrace();
-                    continue;
+            return resp;
+        }
+        final CompiledScript script = ScriptPlanCache.get(file);
+        if (context.getSnapshots() != null && file.getName().equals("_start.txt")
+                && SnapshotStore.isCacheable(script)) {
+            return execFixture(file, script);
+        }
+        return exec(file, script);
+    }
+
+    /**
+     * Ejecuta un _start.txt, o pone la sesion que dejo la ultima vez si
+     * todavia no ha vencido. Si termina sin errores, se guarda la sesion con
+     * las variables de texto que creo.
+     *
+     * @param file
+     * @param script
+     * @return Los errores de la ejecucion.
+     */
+    private List<Exception> execFixture(File file, CompiledScript script)
+            throws InvalidVarNameException {
+        final Logger log = context.getLog();
+        final String key = SnapshotStore.fixtureKey(script);
+        final SessionSnapshot snapshot = context.getSnapshots().get(key);
+        if (snapshot != null) {
+            try {
+                snapshot.restore(context.getDriver());
+                for (Map.Entry<String, String> variable : snapshot.getVariables().entrySet()) {
+                    context.setVariable(new StringVariable(variable.getKey(), variable.getValue()));
                 }
-                if (runner == null) {
-                    String message = globals.getString("exec.err.noSuchRunnerException")
-                            .replace("{0}", actionCommand)
-                            .replace("{1}", file.getAbsolutePath());
-                    resp.add(new NoActionSupportedException(message));
-//                    JOptionPane.showMessageDialog(null, message,
-//                            globals.getString("globals.error.title"), JOptionPane.ERROR_MESSAGE);
-                    log.severe(message);
-                    command.clear();
+                log.log(Level.INFO, globals.getString("snapshot.restored"), file.getPath());
+                return new LinkedList<>();
+            } catch (WebDriverException ex) {
+                //Se ejecuta de la forma normal
+                log.log(Level.WARNING, file.getPath(), ex);
+            } finally {
+                context.getElementCache().invalidate();
+            }
+        }
+        final Map<String, Variable> before = context.getVariables();
+        final List<Exception> resp = exec(file, script);
+        if (!resp.isEmpty() || context.isCancelled()) {
+            return resp;
+        }
+        final Map<String, String> variables = new HashMap<>();
+        for (Variable variable : context.getVariables().values()) {
+            if (before.get(variable.getName()) == variable) {
+                continue;
+            }
+            if (!(variable instanceof StringVariable)) {
+                //Las variables de selector no se pueden guardar
+                return resp;
+            }
+            variables.put(variable.getName(), String.valueOf(variable.getValue()));
+        }
+        try {
+            context.getSnapshots().put(key, SessionSnapshot.capture(context.getDriver(), variables));
+            log.log(Level.INFO, globals.getString("snapshot.saved"), file.getPath());
+        } catch (WebDriverException ex) {
+            log.log(Level.WARNING, file.getPath(), ex);
+        }
+        return resp;
+    }
+
+    private List<Exception> exec(File file, CompiledScript script)
+            throws InvalidVarNameException {
+        final Logger log = context.getLog();
+        final List<Exception> resp = new LinkedList<>();
+        for (ScriptSyntaxException ex : script.getErrors()) {
+            addSyntaxError(ex, file, log, resp);
+        }
+        final List<CompiledStatement> statements = script.getStatements();
+        int i = 0;
+        while (i < statements.size() && !context.isCancelled()) {
+            final StepFuser.Batch batch = context.isFastMode()
+                    ? StepFuser.collect(statements, i, context) : null;
+            if (batch != null) {
+                final int done = exec(batch, file, log);
+                i += done;
+                if (done == batch.size()) {
                     continue;
                 }
+                //La instruccion donde paro el grupo va de la forma normal
+            }
+            ElementPrefetcher.prefetch(statements, i, context);
+            if (!exec(statements.get(i++), file, log, resp) && context.isStopOnFailure()) {
+                break;
+            }
+        }
+        return resp;
+    }
 
-                try {
-                    runner.run(instance.getDriver(), log);
-                    if (runner instanceof VariableProvider) {
-                        VariableProvider varprovider = (VariableProvider) runner;
-                        Variable variable = varprovider.getVariable();
-                        if (variables.contains(variable)) {
-                            variables.remove(variable);
-                        }
-                        variables.add(variable);
-                    }
-                } catch (Exception ex) {
-                    BadSyntaxException badSyntaxException = new BadSyntaxException(prepareBadSystaxExMsg(actionCommand, file));
-                    log.log(Level.SEVERE, actionCommand, ex);
-                    resp.add(badSyntaxException);
-                } finally {
-                    command.clear();
-                }
+    /**
+     * Ejecuta un grupo de instrucciones en una sola llamada de JavaScript.
+     *
+     * @param batch
+     * @param file
+     * @param log
+     * @return Cuantas instrucciones del grupo se completaron.
+     */
+    private int exec(StepFuser.Batch batch, File file, Logger log) {
+        final List<CompiledStatement> statements = batch.getStatements();
+        final long start = System.nanoTime();
+        final int done = batch.run(context.getDriver());
+        final long nanos = System.nanoTime() - start;
+        if (done == 0) {
+            return 0;
+        }
+        //Pudo cambiar la pagina
+        context.getElementCache().invalidate();
+        final List<String> names = new LinkedList<>();
+        for (CompiledStatement statement : statements.subList(0, done)) {
+            names.add(statement.getName());
+            log.log(Level.INFO, globals.getString("exec.fast.step"), statement.getSource());
+        }
+        context.record(file.getPath(), statements.get(0).getLine(), String.join("+", names), nanos);
+        return done;
+    }
+
+    /**
+     * Ejecuta una instruccion compilada.
+     *
+     * @param statement
+     * @param file Archivo del que viene la instruccion.
+     * @param log
+     * @param resp Donde se agregan los errores.
+     * @return Si la instruccion se ejecuto sin errores.
+     * @throws InvalidVarNameException
+     */
+    private boolean exec(CompiledStatement statement, File file, Logger log, List<Exception> resp)
+            throws InvalidVarNameException {
+        String actionCommand;
+        TestAction tester;
+        if (statement.isResolved()) {
+            actionCommand = statement.getSource();
+            tester = statement.getAction();
+        } else {
+            tester = new TestAction(statement.getName(),
+                    statement.getTemplate().render(context::resolve));
+            actionCommand = statement.getName() + "=" + tester.getCommand();
+        }
+        AbstractDefaultScriptActionRunner runner;
+        try {
+            runner = findRunner(tester);
+        } catch (InvalidActionException ex) {
+            log.log(Level.SEVERE, actionCommand, ex);
+            resp.add(new BadSyntaxException(prepareBadSystaxExMsg(actionCommand, file)));
+            return false;
+        }
+        if (runner == null) {
+            String message = globals.getString("exec.err.noSuchRunnerException")
+                    .replace("{0}", actionCommand)
+                    .replace("{1}", file.getAbsolutePath());
+            resp.add(new NoActionSupportedException(message));
+            log.severe(message);
+            return false;
+        }
+        final RetryPolicy policy;
+        try {
+            policy = retryPolicy(tester, runner);
+        } catch (IllegalArgumentException ex) {
+            log.log(Level.SEVERE, actionCommand, ex);
+            resp.add(new BadSyntaxException(prepareBadSystaxExMsg(actionCommand, file)));
+            return false;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            run(runner, policy, actionCommand);
+            if (runner instanceof VariableProvider) {
+                context.setVariable(((VariableProvider) runner).getVariable());
+            }
+            return true;
+        } catch (Exception ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
             }
+            BadSyntaxException badSyntaxException = new BadSyntaxException(prepareBadSystaxExMsg(actionCommand, file));
+            badSyntaxException.initCause(ex);
+            log.log(Level.SEVERE, actionCommand, ex);
+            resp.add(badSyntaxException);
+            return false;
+        } finally {
+            context.record(file.getPath(), statement.getLine(), statement.getName(), System.nanoTime() - start);
         }
-        if (!command.isEmpty()) {
-            throwBadSynstaxEx(command.stream().collect(joining(" ")), file, log);
+    }
+
+    /**
+     * Reintentos de una instruccion: los suyos (atributo "retry"), los del
+     * archivo (accion onfailure) o los configurados para su tipo de
+     * ejecutor, en ese orden.
+     *
+     * @param tester
+     * @param runner
+     * @return
+     * @throws IllegalArgumentException Si los reintentos no tienen el formato.
+     */
+    private RetryPolicy retryPolicy(TestAction tester, AbstractDefaultScriptActionRunner runner) {
+        final String text = tester.getArguments().getString("exec.attr.retry");
+        if (text != null) {
+            return RetryPolicy.parse(text);
         }
-//        } finally {
-//            variables.clear();
-//        }
-        return resp;
+        final RetryPolicy fileRetry = context.getFileRetry();
+        return fileRetry != null ? fileRetry : RetryPolicy.forRunner(runner.getClass());
     }
 
-    private static void throwBadSynstaxEx(final String actionCommand, File file, Logger log) throws HeadlessException {
-        String badSyntazMsg = prepareBadSystaxExMsg(actionCommand, file);
-//        JOptionPane.showMessageDialog(null, badSyntazMsg,globals.getString("globals.error.title"), JOptionPane.ERROR_MESSAGE);
-        log.severe(badSyntazMsg);
+    /**
+     * Ejecuta una instruccion hasta que funcione o se acaben los intentos.
+     * Entre intentos se espera lo que diga la politica, y los elementos se
+     * vuelven a buscar.
+     *
+     * @param runner
+     * @param policy
+     * @param actionCommand Para el registro.
+     * @throws Exception El error del ultimo intento.
+     */
+    private void run(AbstractDefaultScriptActionRunner runner, RetryPolicy policy, String actionCommand)
+            throws Exception {
+        for (int attempt = 1;; attempt++) {
+            final long start = System.nanoTime();
+            try {
+                runner.run(context);
+                return;
+            } catch (Exception ex) {
+                if (attempt >= policy.getMaxAttempts() || !policy.retries(ex, runner instanceof IdempotentActionRunner) || context.isCancelled()) {
+                    throw ex;
+                }
+                //Pudo cambiar la pagina: se buscan otra vez los elementos
+                context.getElementCache().invalidate();
+                final long delay = policy.delayMillis(attempt, ThreadLocalRandom.current().nextDouble());
+                context.getLog().log(Level.WARNING, globals.getString("exec.retry"),
+                        new Object[]{attempt, policy.getMaxAttempts(), actionCommand, delay, ex.getClass().getSimpleName()});
+                Thread.sleep(delay);
+                context.addRetry(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static void addSyntaxError(ScriptSyntaxException ex, File file, Logger log, List<Exception> resp) {
+        final String message = globals.getString("exec.err.scriptSyntax")
+                .replace("{0}", ex.getMessage())
+                .replace("{1}", file.getAbsolutePath());
+        log.severe(message);
+        //El error puede venir del plan compartido: no se modifica
+        final ScriptSyntaxException error = new ScriptSyntaxException(ex.getMessage(),
+                ex.getLine(), ex.getColumn());
+        error.setContext(file.getAbsolutePath());
+        resp.add(error);
     }
 
     public static String prepareBadSystaxExMsg(final String actionCommand, File file) {
@@ -395,82 +651,30 @@ public final class ActionRunnerManager {
     }
 
     /**
+     * Reemplaza en un texto las variables, teclas especiales y claves
+     * cifradas. Ver {@link Template}.
+     *
      * @param actionCommand
      * @throws InvalidVarNameException
      * @return
      */
     public static String parse(String actionCommand) throws InvalidVarNameException {
-        String resp = actionCommand;
-        //Variables [:variable]
-        resp = parseVariables(resp);
-        resp = resp.replace("[::", "{:");
-        //Teclas especiales.[%keys]
-        resp = parseKeys(resp);
-        resp = resp.replace("[%%", "{%");
-        //Contraseas [$PWD]
-        resp = parsePWDs(resp);
-        resp = resp.replace("[$$", "[$");
-        return resp;
-    }
-
-    public static String parsePWDs(String resp) {
-        String regexp = "([0-9|a-z|A-Z|\\s]*)"
-                + "\\[\\$(.*)\\]"
-                + "([0-9|a-z|A-Z|\\s]*)";
-        Pattern pattern = Pattern.compile(regexp);
-        Matcher matcher = pattern.matcher(resp);
-        if (!matcher.find()) {
-            return resp;
-        }
-
-        for (int i = 1; i <= matcher.groupCount(); i++) {
-            String firstGroup = matcher.group(i++);
-            String original = matcher.group(i++);
-            String lastGroup = matcher.group(i);
-            if (original.startsWith("$")) {
-                continue;
-            }
-            String decrypted = firstGroup + Encryption.decrypt(original) + lastGroup;
-            resp = resp.replace(firstGroup + "[$" + original + "]" + lastGroup, decrypted);
-        }
-        return resp;
+        return Template.compile(actionCommand).render(ActionRunnerManager::resolveVariable);
     }
 
     /**
-     * Helper for {@link #parse(java.lang.String)}
+     * Reemplaza solo las teclas especiales.
      *
      * @param resp
      * @return
      */
     public static String parseKeys(String resp) {
-        String regexp = "([0-9|a-z|A-Z|\\s]*)("
-                + sqOpen + "%[Keys\\.[0-9|a-z|A-Z]*\\" + (KEY_SEPARATOR) + "?]*" + sqClose
-                + ")([0-9|a-z|A-Z|\\s]*)";
-        Pattern pattern = Pattern.compile(regexp);
-        Matcher matcher = pattern.matcher(resp);
-        if (!matcher.find()) {
-            return resp;
-        }
-
-        for (int i = 1; i <= matcher.groupCount(); i++) {
-            String firstGroup = matcher.group(i++);
-            String original = matcher.group(i++);
-            String lastGroup = matcher.group(i);
-            String varDef = original.substring(0, original.length() - 1)
-                    .substring(2);
-            String[] varDefs = varDef.contains(KEY_SEPARATOR)
-                    ? varDef.split(KEY_SEPARATOR)
-                    : new String[]{varDef};
-            final CharSequence varAsKeys = firstGroup
-                    + Arrays.asList(varDefs)
-                            .stream()
-                            .map(token -> Keys.valueOf(token.replace("Keys.", "")))
-                            .collect(joining())
-                    + lastGroup;
-            String command = Keys.chord(varAsKeys);
-            resp = resp.replace(firstGroup + original + lastGroup, command);
+        try {
+            return Template.compile(resp, EnumSet.of(Template.Placeholder.KEYS)).render(null);
+        } catch (InvalidVarNameException ex) {
+            //No hay variables
+            throw new IllegalStateException(ex);
         }
-        return resp;
     }
 
     /**
@@ -481,64 +685,31 @@ public final class ActionRunnerManager {
      * @return
      */
     public static Boolean hasKeys(String text) {
-        String regexp = "([0-9|a-z|A-Z|\\s]*)("
-                + sqOpen + "%[Keys\\.[0-9|a-z|A-Z]*\\" + (KEY_SEPARATOR) + "?]*" + sqClose
-                + ")([0-9|a-z|A-Z|\\s]*)";
-        Pattern pattern = Pattern.compile(regexp);
-        Matcher matcher = pattern.matcher(text);
-        return matcher.find();
+        return Template.compile(text, EnumSet.of(Template.Placeholder.KEYS)).hasKeys();
     }
 
     /**
-     * Helper for {@link #parse(java.lang.String) }
+     * Retorna el selector para una variable que est en un texto con su nombre.
      *
-     * @param actionCommand
+     * @param varDef El texto con el nombre de la variable en el formato
+     * [:NOMBRE_VARIABLE]
      * @return
-     * @throws InvalidVarNameException
      */
-    private static String parseVariables(String actionCommand)
-            throws InvalidVarNameException {
-        String regexp = "(" + sqOpen + ":[0-9|a-z|A-Z]*" + sqClose + ")";
-        Pattern pattern = Pattern.compile(regexp);
-        Matcher matcher = pattern.matcher(actionCommand);
-
-        if (!matcher.find()) {
-            return actionCommand;
-        }
-
-        String resp = actionCommand;
-
-        for (int i = 1; i <= matcher.groupCount(); i++) {
-            String varDef = matcher.group(i);
-            resp = resp.replace(varDef, resolveSelector4VarDef(varDef));
-        }
-        return resp;
+    public static String resolveSelector4VarDef(String varDef) throws InvalidVarNameException {
+        return resolveVariable(varDef.substring(0, varDef.length() - 1)
+                .substring(2));
     }
 
     /**
-     * Retorna el selector para una variable que est en un texto con su nombre.
+     * Retorna el valor de una variable, o su selector si es una variable de
+     * selector.
      *
-     * @param varDef El texto con el nombre de la variable en el formato
-     * [:NOMBRE_VARIABLE]
+     * @param varName
      * @return
+     * @throws InvalidVarNameException Si la variable no existe.
      */
-    public static String resolveSelector4VarDef(String varDef) throws InvalidVarNameException {
-        final String varName = varDef.substring(0, varDef.length() - 1)
-                .substring(2);
-        if (varName.isEmpty()) {
-            throw new InvalidVarNameException("variable with name " + varName);
-        }
-        Optional<Variable> varMatch = instance.variables.stream()
-                .filter(var -> var.getName().equals(varName))
-                .findAny();
-        if (varMatch.isEmpty()) {
-            throw new InvalidVarNameException(varName);
-        }
-        Variable var = varMatch.get();
-        if (var instanceof SelectorVariable) {
-            return resolveSelectorHelper(((SelectorVariable) var).getFinder());
-        }
-        return var.getValue().toString();
+    public static String resolveVariable(String varName) throws InvalidVarNameException {
+        return Gui.INSTANCE.context.resolve(varName);
     }
 
     /**
@@ -551,7 +722,7 @@ public final class ActionRunnerManager {
      * @param finder
      * @return
      */
-    private static String resolveSelectorHelper(PathKeeper finder) {
+    static String resolveSelectorHelper(PathKeeper finder) {
         ResourceBundle bundle = ResourceBundle.getBundle("application");
         String key = "CssSelectorActionRunner.attr.type";
         String typeKey = bundle.getString(key);
@@ -562,10 +733,10 @@ public final class ActionRunnerManager {
      * Para pruebas
      *
      * @param file
-     * @param log
+     * @param log No se usa: la ejecucion usa el registro de su contexto.
      */
     public static List<Exception> execInstance(File file, Logger log) throws InvalidVarNameException, IOException {
-        return instance.exec(file, log);
+        return Gui.INSTANCE.exec(file);
     }
 
     /**
@@ -574,6 +745,6 @@ public final class ActionRunnerManager {
      * @return
      */
     public static WebDriver getStDriver() {
-        return instance.getDriver();
+        return Gui.INSTANCE.getDriver();
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Aviso de que una ejecucion se debe detener. Se revisa entre instruccion e
+ * instruccion.
+ *
+ * @author nesto
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled = false;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException Si ya se cancelo.
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.Getter;
+import org.json.simple.JSONObject;
+
+/**
+ * Reparte los scripts de una carpeta entre trabajadores ({@link Worker}) que
+ * se conectan por TCP, en otras maquinas virtuales o en otras maquinas. Cada
+ * trabajador pide un script cuando termina el anterior, de modo que los mas
+ * rapidos ejecutan mas. Si un trabajador se desconecta o deja de enviar
+ * latidos, su script vuelve al principio de la cola para otro; si eso pasa
+ * demasiadas veces con el mismo script, se da por fallido.
+ * <p>
+ * Por omision solo acepta conexiones de la misma maquina.
+ *
+ * @author nesto
+ */
+public final class Coordinator implements AutoCloseable {
+
+    /**
+     * Veces que un script puede volver a la cola antes de darlo por fallido.
+     */
+    public static final int DEFAULT_MAX_REASSIGNMENTS = 3;
+
+    /**
+     * Una conexion de un trabajador.
+     */
+    private final class Lane {
+
+        private final WorkProtocol protocol;
+        private volatile String worker = "?";
+        private volatile long lastSeen = System.nanoTime();
+        /**
+         * Script que esta ejecutando; null si ninguno.
+         */
+        private String current;
+
+        Lane(WorkProtocol protocol) {
+            this.protocol = protocol;
+        }
+    }
+
+    private final ServerSocket server;
+    private final Duration heartbeatTimeout;
+    private final int maxReassignments;
+    private final Logger log;
+    private final ResourceBundle globals = ResourceBundle.getBundle("application");
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Lane> lanes = ConcurrentHashMap.newKeySet();
+    /**
+     * Nombres de los trabajadores que se conectaron, en orden.
+     */
+    private final Set<String> workers = Collections.synchronizedSet(new LinkedHashSet<>());
+    /**
+     * Scripts sin asignar. Se protege con el monitor del coordinador, igual
+     * que los resultados.
+     */
+    private final Deque<String> queue;
+    /**
+     * Todos los scripts a ejecutar.
+     */
+    private final Set<String> suite;
+    private final Map<String, SuiteReport.Entry> results = new TreeMap<>();
+    /**
+     * Veces que volvio a la cola cada script.
+     */
+    private final Map<String, Integer> requeued = new HashMap<>();
+    private final int total;
+    private final long start = System.currentTimeMillis();
+    /**
+     * Veces que un script volvio a la cola porque su trabajador fallo.
+     */
+    @Getter
+    private volatile int reassignments;
+
+    /**
+     * Un coordinador que solo escucha en la misma maquina.
+     *
+     * @param port Puerto; 0 para uno libre (ver {@link #getPort()}).
+     * @param scripts Rutas relativas de los scripts, en el orden en que se
+     * reparten; conviene poner primero los mas largos.
+     * @param heartbeatTimeout Tiempo sin noticias tras el que se da por
+     * muerto a un trabajador.
+     * @param log
+     * @throws IOException
+     */
+    public Coordinator(int port, List<String> scripts, Duration heartbeatTimeout, Logger log) throws IOException {
+        this(null, port, scripts, heartbeatTimeout, DEFAULT_MAX_REASSIGNMENTS, log);
+    }
+
+    /**
+     * @param host Direccion en la que se escucha, como 0.0.0.0 para todas;
+     * null para solo la misma maquina.
+     * @param port Puerto; 0 para uno libre (ver {@link #getPort()}).
+     * @param scripts Rutas relativas de los scripts, en el orden en que se
+     * reparten; conviene poner primero los mas largos.
+     * @param heartbeatTimeout Tiempo sin noticias tras el que se da por
+     * muerto a un trabajador.
+     * @param maxReassignments Veces que un script puede volver a la cola.
+     * @param log
+     * @throws IOException
+     */
+    public Coordinator(String host, int port, List<String> scripts, Duration heartbeatTimeout,
+            int maxReassignments, Logger log) throws IOException {
+        this.server = new ServerSocket(port, 0,
+                host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host));
+        this.queue = new ArrayDeque<>(scripts);
+        this.suite = new HashSet<>(scripts);
+        this.total = scripts.size();
+        this.heartbeatTimeout = heartbeatTimeout;
+        this.maxReassignments = maxReassignments;
+        this.log = log;
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Empieza a recibir trabajadores.
+     *
+     * @return
+     */
+    public Coordinator start() {
+        threads.submit(this::accept);
+        threads.submit(this::watch);
+        return this;
+    }
+
+    /**
+     * Espera a que esten los resultados de todos los scripts.
+     *
+     * @return Los resultados, ordenados por ruta; las partes son los
+     * trabajadores.
+     * @throws InterruptedException
+     */
+    public synchronized SuiteReport await() throws InterruptedException {
+        while (results.size() < total) {
+            wait();
+        }
+        final List<String> names;
+        synchronized (workers) {
+            names = new ArrayList<>(workers);
+        }
+        return new SuiteReport(names, System.currentTimeMillis() - start, new ArrayList<>(results.values()));
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException ex) {
+            //Ya estaba cerrado
+        }
+        lanes.forEach(lane -> lane.protocol.close());
+        threads.shutdownNow();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                final Socket socket = server.accept();
+                final Lane lane = new Lane(new WorkProtocol(socket));
+                lanes.add(lane);
+                threads.submit(() -> serve(lane));
+            } catch (SocketException ex) {
+                //Se cerro el coordinador
+                return;
+            } catch (IOException ex) {
+                log.log(Level.WARNING, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Cierra las conexiones de los trabajadores que dejaron de enviar
+     * latidos; sus scripts vuelven a la cola al cerrarse.
+     */
+    private void watch() {
+        try {
+            while (!server.isClosed()) {
+                Thread.sleep(Math.max(1, heartbeatTimeout.toMillis() / 2));
+                closeSilent(System.nanoTime());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cierra las conexiones sin noticias desde hace mas del tiempo limite.
+     *
+     * @param now Momento de la revision, en nanosegundos (ver
+     * {@link System#nanoTime()}).
+     */
+    void closeSilent(long now) {
+        final long timeout = heartbeatTimeout.toNanos();
+        for (Lane lane : lanes) {
+            if (now - lane.lastSeen > timeout) {
+                lane.protocol.close();
+            }
+        }
+    }
+
+    private void serve(Lane lane) {
+        try {
+            for (JSONObject message = lane.protocol.receive(); message != null; message = lane.protocol.receive()) {
+                lane.lastSeen = System.nanoTime();
+                switch (WorkProtocol.type(message)) {
+                    case WorkProtocol.HELLO:
+                        lane.worker = String.valueOf(message.get("worker"));
+                        workers.add(lane.worker);
+                        log.log(Level.INFO, globals.getString("coordinator.connected"), lane.worker);
+                        break;
+                    case WorkProtocol.NEXT:
+                        lane.protocol.send(next(lane));
+                        break;
+                    case WorkProtocol.RESULT:
+                        finish(lane, SuiteReport.fromJSON(message));
+                        break;
+                    default:
+                        //Latidos
+                        break;
+                }
+            }
+        } catch (IOException ex) {
+            //Se cae el trabajador: lo mismo que si se desconecta
+        } finally {
+            lanes.remove(lane);
+            lane.protocol.close();
+            requeue(lane);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized JSONObject next(Lane lane) {
+        if (results.size() >= total) {
+            return WorkProtocol.message(WorkProtocol.DONE);
+        }
+        final String script = queue.pollFirst();
+        if (script == null) {
+            //Otros trabajadores tienen los que faltan, y pueden fallar
+            return WorkProtocol.message(WorkProtocol.WAIT);
+        }
+        lane.current = script;
+        final JSONObject resp = WorkProtocol.message(WorkProtocol.SCRIPT);
+        resp.put("script", script);
+        return resp;
+    }
+
+    /**
+     * Guarda el resultado de un script. Solo se acepta el del script que se
+     * le dio al trabajador, o el de uno que ya volvio a la cola; los demas
+     * (repetidos o de scripts que no son de la ejecucion) se descartan, para
+     * que no cuenten como terminado un script que sigue sin resultado.
+     */
+    private synchronized void finish(Lane lane, SuiteReport.Entry entry) {
+        final String script = entry.getScript();
+        if (script == null || !suite.contains(script)
+                || !(script.equals(lane.current) || requeued.containsKey(script))) {
+            log.log(Level.WARNING, globals.getString("coordinator.err.unexpected"),
+                    new Object[]{lane.worker, script});
+            return;
+        }
+        if (script.equals(lane.current)) {
+            lane.current = null;
+        }
+        //Si llego tarde de un trabajador que se dio por muerto, queda el primero
+        results.putIfAbsent(entry.getScript(), entry);
+        queue.remove(entry.getScript());
+        notifyAll();
+    }
+
+    private synchronized void requeue(Lane lane) {
+        final String script = lane.current;
+        lane.current = null;
+        if (script == null || results.containsKey(script)) {
+            return;
+        }
+        final int times = requeued.merge(script, 1, Integer::sum);
+        if (times > maxReassignments) {
+            //Probablemente es el script el que tumba a los trabajadores: no se reparte mas
+            final String message = globals.getString("coordinator.err.abandoned")
+                    .replace("{0}", script)
+                    .replace("{1}", String.valueOf(times));
+            log.warning(message);
+            results.put(script, new SuiteReport.Entry(script, false, 0, List.of(message)));
+            notifyAll();
+            return;
+        }
+        queue.addFirst(script);
+        reassignments++;
+        log.log(Level.WARNING, globals.getString("coordinator.reassigned"), new Object[]{lane.worker, script});
+    }
+}
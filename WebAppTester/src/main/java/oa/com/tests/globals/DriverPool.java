@@ -0,0 +1,468 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import oa.com.utils.Settings;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+/**
+ * Conjunto de navegadores abiertos que se prestan para ejecutar scripts al
+ * tiempo. Abrir un navegador es lo mas costoso de una ejecucion, asi que:
+ * <ul>
+ * <li>Se pueden abrir de antemano, en segundo plano
+ * ({@link #warmUp()}).</li>
+ * <li>Antes de prestar uno se revisa que siga respondiendo.</li>
+ * <li>Al devolverlo se limpia (cookies, almacenamiento, ventanas extra) en vez
+ * de cerrarlo, si el navegador lo permite (ver {@link #resetState}). Solo
+ * Chrome y Edge lo permiten: los demas navegadores (Firefox, Safari...) se
+ * cierran cada vez que se devuelven, asi que no se reusan.</li>
+ * <li>Se cierra y se reemplaza despues de cierta cantidad de usos o si
+ * falla.</li>
+ * </ul>
+ * Si todos estan prestados, se espera a que devuelvan uno.
+ *
+ * @author nesto
+ */
+public final class DriverPool implements AutoCloseable {
+
+    /**
+     * Abre un navegador.
+     */
+    @FunctionalInterface
+    public interface DriverFactory {
+
+        WebDriver create();
+    }
+
+    /**
+     * Revisa o prepara un navegador. Si lanza una excepcion, el navegador se
+     * cierra y se reemplaza.
+     */
+    @FunctionalInterface
+    public interface DriverCheck {
+
+        void apply(WebDriver driver);
+    }
+
+    /**
+     * Contadores de uso del conjunto.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Stats {
+
+        /**
+         * Navegadores abiertos.
+         */
+        private final long launches;
+        /**
+         * Prestamos de un navegador ya abierto.
+         */
+        private final long reuses;
+        /**
+         * Limpiezas al devolver un navegador.
+         */
+        private final long resets;
+        /**
+         * Navegadores cerrados por fallas o por cantidad de usos.
+         */
+        private final long evictions;
+    }
+
+    @Getter
+    private final ActionRunnerManager.BROWSERTYPE browserType;
+    @Getter
+    private final int size;
+    /**
+     * Usos de un navegador antes de cerrarlo y abrir otro.
+     */
+    @Getter
+    private final int maxUses;
+    private final boolean warm;
+    private final DriverFactory factory;
+    private final DriverCheck healthCheck;
+    private final DriverCheck reset;
+    private final BlockingQueue<WebDriver> idle = new LinkedBlockingQueue<>();
+    /**
+     * Navegadores abiertos, prestados o no.
+     */
+    private final AtomicInteger open = new AtomicInteger();
+    private final Map<WebDriver, Integer> uses = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final AtomicLong launches = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    /**
+     * Abre los navegadores en segundo plano.
+     */
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(r -> {
+        final Thread resp = new Thread(r, "DriverPool launcher");
+        resp.setDaemon(true);
+        return resp;
+    });
+    private volatile boolean closed = false;
+
+    private DriverPool(Builder builder) {
+        this.browserType = builder.browserType;
+        this.size = builder.size;
+        this.maxUses = builder.maxUses;
+        this.warm = builder.warm;
+        this.factory = builder.factory != null ? builder.factory
+                : () -> ActionRunnerManager.createDriver(browserType);
+        this.healthCheck = builder.healthCheck;
+        this.reset = builder.reset;
+    }
+
+    /**
+     * Opciones por omision: ver {@link Builder}.
+     *
+     * @param browserType
+     * @param size
+     */
+    public DriverPool(ActionRunnerManager.BROWSERTYPE browserType, int size) {
+        this(builder(browserType).size(size));
+    }
+
+    public static Builder builder(ActionRunnerManager.BROWSERTYPE browserType) {
+        return new Builder(browserType);
+    }
+
+    /**
+     * Opciones del conjunto. Por omision la cantidad de usos y si se abren
+     * los navegadores de antemano se toman de las opciones "pool.maxUses" y
+     * "pool.warm" (ver {@link Settings}).
+     */
+    public static final class Builder {
+
+        private final ActionRunnerManager.BROWSERTYPE browserType;
+        private int size = 1;
+        private int maxUses = Settings.getInt("pool.maxUses", 50);
+        private boolean warm = Boolean.parseBoolean(Settings.get("pool.warm", "true"));
+        private DriverFactory factory;
+        private DriverCheck healthCheck = DriverPool::checkHealth;
+        private DriverCheck reset = DriverPool::resetState;
+
+        private Builder(ActionRunnerManager.BROWSERTYPE browserType) {
+            this.browserType = browserType;
+        }
+
+        public Builder size(int size) {
+            this.size = size;
+            return this;
+        }
+
+        public Builder maxUses(int maxUses) {
+            this.maxUses = maxUses;
+            return this;
+        }
+
+        /**
+         * Si se abren todos los navegadores de antemano y se reemplazan en
+         * segundo plano los que se cierran.
+         *
+         * @param warm
+         * @return
+         */
+        public Builder warm(boolean warm) {
+            this.warm = warm;
+            return this;
+        }
+
+        public Builder factory(DriverFactory factory) {
+            this.factory = factory;
+            return this;
+        }
+
+        public Builder healthCheck(DriverCheck healthCheck) {
+            this.healthCheck = healthCheck;
+            return this;
+        }
+
+        public Builder reset(DriverCheck reset) {
+            this.reset = reset;
+            return this;
+        }
+
+        public DriverPool build() {
+            if (size < 1 || maxUses < 1) {
+                throw new IllegalArgumentException(size + "/" + maxUses);
+            }
+            final DriverPool resp = new DriverPool(this);
+            if (warm) {
+                resp.warmUp();
+            }
+            return resp;
+        }
+    }
+
+    /**
+     * Empieza a abrir en segundo plano los navegadores que faltan para
+     * completar el conjunto.
+     */
+    public void warmUp() {
+        for (int i = open.get(); i < size; i++) {
+            launcher.execute(this::launchIdle);
+        }
+    }
+
+    /**
+     * Presta un navegador. Hay que devolverlo con {@link #release(WebDriver)}.
+     *
+     * @return
+     * @throws InterruptedException
+     * @throws IllegalStateException Si el conjunto ya se cerro.
+     */
+    public WebDriver lease() throws InterruptedException {
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            WebDriver resp = idle.poll();
+            if (resp == null) {
+                if (open.incrementAndGet() <= size) {
+                    return launch();
+                }
+                open.decrementAndGet();
+                //Se vuelve a intentar por si se cerro alguno mientras tanto
+                resp = idle.poll(1, TimeUnit.SECONDS);
+            }
+            if (resp != null) {
+                if (passes(healthCheck, resp)) {
+                    reuses.incrementAndGet();
+                    return resp;
+                }
+                evict(resp);
+            }
+        }
+    }
+
+    /**
+     * Devuelve un navegador prestado. Se limpia para el siguiente script, o
+     * se cierra si ya se uso demasiadas veces o no se pudo limpiar.
+     *
+     * @param driver
+     */
+    public void release(WebDriver driver) {
+        if (closed) {
+            evict(driver);
+            return;
+        }
+        final int count = uses.merge(driver, 1, Integer::sum);
+        if (count >= maxUses || !passes(reset, driver)) {
+            evict(driver);
+            return;
+        }
+        resets.incrementAndGet();
+        idle.add(driver);
+    }
+
+    /**
+     * Cierra un navegador prestado que quedo en mal estado. Su lugar queda
+     * libre para abrir otro.
+     *
+     * @param driver
+     */
+    public void discard(WebDriver driver) {
+        evict(driver);
+    }
+
+    public Stats getStats() {
+        return new Stats(launches.get(), reuses.get(), resets.get(), evictions.get());
+    }
+
+    /**
+     * Cierra los navegadores que no estan prestados. Los prestados se cierran
+     * al devolverlos.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        launcher.shutdownNow();
+        final List<WebDriver> drivers = new ArrayList<>();
+        idle.drainTo(drivers);
+        drivers.forEach(this::evict);
+    }
+
+    private WebDriver launch() {
+        try {
+            final WebDriver resp = factory.create();
+            launches.incrementAndGet();
+            return resp;
+        } catch (RuntimeException ex) {
+            open.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    private void launchIdle() {
+        if (closed || open.incrementAndGet() > size) {
+            open.decrementAndGet();
+            return;
+        }
+        final WebDriver driver;
+        try {
+            driver = launch();
+        } catch (RuntimeException ex) {
+            Logger.getLogger("Probador Web").log(Level.WARNING, null, ex);
+            return;
+        }
+        if (closed) {
+            evict(driver);
+        } else {
+            idle.add(driver);
+        }
+    }
+
+    private void evict(WebDriver driver) {
+        uses.remove(driver);
+        open.decrementAndGet();
+        evictions.incrementAndGet();
+        try {
+            driver.quit();
+        } catch (RuntimeException ex) {
+            Logger.getLogger("Probador Web").log(Level.WARNING, null, ex);
+        }
+        if (warm && !closed) {
+            launcher.execute(this::launchIdle);
+        }
+    }
+
+    private static boolean passes(DriverCheck check, WebDriver driver) {
+        try {
+            check.apply(driver);
+            return true;
+        } catch (RuntimeException ex) {
+            Logger.getLogger("Probador Web").log(Level.FINE, null, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Revisa que el navegador responda.
+     *
+     * @param driver
+     */
+    public static void checkHealth(WebDriver driver) {
+        driver.getWindowHandles();
+    }
+
+    /**
+     * Deja el navegador como recien abierto: una sola ventana, sin cookies ni
+     * datos guardados, en una pagina en blanco. Solo los navegadores con el
+     * protocolo de DevTools (Chrome, Edge) permiten borrar las cookies de
+     * todos los sitios y los datos de cada origen; con los demas falla, para
+     * que el pool cierre el navegador en vez de reusarlo.
+     * <p>
+     * Los datos se borran para los origenes de la historia y de los marcos
+     * (iframes) de todas las ventanas, incluidas las que se cierran.
+     *
+     * @param driver
+     * @throws UnsupportedOperationException Si no se puede limpiar.
+     */
+    public static void resetState(WebDriver driver) {
+        if (!(driver instanceof HasCdp)) {
+            throw new UnsupportedOperationException(driver.getClass().getName());
+        }
+        final HasCdp cdp = (HasCdp) driver;
+        final Set<String> origins = new LinkedHashSet<>();
+        final Iterator<String> it = driver.getWindowHandles().iterator();
+        final String main = it.next();
+        while (it.hasNext()) {
+            driver.switchTo().window(it.next());
+            addOrigins(cdp, origins);
+            driver.close();
+        }
+        driver.switchTo().window(main);
+        addOrigins(cdp, origins);
+        if (driver instanceof JavascriptExecutor) {
+            ((JavascriptExecutor) driver).executeScript(
+                    "try{window.sessionStorage.clear();}catch(e){}");
+        }
+        for (String origin : origins) {
+            cdp.executeCdpCommand("Storage.clearDataForOrigin",
+                    Map.of("origin", origin, "storageTypes", "all"));
+        }
+        cdp.executeCdpCommand("Network.clearBrowserCookies", Map.of());
+        driver.get("about:blank");
+    }
+
+    /**
+     * Agrega los origenes de las paginas visitadas en la ventana actual y de
+     * los marcos que tiene abiertos.
+     */
+    @SuppressWarnings("unchecked")
+    private static void addOrigins(HasCdp cdp, Set<String> origins) {
+        final Object entries = cdp.executeCdpCommand("Page.getNavigationHistory", Map.of()).get("entries");
+        if (entries instanceof List) {
+            for (Object entry : (List<Object>) entries) {
+                addOrigin(entry, origins);
+            }
+        }
+        addFrameOrigins(cdp.executeCdpCommand("Page.getFrameTree", Map.of()).get("frameTree"), origins);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addFrameOrigins(Object tree, Set<String> origins) {
+        if (!(tree instanceof Map)) {
+            return;
+        }
+        addOrigin(((Map<String, Object>) tree).get("frame"), origins);
+        final Object children = ((Map<String, Object>) tree).get("childFrames");
+        if (children instanceof List) {
+            for (Object child : (List<Object>) children) {
+                addFrameOrigins(child, origins);
+            }
+        }
+    }
+
+    /**
+     * Agrega el origen (esquema, maquina y puerto) del url de una entrada de
+     * la historia o de un marco.
+     */
+    @SuppressWarnings("unchecked")
+    private static void addOrigin(Object item, Set<String> origins) {
+        final Object url = item instanceof Map ? ((Map<String, Object>) item).get("url") : null;
+        try {
+            final URI uri = new URI(String.valueOf(url));
+            if (uri.getHost() != null && uri.getScheme() != null && uri.getScheme().startsWith("http")) {
+                origins.add(uri.getScheme() + "://" + uri.getHost() + (uri.getPort() < 0 ? "" : ":" + uri.getPort()));
+            }
+        } catch (URISyntaxException ex) {
+            //No es una pagina con origen
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
+import oa.com.tests.actionrunners.interfaces.PathKeeper.SearchTypes;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Elementos ya encontrados en la pagina actual de una ejecucion, por tipo de
+ * busqueda y ruta. Asi, varias instrucciones seguidas sobre el mismo elemento
+ * lo buscan en el navegador una sola vez. Todo el cache se descarta al cambiar
+ * de pagina (una nueva epoca): con ir, al cambiar de navegador o cuando un
+ * elemento guardado ya no esta en la pagina.
+ *
+ * @author nesto
+ */
+public final class ElementCache {
+
+    /**
+     * Contadores del cache.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Stats {
+
+        public static final Stats EMPTY = new Stats(0, 0, 0, 0, 0);
+
+        /**
+         * Busquedas resueltas con el cache.
+         */
+        private final long hits;
+        /**
+         * Busquedas que fueron al navegador.
+         */
+        private final long misses;
+        /**
+         * Veces que se descarto el cache.
+         */
+        private final long invalidations;
+        /**
+         * Llamadas al navegador para buscar varios elementos por adelantado.
+         */
+        private final long prefetches;
+        /**
+         * Elementos buscados por adelantado que despues se usaron.
+         */
+        private final long prefetchHits;
+
+        /**
+         * Llamadas al navegador que se ahorraron al buscar por adelantado:
+         * cada elemento usado es una busqueda menos y cada llamada cuenta una.
+         *
+         * @return
+         */
+        public long getSavedRoundTrips() {
+            return prefetchHits - prefetches;
+        }
+
+        public Stats plus(Stats other) {
+            return new Stats(hits + other.hits, misses + other.misses, invalidations + other.invalidations,
+                    prefetches + other.prefetches, prefetchHits + other.prefetchHits);
+        }
+    }
+
+    private final Map<String, WebElement> elements = new HashMap<>();
+    /**
+     * Claves de los elementos buscados por adelantado que aun no se han usado.
+     */
+    private final Set<String> prefetched = new HashSet<>();
+    /**
+     * Numero de la pagina actual; cambia cada vez que se descarta el cache.
+     */
+    @Getter
+    private long epoch;
+    private long hits;
+    private long misses;
+    private long prefetches;
+    private long prefetchHits;
+
+    /**
+     * Busca un elemento, primero en el cache.
+     *
+     * @param driver
+     * @param type
+     * @param path
+     * @return
+     * @throws org.openqa.selenium.NoSuchElementException Si no esta en la
+     * pagina.
+     */
+    public WebElement find(WebDriver driver, SearchTypes type, String path) {
+        final String key = key(type, path);
+        final long searchEpoch;
+        synchronized (this) {
+            final WebElement cached = elements.get(key);
+            if (cached != null) {
+                hits++;
+                if (prefetched.remove(key)) {
+                    prefetchHits++;
+                }
+                return cached;
+            }
+            misses++;
+            searchEpoch = epoch;
+        }
+        final WebElement resp = AbstractSelectorActionRunner.get(driver, type, path);
+        synchronized (this) {
+            //Si cambio la pagina mientras se buscaba, no se guarda
+            if (resp != null && searchEpoch == epoch) {
+                elements.put(key, resp);
+            }
+        }
+        return resp;
+    }
+
+    /**
+     * Descarta todos los elementos, porque cambio la pagina.
+     */
+    public synchronized void invalidate() {
+        elements.clear();
+        prefetched.clear();
+        epoch++;
+    }
+
+    public synchronized boolean contains(SearchTypes type, String path) {
+        return elements.containsKey(key(type, path));
+    }
+
+    /**
+     * Guarda los elementos de una busqueda por adelantado, si la pagina no
+     * cambio desde que empezo.
+     *
+     * @param searchEpoch Epoca cuando empezo la busqueda.
+     * @param found Elementos encontrados por tipo y ruta (ver
+     * {@link #key(SearchTypes, String)}).
+     */
+    public synchronized void putPrefetched(long searchEpoch, Map<String, WebElement> found) {
+        prefetches++;
+        if (searchEpoch != epoch) {
+            return;
+        }
+        for (Map.Entry<String, WebElement> entry : found.entrySet()) {
+            if (elements.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                prefetched.add(entry.getKey());
+            }
+        }
+    }
+
+    public static String key(SearchTypes type, String path) {
+        return type + ":" + path;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, epoch, prefetches, prefetchHits);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
+import oa.com.tests.actionrunners.interfaces.FusableActionRunner;
+import oa.com.tests.actionrunners.interfaces.PathKeeper;
+import oa.com.tests.lang.CompiledStatement;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Busca por adelantado, en una sola llamada al navegador, los elementos de
+ * las siguientes instrucciones de un script y los deja en el
+ * {@link ElementCache}. Solo se miran las instrucciones ya resueltas al
+ * compilar (sin variables), y se para despues de la primera que puede cambiar
+ * la pagina.
+ *
+ * @author nesto
+ */
+public final class ElementPrefetcher {
+
+    /**
+     * Cuantas instrucciones se miran por omision, si no se configura el valor
+     * "prefetch" (ver {@link oa.com.utils.Settings}).
+     */
+    public static final int DEFAULT_WINDOW = 5;
+    /**
+     * Recibe en arguments[0] los tipos y rutas, y retorna los elementos
+     * encontrados, o null en los que no esten.
+     */
+    static final String SCRIPT
+            = "var q=arguments[0],r=[];"
+            + "for(var i=0;i<q.length;i++){"
+            + "var el=null;"
+            + "try{"
+            + "el=q[i].type=='xpath'?document.evaluate(q[i].path,document,null,"
+            + "XPathResult.FIRST_ORDERED_NODE_TYPE,null).singleNodeValue"
+            + ":document.querySelector(q[i].path);"
+            + "}catch(e){}"
+            + "r.push(el&&el.nodeType==1?el:null);}"
+            + "return r;";
+
+    private ElementPrefetcher() {
+    }
+
+    /**
+     * Si la instruccion actual busca un elemento que no esta en el cache,
+     * busca de una vez los de las siguientes instrucciones.
+     *
+     * @param statements
+     * @param from Instruccion actual.
+     * @param context
+     * @return Si se hizo la busqueda.
+     */
+    public static boolean prefetch(List<CompiledStatement> statements, int from, ExecutionContext context) {
+        final int window = context.getPrefetch();
+        if (window < 2 || !(context.getDriver() instanceof JavascriptExecutor)) {
+            return false;
+        }
+        final ElementCache cache = context.getElementCache();
+        final long epoch = cache.getEpoch();
+        final Map<String, PathKeeper> wanted = new LinkedHashMap<>();
+        for (int i = from; i < statements.size() && i < from + window; i++) {
+            final AbstractDefaultScriptActionRunner runner = runnerFor(statements.get(i));
+            if (!(runner instanceof AbstractSelectorActionRunner)) {
+                break;
+            }
+            final AbstractSelectorActionRunner selectorRunner = (AbstractSelectorActionRunner) runner;
+            final PathKeeper selector = selectorRunner.getSelector();
+            if (selectorRunner.usesElementCache() && selector != null && selector.hasPath()
+                    && !cache.contains(selector.getType(), selector.getPath())) {
+                wanted.putIfAbsent(ElementCache.key(selector.getType(), selector.getPath()), selector);
+            } else if (i == from) {
+                //La actual no necesita buscar nada
+                return false;
+            }
+            if (runner instanceof FusableActionRunner && ((FusableActionRunner) runner).endsBatch()) {
+                break;
+            }
+        }
+        if (wanted.size() < 2) {
+            return false;
+        }
+        final List<Map<String, Object>> query = new ArrayList<>();
+        for (PathKeeper selector : wanted.values()) {
+            final Map<String, Object> item = new HashMap<>();
+            item.put("type", selector.getType().name().toLowerCase(Locale.ROOT));
+            item.put("path", selector.getPath());
+            query.add(item);
+        }
+        final Object result;
+        try {
+            result = ((JavascriptExecutor) context.getDriver()).executeScript(SCRIPT, query);
+        } catch (WebDriverException ex) {
+            return false;
+        }
+        final Map<String, WebElement> found = new HashMap<>();
+        if (result instanceof List) {
+            final List<?> elements = (List<?>) result;
+            int i = 0;
+            for (String key : wanted.keySet()) {
+                if (i < elements.size() && elements.get(i) instanceof WebElement) {
+                    found.put(key, (WebElement) elements.get(i));
+                }
+                i++;
+            }
+        }
+        cache.putPrefetched(epoch, found);
+        return true;
+    }
+
+    /**
+     * Ejecutor de una instruccion resuelta al compilar.
+     *
+     * @param statement
+     * @return El ejecutor o null si la instruccion tiene variables o errores.
+     */
+    private static AbstractDefaultScriptActionRunner runnerFor(CompiledStatement statement) {
+        if (!statement.isResolved()) {
+            return null;
+        }
+        try {
+            return ActionRunnerManager.findRunner(statement.getAction());
+        } catch (InvalidActionException | RuntimeException ex) {
+            return null;
+        }
+    }
+}
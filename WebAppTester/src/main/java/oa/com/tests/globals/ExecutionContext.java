@@ -0,0 +1,372 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import oa.com.tests.lang.SelectorVariable;
+import oa.com.tests.lang.Variable;
+import oa.com.utils.Settings;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Estado de una ejecucion: el navegador, las variables, el registro, los
+ * tiempos de cada instruccion y el aviso de cancelacion. Cada ejecucion tiene
+ * el suyo, de modo que se pueden tener varias al tiempo en la misma maquina
+ * virtual sin cargar la interfaz grafica.
+ *
+ * @author nesto
+ */
+public final class ExecutionContext {
+
+    /**
+     * Cambia el navegador de una ejecucion.
+     */
+    @FunctionalInterface
+    public interface BrowserSwitcher {
+
+        /**
+         * @param context
+         * @param btype
+         * @return El nuevo navegador.
+         */
+        WebDriver switchTo(ExecutionContext context, ActionRunnerManager.BROWSERTYPE btype);
+    }
+
+    /**
+     * Duracion de una instruccion.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class StepTiming {
+
+        private final String file;
+        private final int line;
+        private final String action;
+        private final long nanos;
+        /**
+         * Parte de la duracion que la instruccion paso esperando, como en una
+         * pausa.
+         */
+        private final long waitedNanos;
+        /**
+         * Intentos que fallaron antes del ultimo.
+         */
+        private final int retries;
+        /**
+         * Parte de la duracion que se perdio en los intentos fallidos y en
+         * las esperas entre ellos.
+         */
+        private final long retriedNanos;
+    }
+
+    /**
+     * Cuantos tiempos de instrucciones se guardan como maximo; de ahi en
+     * adelante se descartan los mas viejos, para que un contexto que se usa
+     * por mucho tiempo, como el de la interfaz grafica, o un archivo muy largo
+     * no llenen la memoria.
+     */
+    public static final int MAX_TIMINGS = 10_000;
+
+    @Getter
+    private volatile ActionRunnerManager.BROWSERTYPE browserType;
+    @Getter
+    private volatile WebDriver driver;
+    @Getter
+    private final Logger log;
+    @Getter
+    private final CancellationToken cancellation;
+    private final BrowserSwitcher switcher;
+    /**
+     * Si se agrupan instrucciones en una sola llamada de JavaScript. Ver
+     * {@link StepFuser}.
+     */
+    @Getter
+    private final boolean fastMode;
+    /**
+     * Cuantas instrucciones se miran al buscar elementos por adelantado; 0
+     * para no hacerlo. Ver {@link ElementPrefetcher}.
+     */
+    @Getter
+    private final int prefetch;
+    /**
+     * Donde se guardan las sesiones que dejan los _start.txt, para no
+     * repetirlos; null para no hacerlo. Ver {@link SessionSnapshot}.
+     */
+    @Getter
+    private final SnapshotStore snapshots;
+    /**
+     * Variables por nombre.
+     */
+    private final Map<String, Variable> variables = new ConcurrentHashMap<>();
+    private final Deque<StepTiming> timings = new ArrayDeque<>();
+    /**
+     * Tiempo de espera de la instruccion en curso.
+     */
+    private final AtomicLong waited = new AtomicLong();
+    /**
+     * Reintentos de la instruccion en curso.
+     */
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicLong retried = new AtomicLong();
+    /**
+     * Reintentos para el resto del archivo en curso; null si no se cambiaron.
+     * Ver {@link #resetFilePolicy()}.
+     */
+    @Getter
+    @Setter
+    private volatile RetryPolicy fileRetry;
+    /**
+     * Si el archivo en curso se deja de ejecutar en la primera instruccion
+     * que falla.
+     */
+    @Getter
+    @Setter
+    private volatile boolean stopOnFailure;
+    /**
+     * Elementos ya encontrados en la pagina actual.
+     */
+    @Getter
+    private final ElementCache elementCache = new ElementCache();
+
+    private ExecutionContext(Builder builder) {
+        this.browserType = builder.browserType;
+        this.driver = builder.driver;
+        this.log = builder.log;
+        this.cancellation = builder.cancellation;
+        this.switcher = builder.switcher;
+        this.fastMode = builder.fastMode;
+        this.prefetch = builder.prefetch;
+        this.snapshots = builder.snapshots;
+        resetFilePolicy();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        private ActionRunnerManager.BROWSERTYPE browserType;
+        private WebDriver driver;
+        private Logger log = Logger.getLogger("Probador Web");
+        private CancellationToken cancellation = new CancellationToken();
+        private BrowserSwitcher switcher = ExecutionContext::replaceDriver;
+        private boolean fastMode = Boolean.parseBoolean(Settings.get("fast", "false"));
+        private int prefetch = Settings.getInt("prefetch", ElementPrefetcher.DEFAULT_WINDOW);
+        private SnapshotStore snapshots = Boolean.parseBoolean(Settings.get("snapshots", "false"))
+                ? SnapshotStore.getDefault() : null;
+
+        private Builder() {
+        }
+
+        public Builder browser(ActionRunnerManager.BROWSERTYPE browserType, WebDriver driver) {
+            this.browserType = browserType;
+            this.driver = driver;
+            return this;
+        }
+
+        public Builder log(Logger log) {
+            this.log = log;
+            return this;
+        }
+
+        public Builder cancellation(CancellationToken cancellation) {
+            this.cancellation = cancellation;
+            return this;
+        }
+
+        public Builder switcher(BrowserSwitcher switcher) {
+            this.switcher = switcher;
+            return this;
+        }
+
+        public Builder fastMode(boolean fastMode) {
+            this.fastMode = fastMode;
+            return this;
+        }
+
+        public Builder prefetch(int prefetch) {
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        public Builder snapshots(SnapshotStore snapshots) {
+            this.snapshots = snapshots;
+            return this;
+        }
+
+        public ExecutionContext build() {
+            return new ExecutionContext(this);
+        }
+    }
+
+    /**
+     * Cambia de navegador, si no es el mismo que se esta usando.
+     *
+     * @param btype
+     */
+    public void swapBrowser(ActionRunnerManager.BROWSERTYPE btype) {
+        if (btype == browserType && driver != null) {
+            return;
+        }
+        driver = switcher.switchTo(this, btype);
+        browserType = btype;
+        elementCache.invalidate();
+    }
+
+    /**
+     * Cierra el navegador actual y abre otro.
+     *
+     * @param context
+     * @param btype
+     * @return
+     */
+    public static WebDriver replaceDriver(ExecutionContext context, ActionRunnerManager.BROWSERTYPE btype) {
+        final WebDriver resp = ActionRunnerManager.createDriver(btype);
+        if (context.getDriver() != null) {
+            context.getDriver().quit();
+        }
+        return resp;
+    }
+
+    /**
+     * Si la ejecucion se debe detener, porque se cancelo o porque se
+     * interrumpio el hilo.
+     *
+     * @return
+     */
+    public boolean isCancelled() {
+        return cancellation.isCancelled() || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Agrega una variable, o la reemplaza si ya hay una con ese nombre.
+     *
+     * @param variable
+     */
+    public void setVariable(Variable variable) {
+        variables.put(variable.getName(), variable);
+    }
+
+    public Variable getVariable(String name) {
+        return variables.get(name);
+    }
+
+    /**
+     * Copia de las variables actuales, por nombre.
+     *
+     * @return
+     */
+    public Map<String, Variable> getVariables() {
+        return new HashMap<>(variables);
+    }
+
+    /**
+     * Retorna el valor de una variable, o su selector si es una variable de
+     * selector.
+     *
+     * @param name
+     * @return
+     * @throws InvalidVarNameException Si la variable no existe.
+     */
+    public String resolve(String name) throws InvalidVarNameException {
+        if (name.isEmpty()) {
+            throw new InvalidVarNameException("variable with name " + name);
+        }
+        final Variable var = variables.get(name);
+        if (var == null) {
+            throw new InvalidVarNameException(name);
+        }
+        if (var instanceof SelectorVariable) {
+            return ActionRunnerManager.resolveSelectorHelper(((SelectorVariable) var).getFinder());
+        }
+        return var.getValue().toString();
+    }
+
+    /**
+     * Guarda cuanto tardo una instruccion.
+     *
+     * @param file
+     * @param line
+     * @param action
+     * @param nanos
+     */
+    public void record(String file, int line, String action, long nanos) {
+        final StepTiming timing = new StepTiming(file, line, action, nanos, waited.getAndSet(0),
+                retries.getAndSet(0), retried.getAndSet(0));
+        synchronized (timings) {
+            if (timings.size() >= MAX_TIMINGS) {
+                timings.removeFirst();
+            }
+            timings.addLast(timing);
+        }
+    }
+
+    /**
+     * Cuenta un intento fallido de la instruccion en curso, que se va a
+     * repetir.
+     *
+     * @param nanos Tiempo del intento y de la espera antes del siguiente.
+     */
+    public void addRetry(long nanos) {
+        retries.incrementAndGet();
+        retried.addAndGet(nanos);
+    }
+
+    /**
+     * Vuelve a la forma de fallar por omision, al empezar un archivo:
+     * continuar con la siguiente instruccion (o detenerse, si
+     * webapptester.onfailure es stop) y los reintentos configurados.
+     */
+    public void resetFilePolicy() {
+        fileRetry = null;
+        stopOnFailure = "stop".equalsIgnoreCase(Settings.get("onfailure", "continue"));
+    }
+
+    /**
+     * Suma tiempo de espera a la instruccion en curso. Lo usan los ejecutores
+     * que se detienen a esperar, para poder ver cuanto tiempo se pierde en
+     * ellos.
+     *
+     * @param nanos
+     */
+    public void addWaited(long nanos) {
+        waited.addAndGet(nanos);
+    }
+
+    /**
+     * Tiempos de las ultimas {@link #MAX_TIMINGS} instrucciones ejecutadas,
+     * en orden.
+     *
+     * @return
+     */
+    public List<StepTiming> getTimings() {
+        synchronized (timings) {
+            return new ArrayList<>(timings);
+        }
+    }
+}
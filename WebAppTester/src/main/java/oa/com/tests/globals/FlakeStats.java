@@ -0,0 +1,90 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Reintentos por instruccion, sumados sobre todas las veces que se ejecuto,
+ * para saber que instrucciones fallan a veces y cuanto tiempo cuestan.
+ *
+ * @author nesto
+ */
+public final class FlakeStats {
+
+    /**
+     * Reintentos de una instruccion.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Entry {
+
+        private final String file;
+        private final int line;
+        private final String action;
+        /**
+         * Veces que se ejecuto.
+         */
+        private final int runs;
+        /**
+         * Veces que necesito mas de un intento.
+         */
+        private final int flakyRuns;
+        private final int retries;
+        private final long retriedNanos;
+
+        public long getRetriedMillis() {
+            return retriedNanos / 1_000_000;
+        }
+
+        private Entry plus(ExecutionContext.StepTiming timing) {
+            return new Entry(file, line, action, runs + 1, flakyRuns + (timing.getRetries() > 0 ? 1 : 0),
+                    retries + timing.getRetries(), retriedNanos + timing.getRetriedNanos());
+        }
+    }
+
+    private FlakeStats() {
+    }
+
+    /**
+     * Las instrucciones que se reintentaron alguna vez, de la que mas tiempo
+     * perdio en reintentos a la que menos.
+     *
+     * @param timings
+     * @return
+     */
+    public static List<Entry> collect(Collection<ExecutionContext.StepTiming> timings) {
+        final Map<String, Entry> entries = new LinkedHashMap<>();
+        for (ExecutionContext.StepTiming timing : timings) {
+            entries.merge(timing.getFile() + ":" + timing.getLine(),
+                    new Entry(timing.getFile(), timing.getLine(), timing.getAction(), 0, 0, 0, 0).plus(timing),
+                    (previous, added) -> previous.plus(timing));
+        }
+        final List<Entry> resp = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.getRetries() > 0) {
+                resp.add(entry);
+            }
+        }
+        resp.sort(Comparator.comparingLong(Entry::getRetriedNanos).reversed());
+        return resp;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.PluginRunner;
+import oa.com.tests.actions.TestAction;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Adapta el ejecutor de un plugin ({@link PluginRunner}) a los ejecutores del
+ * probador.
+ *
+ * @author nesto
+ */
+public final class PluginActionRunner extends AbstractDefaultScriptActionRunner {
+
+    private final PluginRunner delegate;
+
+    PluginActionRunner(TestAction action, PluginRunner delegate)
+            throws NoActionSupportedException, InvalidActionException {
+        super(action);
+        this.delegate = delegate;
+    }
+
+    /**
+     * El registro ya escogio este ejecutor por el nombre de la accion.
+     *
+     * @param action
+     * @return
+     */
+    @Override
+    public boolean matches(TestAction action) {
+        return true;
+    }
+
+    @Override
+    public String getActionName() {
+        return getAction().getName();
+    }
+
+    @Override
+    public void run(WebDriver driver) throws Exception {
+        delegate.run(driver, Logger.getLogger("Probador Web"));
+    }
+
+    @Override
+    public void run(WebDriver driver, Logger log) throws Exception {
+        log.log(Level.INFO, getActionLog(), new Object[]{getAction().getName(), getAction().getCommand()});
+        delegate.run(driver, log);
+    }
+}
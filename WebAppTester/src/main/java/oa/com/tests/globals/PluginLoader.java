@@ -0,0 +1,174 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import static java.util.stream.Collectors.toList;
+import oa.com.tests.actionrunners.annotations.ProvidedActions;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.interfaces.ActionRunnerProvider;
+import oa.com.tests.actionrunners.interfaces.PluginRunner;
+import oa.com.utils.Settings;
+
+/**
+ * Carga los ejecutores de los plugins: los del classpath y los de cada jar en
+ * la carpeta de plugins, cada uno con su propio cargador de clases. Solo lee
+ * los nombres de las acciones ({@link ProvidedActions}); los proveedores se
+ * crean la primera vez que se usa una de sus acciones.
+ *
+ * @author nesto
+ */
+public final class PluginLoader {
+
+    /**
+     * Opcion (ver {@link Settings}) con la carpeta de plugins.
+     */
+    public static final String DIR_PROPERTY = Settings.PREFIX + "plugins.dir";
+    /**
+     * Carpeta de plugins por omision, relativa a la carpeta de trabajo.
+     */
+    public static final String DEFAULT_DIR = "plugins";
+
+    private static final ResourceBundle globals = ResourceBundle.getBundle("application");
+    private static final Logger log = Logger.getLogger("Probador Web");
+
+    private PluginLoader() {
+    }
+
+    /**
+     * Carpeta de plugins configurada.
+     *
+     * @return
+     */
+    public static File pluginsDir() {
+        return new File(Settings.get("plugins.dir", DEFAULT_DIR));
+    }
+
+    /**
+     * Agrega al registro los ejecutores de los plugins.
+     *
+     * @param builder
+     * @param parent Cargador de clases de la aplicacion.
+     * @param dir Carpeta con los jar de los plugins. Si no existe solo se usan
+     * los del classpath.
+     * @return Los cargadores creados para los jar, que deben quedar abiertos
+     * mientras se usen sus ejecutores.
+     */
+    public static List<URLClassLoader> addPlugins(RunnerRegistry.Builder builder, ClassLoader parent, File dir) {
+        addProviders(builder, parent, parent);
+        final List<URLClassLoader> resp = new ArrayList<>();
+        final File[] jars = dir.listFiles((folder, name) -> name.toLowerCase().endsWith(".jar"));
+        if (jars == null) {
+            return resp;
+        }
+        Arrays.sort(jars, Comparator.comparing(File::getName));
+        for (File jar : jars) {
+            final URLClassLoader loader;
+            try {
+                loader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, parent);
+            } catch (MalformedURLException ex) {
+                log.log(Level.WARNING, jar.getAbsolutePath(), ex);
+                continue;
+            }
+            if (addProviders(builder, loader, loader) == 0) {
+                close(loader);
+            } else {
+                resp.add(loader);
+            }
+        }
+        return resp;
+    }
+
+    /**
+     * Agrega los proveedores que define un cargador de clases.
+     *
+     * @param builder
+     * @param loader Donde buscar los proveedores.
+     * @param owner Solo se aceptan los proveedores definidos por este cargador,
+     * para no repetir los que ve a traves de su padre.
+     * @return Cantidad de proveedores agregados.
+     */
+    private static int addProviders(RunnerRegistry.Builder builder, ClassLoader loader, ClassLoader owner) {
+        final List<ServiceLoader.Provider<ActionRunnerProvider>> providers;
+        try {
+            providers = ServiceLoader.load(ActionRunnerProvider.class, loader).stream()
+                    .filter(provider -> provider.type().getClassLoader() == owner)
+                    .collect(toList());
+        } catch (ServiceConfigurationError ex) {
+            log.log(Level.WARNING, globals.getString("plugins.err.load"), ex);
+            return 0;
+        }
+        int resp = 0;
+        for (ServiceLoader.Provider<ActionRunnerProvider> provider : providers) {
+            final Class<? extends ActionRunnerProvider> type = provider.type();
+            final ProvidedActions actions = type.getAnnotation(ProvidedActions.class);
+            if (actions == null || actions.value().length == 0) {
+                log.warning(globals.getString("plugins.err.noActions").replace("{0}", type.getName()));
+                continue;
+            }
+            builder.add(new RunnerRegistry.Entry(type.getName(), PluginActionRunner.class,
+                    factoryFor(provider)), Arrays.asList(actions.value()));
+            resp++;
+        }
+        return resp;
+    }
+
+    /**
+     * Crea el proveedor la primera vez que se usa, y solo una vez.
+     *
+     * @param provider
+     * @return
+     */
+    private static RunnerRegistry.RunnerFactory factoryFor(ServiceLoader.Provider<ActionRunnerProvider> provider) {
+        final ActionRunnerProvider[] instance = new ActionRunnerProvider[1];
+        return action -> {
+            final ActionRunnerProvider plugin;
+            synchronized (instance) {
+                if (instance[0] == null) {
+                    try {
+                        instance[0] = provider.get();
+                    } catch (ServiceConfigurationError ex) {
+                        final InvalidActionException except = new InvalidActionException(provider.type().getName());
+                        except.initCause(ex);
+                        throw except;
+                    }
+                }
+                plugin = instance[0];
+            }
+            final PluginRunner runner = plugin.create(action.getName(), action.getCommand());
+            return runner == null ? null : new PluginActionRunner(action, runner);
+        };
+    }
+
+    private static void close(URLClassLoader loader) {
+        try {
+            loader.close();
+        } catch (IOException ex) {
+            log.log(Level.FINE, null, ex);
+        }
+    }
+}
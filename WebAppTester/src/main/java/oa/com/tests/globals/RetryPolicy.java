@@ -0,0 +1,149 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.time.Duration;
+import java.util.Locale;
+import lombok.Getter;
+import oa.com.tests.actions.ActionArguments;
+import oa.com.utils.Settings;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Cuantas veces se intenta una instruccion y cuanto se espera entre
+ * intentos. La espera crece al doble en cada intento, hasta un maximo, y se
+ * le quita una parte al azar para que las ejecuciones en paralelo no
+ * reintenten al mismo tiempo.
+ * <p>
+ * Se escribe como "intentos" o "intentos,espera", con la espera en el
+ * formato de {@link ActionArguments#getDuration(String)}: "3,200S" son tres
+ * intentos, esperando 200 y luego 400 milisegundos.
+ *
+ * @author nesto
+ */
+@Getter
+public final class RetryPolicy {
+
+    /**
+     * Sin reintentos configurados: solo se repite una vez la instruccion si
+     * la pagina cambio mientras se usaba un elemento.
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(2, Duration.ZERO, true);
+    /**
+     * Espera maxima entre intentos.
+     */
+    public static final Duration MAX_DELAY = Duration.ofSeconds(30);
+    /**
+     * Parte de la espera que se puede quitar al azar.
+     */
+    public static final double JITTER = 0.5;
+
+    private final int maxAttempts;
+    private final Duration initialDelay;
+    /**
+     * Si solo se reintenta cuando un elemento quedo de otra pagina.
+     */
+    private final boolean staleOnly;
+
+    private RetryPolicy(int maxAttempts, Duration initialDelay, boolean staleOnly) {
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = initialDelay;
+        this.staleOnly = staleOnly;
+    }
+
+    public static RetryPolicy of(int maxAttempts, Duration initialDelay) {
+        if (maxAttempts < 1 || initialDelay.isNegative()) {
+            throw new IllegalArgumentException(maxAttempts + "," + initialDelay);
+        }
+        return new RetryPolicy(maxAttempts, initialDelay, false);
+    }
+
+    /**
+     * Lee una politica escrita como "intentos" o "intentos,espera".
+     *
+     * @param text
+     * @return
+     * @throws IllegalArgumentException Si no tiene el formato.
+     */
+    public static RetryPolicy parse(String text) {
+        final String[] parts = text.split(",");
+        if (parts.length > 2) {
+            throw new IllegalArgumentException(text);
+        }
+        try {
+            return of(Integer.parseInt(parts[0].trim()),
+                    parts.length == 2 ? ActionArguments.parseDuration(parts[1]) : Duration.ZERO);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(text, ex);
+        }
+    }
+
+    /**
+     * La politica configurada para un tipo de ejecutor:
+     * webapptester.retry.click para los clics, o webapptester.retry para
+     * todos. El nombre es el de la clase sin "ActionRunner", en minusculas.
+     *
+     * @param runnerCls
+     * @return La politica configurada o {@link #DEFAULT}.
+     */
+    public static RetryPolicy forRunner(Class<?> runnerCls) {
+        final String name = runnerCls.getSimpleName().replaceAll("ActionRunner$", "").toLowerCase(Locale.ROOT);
+        final String text = Settings.get("retry." + name, Settings.get("retry", null));
+        return text == null ? DEFAULT : parse(text);
+    }
+
+    /**
+     * Si se vuelve a intentar despues de un error. Se reintentan los errores
+     * que pasan antes de actuar: el elemento no esta, quedo de otra pagina o
+     * no se puede usar. Otros, como un tiempo agotado despues de un clic,
+     * pudieron dejar hecha la accion, asi que solo se reintentan si el
+     * ejecutor se puede repetir; nunca la perdida de la sesion.
+     *
+     * @param ex
+     * @param idempotent Si el ejecutor se puede repetir sin efectos (ver
+     * {@link oa.com.tests.actionrunners.interfaces.IdempotentActionRunner}).
+     * @return
+     */
+    public boolean retries(Exception ex, boolean idempotent) {
+        if (staleOnly) {
+            return ex instanceof StaleElementReferenceException;
+        }
+        if (ex instanceof NoSuchElementException || ex instanceof StaleElementReferenceException
+                || ex instanceof ElementNotInteractableException) {
+            return true;
+        }
+        return idempotent && ex instanceof WebDriverException && !(ex instanceof NoSuchSessionException);
+    }
+
+    /**
+     * Cuanto esperar despues de un intento fallido.
+     *
+     * @param attempt Intento que fallo, desde 1.
+     * @param random Numero al azar entre 0 y 1.
+     * @return Milisegundos.
+     */
+    public long delayMillis(int attempt, double random) {
+        final long max = MAX_DELAY.toMillis();
+        long delay = initialDelay.toMillis();
+        for (int i = 1; i < attempt && delay < max; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, max);
+        return delay - (long) (delay * JITTER * random);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
+
+/**
+ * Planificador de ejecuciones sobre hilos virtuales. Casi todo el tiempo de
+ * un script se va esperando respuestas del navegador, asi que cada ejecucion
+ * tiene su propio hilo virtual y se pueden tener miles al tiempo sin miles de
+ * hilos del sistema.
+ * <p>
+ * Cada ejecucion se asigna a un destino (un grid, un tipo de navegador...) y
+ * hay un maximo de ejecuciones al tiempo por destino. Las ejecuciones se
+ * agrupan en {@link Suite}s que se pueden cancelar completas.
+ *
+ * @author nesto
+ */
+public final class RunScheduler implements AutoCloseable {
+
+    /**
+     * Maximo de ejecuciones al tiempo en cada destino.
+     */
+    @Getter
+    private final int maxPerBackend;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Semaphore> backends = new ConcurrentHashMap<>();
+
+    public RunScheduler(int maxPerBackend) {
+        if (maxPerBackend < 1) {
+            throw new IllegalArgumentException(String.valueOf(maxPerBackend));
+        }
+        this.maxPerBackend = maxPerBackend;
+    }
+
+    public Suite newSuite() {
+        return new Suite();
+    }
+
+    /**
+     * Ejecuciones que estan esperando turno o corriendo en un destino.
+     *
+     * @param backend
+     * @return
+     */
+    public int getActive(String backend) {
+        final Semaphore limit = backends.get(backend);
+        return limit == null ? 0 : maxPerBackend - limit.availablePermits() + limit.getQueueLength();
+    }
+
+    /**
+     * Espera a que terminen las ejecuciones pendientes y libera el
+     * planificador.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Grupo de ejecuciones que se esperan o se cancelan juntas. Al cerrarlo se
+     * cancela lo que no haya terminado y se espera a que todo pare, de modo que
+     * ninguna ejecucion sobrevive a su grupo.
+     */
+    public final class Suite implements AutoCloseable {
+
+        /**
+         * Ejecuciones programadas que no han terminado.
+         */
+        private int pending = 0;
+        /**
+         * Con hilos virtuales es mejor un ReentrantLock que synchronized, que
+         * bloquea el hilo del sistema mientras espera.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition done = lock.newCondition();
+        private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+        private volatile boolean cancelled = false;
+
+        private Suite() {
+        }
+
+        /**
+         * Programa una ejecucion.
+         *
+         * @param <T>
+         * @param backend Destino de la ejecucion.
+         * @param task
+         * @return El resultado. Si el grupo se cancela antes de que la
+         * ejecucion empiece, termina con {@link CancellationException}.
+         */
+        public <T> CompletableFuture<T> submit(String backend, Callable<T> task) {
+            final Semaphore limit = backends.computeIfAbsent(backend, b -> new Semaphore(maxPerBackend, true));
+            final CompletableFuture<T> resp = new CompletableFuture<>();
+            lock.lock();
+            try {
+                pending++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                executor.execute(() -> run(limit, task, resp));
+            } catch (RuntimeException ex) {
+                finished();
+                throw ex;
+            }
+            return resp;
+        }
+
+        private <T> void run(Semaphore limit, Callable<T> task, CompletableFuture<T> resp) {
+            final Thread current = Thread.currentThread();
+            running.add(current);
+            try {
+                if (cancelled) {
+                    throw new CancellationException();
+                }
+                limit.acquire();
+                try {
+                    resp.complete(task.call());
+                } finally {
+                    limit.release();
+                }
+            } catch (InterruptedException ex) {
+                resp.completeExceptionally(cancelled ? new CancellationException() : ex);
+            } catch (Throwable ex) {
+                resp.completeExceptionally(ex);
+            } finally {
+                running.remove(current);
+                finished();
+            }
+        }
+
+        private void finished() {
+            lock.lock();
+            try {
+                if (--pending == 0) {
+                    done.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Cancela todas las ejecuciones del grupo: las que no han empezado no
+         * empiezan y las que estan corriendo se interrumpen.
+         */
+        public void cancel() {
+            cancelled = true;
+            running.forEach(Thread::interrupt);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Espera a que terminen todas las ejecuciones programadas hasta ahora.
+         *
+         * @throws InterruptedException
+         */
+        public void await() throws InterruptedException {
+            lock.lock();
+            try {
+                while (pending > 0) {
+                    done.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            cancel();
+            lock.lock();
+            try {
+                while (pending > 0) {
+                    done.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
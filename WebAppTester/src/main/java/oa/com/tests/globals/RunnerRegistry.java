@@ -0,0 +1,382 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import lombok.Getter;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.ScriptActionRunner;
+import oa.com.tests.actions.TestAction;
+import oa.com.utils.I18n;
+
+/**
+ * Indice de ejecutores por nombre de accion. Se construye una sola vez con
+ * todos los nombres y alias (en todos los lenguajes) de cada ejecutor, de modo
+ * que encontrar el ejecutor de una instruccion es una sola busqueda en un
+ * mapa. Las clases de los ejecutores se cargan solo cuando se usan.
+ *
+ * @author nesto
+ */
+public final class RunnerRegistry {
+
+    /**
+     * Crea ejecutores de un tipo dado.
+     */
+    @FunctionalInterface
+    public interface RunnerFactory {
+
+        AbstractDefaultScriptActionRunner create(TestAction action)
+                throws NoActionSupportedException, InvalidActionException;
+    }
+
+    /**
+     * Un ejecutor registrado. La clase se carga la primera vez que se usa.
+     */
+    public static final class Entry {
+
+        private final String className;
+        private final ClassLoader loader;
+        private volatile Class<? extends AbstractDefaultScriptActionRunner> type;
+        private volatile RunnerFactory factory;
+
+        Entry(Class<? extends AbstractDefaultScriptActionRunner> type) {
+            this.className = type.getName();
+            this.loader = type.getClassLoader();
+            this.type = type;
+        }
+
+        Entry(String className, ClassLoader loader) {
+            this.className = className;
+            this.loader = loader;
+        }
+
+        /**
+         * Un ejecutor que no se crea con el constructor de su clase, como los
+         * de los plugins.
+         *
+         * @param name Nombre para los mensajes.
+         * @param type
+         * @param factory
+         */
+        Entry(String name, Class<? extends AbstractDefaultScriptActionRunner> type, RunnerFactory factory) {
+            this.className = name;
+            this.loader = type.getClassLoader();
+            this.type = type;
+            this.factory = factory;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getSimpleName() {
+            return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+        }
+
+        /**
+         * Clase del ejecutor.
+         *
+         * @return
+         * @throws IllegalStateException Si la clase no se puede cargar o no es
+         * un ejecutor.
+         */
+        public Class<? extends AbstractDefaultScriptActionRunner> getType() {
+            Class<? extends AbstractDefaultScriptActionRunner> resp = type;
+            if (resp == null) {
+                try {
+                    resp = Class.forName(className, true, loader)
+                            .asSubclass(AbstractDefaultScriptActionRunner.class);
+                } catch (ClassNotFoundException | ClassCastException ex) {
+                    throw new IllegalStateException(className, ex);
+                }
+                type = resp;
+            }
+            return resp;
+        }
+
+        public RunnerFactory getFactory() {
+            RunnerFactory resp = factory;
+            if (resp == null) {
+                try {
+                    resp = factoryFor(getType());
+                } catch (NoSuchMethodException ex) {
+                    throw new IllegalStateException(className, ex);
+                }
+                factory = resp;
+            }
+            return resp;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    /**
+     * Alias repetidos entre ejecutores diferentes, detectados al construir el
+     * registro.
+     */
+    @Getter
+    private final List<String> ambiguities;
+
+    private RunnerRegistry(Map<String, Entry> entries, List<String> ambiguities) {
+        this.entries = entries;
+        this.ambiguities = ambiguities;
+    }
+
+    /**
+     * Construye el registro para un listado de clases de ejecutores.
+     *
+     * @param runnersCls
+     * @return
+     */
+    public static RunnerRegistry build(Collection<Class<? extends ScriptActionRunner>> runnersCls) {
+        return builder().addClasses(runnersCls).build();
+    }
+
+    /**
+     * Construye el registro con los indices generados al compilar (ver
+     * {@link ScriptAction}), sin cargar las clases de los ejecutores.
+     *
+     * @param loader
+     * @return El registro; vacio si no se encontro ningun indice.
+     * @throws IOException
+     */
+    public static RunnerRegistry load(ClassLoader loader) throws IOException {
+        return builder().addIndex(loader).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Lee todos los indices de ejecutores visibles para un cargador de clases.
+     *
+     * @param loader
+     * @return Clase -> clave de la accion, ordenado por clase.
+     * @throws IOException
+     */
+    static Map<String, String> readIndex(ClassLoader loader) throws IOException {
+        final Map<String, String> resp = new TreeMap<>();
+        final Enumeration<URL> urls = loader.getResources(ScriptAction.INDEX);
+        while (urls.hasMoreElements()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    urls.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    final int sep = line.indexOf('=');
+                    if (line.startsWith("#") || sep < 0) {
+                        continue;
+                    }
+                    resp.putIfAbsent(line.substring(0, sep).trim(), line.substring(sep + 1).trim());
+                }
+            }
+        }
+        return resp;
+    }
+
+    /**
+     * Acumula los nombres de accion de cada ejecutor. Si dos ejecutores usan
+     * el mismo nombre, se queda el primero que se agrego.
+     */
+    public static final class Builder {
+
+        private final ResourceBundle globals = ResourceBundle.getBundle("application");
+        private final Logger log = Logger.getLogger("Probador Web");
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final List<String> ambiguities = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Agrega clases de ejecutores ya cargadas.
+         *
+         * @param runnersCls
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        public Builder addClasses(Collection<Class<? extends ScriptActionRunner>> runnersCls) {
+            final List<Class<? extends ScriptActionRunner>> sorted = new ArrayList<>(runnersCls);
+            sorted.sort(Comparator.comparing(Class::getName));
+            for (Class<? extends ScriptActionRunner> cls : sorted) {
+                if (!AbstractDefaultScriptActionRunner.class.isAssignableFrom(cls)
+                        || Modifier.isAbstract(cls.getModifiers())) {
+                    continue;
+                }
+                final Class<? extends AbstractDefaultScriptActionRunner> runnerCls
+                        = (Class<? extends AbstractDefaultScriptActionRunner>) cls;
+                try {
+                    runnerCls.getConstructor(TestAction.class);
+                } catch (NoSuchMethodException ex) {
+                    continue;
+                }
+                add(new Entry(runnerCls), actionNames(ScriptActionRunner.actionKey(runnerCls), globals));
+            }
+            return this;
+        }
+
+        /**
+         * Agrega los ejecutores de los indices generados al compilar.
+         *
+         * @param loader
+         * @return
+         * @throws IOException
+         */
+        public Builder addIndex(ClassLoader loader) throws IOException {
+            for (Map.Entry<String, String> indexed : readIndex(loader).entrySet()) {
+                add(new Entry(indexed.getKey(), loader), actionNames(indexed.getValue(), globals));
+            }
+            return this;
+        }
+
+        /**
+         * Agrega un ejecutor con sus nombres de accion.
+         *
+         * @param entry
+         * @param names
+         * @return
+         */
+        Builder add(Entry entry, Collection<String> names) {
+            for (String name : names) {
+                final String alias = name.toLowerCase(Locale.ROOT);
+                final Entry previous = entries.putIfAbsent(alias, entry);
+                if (previous != null && !previous.getClassName().equals(entry.getClassName())) {
+                    final String message = globals.getString("registry.err.ambiguousAlias")
+                            .replace("{0}", alias)
+                            .replace("{1}", previous.getSimpleName())
+                            .replace("{2}", entry.getSimpleName());
+                    ambiguities.add(message);
+                    log.warning(message);
+                }
+            }
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        public RunnerRegistry build() {
+            return new RunnerRegistry(new HashMap<>(entries), Collections.unmodifiableList(new ArrayList<>(ambiguities)));
+        }
+    }
+
+    /**
+     * Todos los nombres por los que se conoce la accion de un ejecutor, en
+     * minusculas.
+     *
+     * @param key Clave de la accion en los archivos de propiedades.
+     * @param globals
+     * @return
+     */
+    private static Set<String> actionNames(String key, ResourceBundle globals) {
+        final Set<String> resp = new LinkedHashSet<>();
+        try {
+            resp.add(globals.getString(key).toLowerCase(Locale.ROOT));
+        } catch (MissingResourceException ex) {
+            ;
+        }
+        for (String alias : I18n.aliases(key)) {
+            resp.add(alias.toLowerCase(Locale.ROOT));
+        }
+        return resp;
+    }
+
+    private static RunnerFactory factoryFor(Class<? extends AbstractDefaultScriptActionRunner> runnerCls)
+            throws NoSuchMethodException {
+        final Constructor<? extends AbstractDefaultScriptActionRunner> constructor
+                = runnerCls.getConstructor(TestAction.class);
+        return action -> {
+            try {
+                return constructor.newInstance(action);
+            } catch (InvocationTargetException ex) {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof NoActionSupportedException) {
+                    throw (NoActionSupportedException) cause;
+                }
+                if (cause instanceof InvalidActionException) {
+                    throw (InvalidActionException) cause;
+                }
+                final InvalidActionException except = new InvalidActionException(String.valueOf(cause));
+                except.initCause(cause);
+                throw except;
+            } catch (IllegalAccessException | InstantiationException ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+    }
+
+    /**
+     * Busca el ejecutor registrado para un nombre de accion.
+     *
+     * @param actionName
+     * @return El ejecutor o null si ninguno tiene ese nombre.
+     */
+    public Entry find(String actionName) {
+        return entries.get(actionName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Crea el ejecutor de una accion.
+     *
+     * @param action
+     * @return El ejecutor, o null si no hay ninguno para el nombre de la
+     * accion.
+     * @throws InvalidActionException Si el ejecutor no acepta los parametros
+     * de la accion.
+     */
+    public AbstractDefaultScriptActionRunner create(TestAction action) throws InvalidActionException {
+        final Entry entry = find(action.getName());
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return entry.getFactory().create(action);
+        } catch (NoActionSupportedException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Nombres de accion registrados.
+     *
+     * @return
+     */
+    public Set<String> getActionNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import oa.com.tests.actionrunners.exceptions.ScriptSyntaxException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.VariableProvider;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.lang.ScriptTokenizer;
+import oa.com.tests.lang.Template;
+
+/**
+ * Revisa los scripts sin abrir el navegador: sintaxis, nombres de accion,
+ * atributos de cada accion y variables usadas sin declarar. Las carpetas se
+ * revisan en paralelo; las variables declaradas en el _start.txt de una
+ * carpeta valen para todo lo que hay dentro de ella.
+ *
+ * @author nesto
+ */
+public final class ScriptLinter {
+
+    /**
+     * Un problema encontrado en un archivo.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Problem {
+
+        private final File file;
+        /**
+         * Linea, empezando en 1. Es 0 si el problema es de todo el archivo.
+         */
+        private final int line;
+        private final int column;
+        private final String message;
+
+        @Override
+        public String toString() {
+            return file.getPath() + ": " + message;
+        }
+    }
+
+    private static final ResourceBundle globals = ResourceBundle.getBundle("application");
+    private static final Comparator<Problem> ORDER = Comparator
+            .comparing((Problem p) -> p.getFile().getPath())
+            .thenComparingInt(Problem::getLine)
+            .thenComparingInt(Problem::getColumn);
+    private static final String START_FILE = "_start.txt";
+    /**
+     * Valor que se usa para las variables al revisar los atributos.
+     */
+    private static final String PLACEHOLDER_VALUE = "0";
+
+    private final RunnerRegistry registry;
+    private final ForkJoinPool pool;
+
+    public ScriptLinter(RunnerRegistry registry) {
+        this(registry, ForkJoinPool.commonPool());
+    }
+
+    public ScriptLinter(RunnerRegistry registry, ForkJoinPool pool) {
+        this.registry = registry;
+        this.pool = pool;
+    }
+
+    /**
+     * Revisa todos los scripts de una carpeta y sus subcarpetas.
+     *
+     * @param root
+     * @return Los problemas, ordenados por archivo y linea.
+     */
+    public List<Problem> lint(File root) {
+        final List<Problem> resp = new ArrayList<>(pool.invoke(new FolderTask(root, Collections.emptySet())));
+        resp.sort(ORDER);
+        return resp;
+    }
+
+    /**
+     * Revisa un archivo.
+     *
+     * @param file
+     * @param declared Variables declaradas antes de este archivo. Se le
+     * agregan las que declara el archivo.
+     * @return
+     */
+    public List<Problem> lintFile(File file, Set<String> declared) {
+        final List<Problem> resp = new ArrayList<>();
+        try (ScriptTokenizer tokenizer = new ScriptTokenizer(
+                Files.newBufferedReader(file.toPath(), Charset.defaultCharset()))) {
+            while (true) {
+                try {
+                    final ScriptTokenizer.Token token = tokenizer.next();
+                    if (token == null) {
+                        break;
+                    }
+                    check(file, token, declared, resp);
+                } catch (ScriptSyntaxException ex) {
+                    resp.add(new Problem(file, ex.getLine(), ex.getColumn(), ex.getMessage()));
+                }
+            }
+        } catch (IOException ex) {
+            resp.add(new Problem(file, 0, 0, globals.getString("lint.err.read")
+                    .replace("{0}", String.valueOf(ex.getMessage()))));
+        }
+        return resp;
+    }
+
+    private void check(File file, ScriptTokenizer.Token token, Set<String> declared, List<Problem> resp) {
+        final Template template = Template.compile(token.getCommand());
+        for (String variable : template.getVariables()) {
+            if (!declared.contains(variable)) {
+                resp.add(problem(file, token, globals.getString("lint.err.undeclaredVar")
+                        .replace("{0}", variable)));
+            }
+        }
+        if (registry.find(token.getName()) == null) {
+            resp.add(problem(file, token, globals.getString("lint.err.noSuchAction")
+                    .replace("{0}", token.getName())));
+            return;
+        }
+        final String command;
+        try {
+            command = template.isConstant() ? template.render(null)
+                    : template.render(name -> PLACEHOLDER_VALUE);
+        } catch (InvalidVarNameException | RuntimeException ex) {
+            //Claves cifradas que no se pueden leer: se revisan al ejecutar
+            return;
+        }
+        final AbstractDefaultScriptActionRunner runner;
+        try {
+            runner = registry.create(new TestAction(token.getName(), command));
+        } catch (InvalidActionException ex) {
+            //Con variables, los atributos solo se conocen al ejecutar
+            if (template.isConstant()) {
+                final Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+                resp.add(invalidAction(file, token, String.valueOf(cause.getMessage())));
+            }
+            return;
+        } catch (RuntimeException ex) {
+            resp.add(invalidAction(file, token, ex.toString()));
+            return;
+        }
+        if (runner instanceof VariableProvider) {
+            final String name = ((VariableProvider) runner).getVariableName();
+            if (name != null) {
+                declared.add(name);
+            }
+        }
+    }
+
+    private static Problem invalidAction(File file, ScriptTokenizer.Token token, String detail) {
+        return problem(file, token, globals.getString("lint.err.invalidAction")
+                .replace("{0}", token.getName())
+                .replace("{1}", detail));
+    }
+
+    private static Problem problem(File file, ScriptTokenizer.Token token, String detail) {
+        final String message = globals.getString("tokenizer.err.position")
+                .replace("{0}", String.valueOf(token.getLine()))
+                .replace("{1}", String.valueOf(token.getColumn()))
+                .replace("{2}", detail);
+        return new Problem(file, token.getLine(), token.getColumn(), message);
+    }
+
+    /**
+     * Revisa una carpeta: primero su _start.txt, para saber que variables
+     * declara, y luego en paralelo el resto de archivos y subcarpetas.
+     */
+    private final class FolderTask extends RecursiveTask<List<Problem>> {
+
+        private final File folder;
+        private final Set<String> inherited;
+
+        FolderTask(File folder, Set<String> inherited) {
+            this.folder = folder;
+            this.inherited = inherited;
+        }
+
+        @Override
+        protected List<Problem> compute() {
+            final List<Problem> resp = new ArrayList<>();
+            final Set<String> declared = new HashSet<>(inherited);
+            final File start = new File(folder, START_FILE);
+            if (start.isFile()) {
+                resp.addAll(lintFile(start, declared));
+            }
+            final Set<String> visible = Collections.unmodifiableSet(declared);
+            final File[] children = folder.listFiles((parent, name)
+                    -> new File(parent, name).isDirectory()
+                    || name.toLowerCase().trim().endsWith(".txt"));
+            if (children == null) {
+                return resp;
+            }
+            Arrays.sort(children, Comparator.comparing(File::getName));
+            final List<ForkJoinTask<List<Problem>>> tasks = new ArrayList<>();
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    tasks.add(new FolderTask(child, visible));
+                } else if (!child.getName().equals(START_FILE)) {
+                    tasks.add(new FileTask(child, visible));
+                }
+            }
+            for (ForkJoinTask<List<Problem>> task : invokeAll(tasks)) {
+                resp.addAll(task.join());
+            }
+            return resp;
+        }
+    }
+
+    private final class FileTask extends RecursiveTask<List<Problem>> {
+
+        private final File file;
+        private final Set<String> inherited;
+
+        FileTask(File file, Set<String> inherited) {
+            this.file = file;
+            this.inherited = inherited;
+        }
+
+        @Override
+        protected List<Problem> compute() {
+            return lintFile(file, new HashSet<>(inherited));
+        }
+    }
+}
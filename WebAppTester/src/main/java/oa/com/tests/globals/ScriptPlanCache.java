@@ -0,0 +1,185 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import oa.com.tests.actionrunners.exceptions.ScriptSyntaxException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.lang.CompiledScript;
+import oa.com.tests.lang.CompiledStatement;
+import oa.com.tests.lang.ScriptTokenizer;
+import oa.com.tests.lang.Template;
+
+/**
+ * Cache en memoria de los scripts compilados. La clave es la ruta del archivo;
+ * el plan se vuelve a usar mientras la fecha de modificacion y el hash del
+ * contenido no cambien.
+ *
+ * @author nesto
+ */
+public final class ScriptPlanCache {
+
+    /**
+     * Tamano maximo, en bytes, de los archivos que se guardan en el cache.
+     */
+    public static final long MAX_CACHED_LENGTH = 1024 * 1024;
+    private static final Map<String, CompiledScript> plans = new ConcurrentHashMap<>();
+    private static final ResourceBundle globals = ResourceBundle.getBundle("application");
+
+    private ScriptPlanCache() {
+    }
+
+    /**
+     * Retorna el plan de ejecucion de un archivo, compilandolo solo si cambio
+     * desde la ultima vez.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static CompiledScript get(File file) throws IOException {
+        final String key = file.getAbsolutePath();
+        final long lastModified = file.lastModified();
+        CompiledScript cached = plans.get(key);
+        if (cached != null
+                && cached.getLastModified() == lastModified
+                && cached.getLength() == file.length()) {
+            return cached;
+        }
+        final byte[] content = Files.readAllBytes(file.toPath());
+        final String hash = hash(content);
+        if (cached != null && cached.getHash().equals(hash)) {
+            //Solo le cambiaron la fecha
+            cached = cached.withLastModified(lastModified);
+        } else {
+            cached = compile(key, lastModified, content, hash);
+        }
+        plans.put(key, cached);
+        return cached;
+    }
+
+    /**
+     * Saca un archivo del cache.
+     *
+     * @param file
+     */
+    public static void invalidate(File file) {
+        plans.remove(file.getAbsolutePath());
+    }
+
+    public static void clear() {
+        plans.clear();
+    }
+
+    public static int size() {
+        return plans.size();
+    }
+
+    private static CompiledScript compile(String path, long lastModified,
+            byte[] content, String hash) throws IOException {
+        final List<CompiledStatement> statements = new ArrayList<>();
+        final List<ScriptSyntaxException> errors = new ArrayList<>();
+        try (ScriptTokenizer tokenizer = new ScriptTokenizer(new StringReader(
+                new String(content, Charset.defaultCharset())))) {
+            while (true) {
+                try {
+                    final ScriptTokenizer.Token token = tokenizer.next();
+                    if (token == null) {
+                        break;
+                    }
+                    statements.add(compileStatement(token));
+                } catch (ScriptSyntaxException ex) {
+                    errors.add(ex);
+                }
+            }
+        }
+        return new CompiledScript(path, lastModified, content.length, hash, statements, errors);
+    }
+
+    /**
+     * Si un archivo es tan grande que no se guarda en el cache, sino que se
+     * ejecuta a medida que se lee.
+     *
+     * @param file
+     * @return
+     */
+    public static boolean isStreamed(File file) {
+        return file.length() > MAX_CACHED_LENGTH;
+    }
+
+    /**
+     * Compila una instruccion. Si su plantilla es constante, deja resueltos la
+     * accion y el tipo de su ejecutor.
+     *
+     * @param token
+     * @return
+     * @throws ScriptSyntaxException Si la clase del ejecutor no se puede
+     * cargar.
+     */
+    static CompiledStatement compileStatement(ScriptTokenizer.Token token) throws ScriptSyntaxException {
+        return compileStatement(token, ActionRunnerManager.getRegistry());
+    }
+
+    static CompiledStatement compileStatement(ScriptTokenizer.Token token, RunnerRegistry registry)
+            throws ScriptSyntaxException {
+        final Template template = Template.compile(token.getCommand());
+        TestAction action = null;
+        Class<? extends AbstractDefaultScriptActionRunner> runnerType = null;
+        if (template.isConstant()) {
+            try {
+                action = new TestAction(token.getName(), template.render(null));
+            } catch (InvalidVarNameException ex) {
+                //No tiene variables
+                throw new IllegalStateException(ex);
+            }
+            final RunnerRegistry.Entry entry = registry.find(action.getName());
+            try {
+                runnerType = entry == null ? null : entry.getType();
+            } catch (IllegalStateException ex) {
+                final String message = globals.getString("tokenizer.err.position")
+                        .replace("{0}", String.valueOf(token.getLine()))
+                        .replace("{1}", String.valueOf(token.getColumn()))
+                        .replace("{2}", globals.getString("tokenizer.err.runner")
+                                .replace("{0}", token.getName())
+                                .replace("{1}", ex.getMessage()));
+                throw new ScriptSyntaxException(message, token.getLine(), token.getColumn());
+            }
+        }
+        return new CompiledStatement(token.getLine(), token.getColumn(), token.getSource(),
+                token.getName(), template, action, runnerType);
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
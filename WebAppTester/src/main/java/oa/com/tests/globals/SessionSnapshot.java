@@ -0,0 +1,173 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Estado de una sesion autenticada: la direccion, las cookies, el
+ * localStorage y el sessionStorage de la pagina, y las variables de texto que
+ * dejo el script que la preparo. Sirve para no repetir un ingreso que ya se
+ * hizo, como el de un _start.txt.
+ *
+ * @author nesto
+ */
+@Getter
+public final class SessionSnapshot {
+
+    /**
+     * Lee los dos almacenamientos de la pagina en una sola llamada.
+     */
+    static final String CAPTURE_SCRIPT
+            = "function read(s){var r={};for(var i=0;i<s.length;i++){var k=s.key(i);r[k]=s.getItem(k);}return r;}"
+            + "return {local:read(window.localStorage),session:read(window.sessionStorage)};";
+    /**
+     * Escribe los dos almacenamientos de la pagina en una sola llamada.
+     */
+    static final String RESTORE_SCRIPT
+            = "function write(s,v){s.clear();for(var k in v){s.setItem(k,v[k]);}}"
+            + "write(window.localStorage,arguments[0]);write(window.sessionStorage,arguments[1]);";
+
+    private final String url;
+    private final List<Cookie> cookies;
+    private final Map<String, String> localStorage;
+    private final Map<String, String> sessionStorage;
+    /**
+     * Variables de texto por nombre.
+     */
+    private final Map<String, String> variables;
+    /**
+     * Momento de la captura, en milisegundos.
+     */
+    private final long created;
+
+    public SessionSnapshot(String url, List<Cookie> cookies, Map<String, String> localStorage,
+            Map<String, String> sessionStorage, Map<String, String> variables, long created) {
+        this.url = url;
+        this.cookies = List.copyOf(cookies);
+        this.localStorage = Collections.unmodifiableMap(new LinkedHashMap<>(localStorage));
+        this.sessionStorage = Collections.unmodifiableMap(new LinkedHashMap<>(sessionStorage));
+        this.variables = Collections.unmodifiableMap(new LinkedHashMap<>(variables));
+        this.created = created;
+    }
+
+    /**
+     * Captura el estado de la pagina actual.
+     *
+     * @param driver
+     * @param variables Variables que se restauran junto con la sesion.
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static SessionSnapshot capture(WebDriver driver, Map<String, String> variables) {
+        Map<String, String> local = Map.of();
+        Map<String, String> session = Map.of();
+        if (driver instanceof JavascriptExecutor) {
+            final Object result = ((JavascriptExecutor) driver).executeScript(CAPTURE_SCRIPT);
+            if (result instanceof Map) {
+                local = (Map<String, String>) ((Map<String, Object>) result).getOrDefault("local", Map.of());
+                session = (Map<String, String>) ((Map<String, Object>) result).getOrDefault("session", Map.of());
+            }
+        }
+        return new SessionSnapshot(driver.getCurrentUrl(), new ArrayList<>(driver.manage().getCookies()),
+                local, session, variables, System.currentTimeMillis());
+    }
+
+    /**
+     * Pone este estado en un navegador. Primero abre la direccion, porque las
+     * cookies y los almacenamientos son del sitio abierto, y luego la vuelve a
+     * cargar para que la pagina los use.
+     *
+     * @param driver
+     */
+    public void restore(WebDriver driver) {
+        driver.get(url);
+        final WebDriver.Options options = driver.manage();
+        options.deleteAllCookies();
+        for (Cookie cookie : cookies) {
+            options.addCookie(cookie);
+        }
+        if (driver instanceof JavascriptExecutor) {
+            ((JavascriptExecutor) driver).executeScript(RESTORE_SCRIPT, localStorage, sessionStorage);
+        }
+        driver.get(url);
+    }
+
+    /**
+     * Si ya paso mas tiempo que el dado desde la captura.
+     *
+     * @param ttlMillis
+     * @param now
+     * @return
+     */
+    public boolean isExpired(long ttlMillis, long now) {
+        return now - created > ttlMillis;
+    }
+
+    @SuppressWarnings("unchecked")
+    JSONObject toJSON() {
+        final JSONObject resp = new JSONObject();
+        resp.put("url", url);
+        final JSONArray cookiesArr = new JSONArray();
+        for (Cookie cookie : cookies) {
+            final JSONObject cookieObj = new JSONObject();
+            cookieObj.put("name", cookie.getName());
+            cookieObj.put("value", cookie.getValue());
+            cookieObj.put("domain", cookie.getDomain());
+            cookieObj.put("path", cookie.getPath());
+            cookieObj.put("expiry", cookie.getExpiry() == null ? null : cookie.getExpiry().getTime());
+            cookieObj.put("secure", cookie.isSecure());
+            cookieObj.put("httpOnly", cookie.isHttpOnly());
+            cookieObj.put("sameSite", cookie.getSameSite());
+            cookiesArr.add(cookieObj);
+        }
+        resp.put("cookies", cookiesArr);
+        resp.put("local", new JSONObject(localStorage));
+        resp.put("session", new JSONObject(sessionStorage));
+        resp.put("variables", new JSONObject(variables));
+        resp.put("created", created);
+        return resp;
+    }
+
+    @SuppressWarnings("unchecked")
+    static SessionSnapshot fromJSON(JSONObject json) {
+        final List<Cookie> cookies = new ArrayList<>();
+        for (Object item : (JSONArray) json.get("cookies")) {
+            final JSONObject cookieObj = (JSONObject) item;
+            final Number expiry = (Number) cookieObj.get("expiry");
+            cookies.add(new Cookie.Builder((String) cookieObj.get("name"), (String) cookieObj.get("value"))
+                    .domain((String) cookieObj.get("domain"))
+                    .path((String) cookieObj.get("path"))
+                    .expiresOn(expiry == null ? null : new Date(expiry.longValue()))
+                    .isSecure(Boolean.TRUE.equals(cookieObj.get("secure")))
+                    .isHttpOnly(Boolean.TRUE.equals(cookieObj.get("httpOnly")))
+                    .sameSite((String) cookieObj.get("sameSite"))
+                    .build());
+        }
+        return new SessionSnapshot((String) json.get("url"), cookies,
+                (Map<String, String>) json.get("local"), (Map<String, String>) json.get("session"),
+                (Map<String, String>) json.get("variables"), ((Number) json.get("created")).longValue());
+    }
+}
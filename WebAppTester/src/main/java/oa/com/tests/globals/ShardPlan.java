@@ -0,0 +1,168 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Getter;
+
+/**
+ * Una parte de los scripts de una carpeta, para repartirlos entre varios
+ * procesos (o maquinas) que no se comunican. Todos los procesos calculan la
+ * misma reparticion: si hay duraciones de una ejecucion anterior, se
+ * equilibra el tiempo de cada parte; si no, la cantidad de archivos. Para
+ * eso todos deben tener los mismos scripts y la misma historia; cada reporte
+ * guarda su {@link #fingerprint huella} para revisarlo al juntarlos.
+ *
+ * @author nesto
+ */
+@Getter
+public final class ShardPlan {
+
+    private static final Pattern FORMAT = Pattern.compile("^\\s*([0-9]+)\\s*/\\s*([0-9]+)\\s*$");
+
+    /**
+     * Numero de la parte, desde 1.
+     */
+    private final int index;
+    private final int count;
+
+    public ShardPlan(int index, int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException(index + "/" + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Lee una parte escrita como "i/n", por ejemplo 2/3.
+     *
+     * @param text
+     * @return
+     * @throws IllegalArgumentException Si no tiene el formato.
+     */
+    public static ShardPlan parse(String text) {
+        final Matcher matcher = FORMAT.matcher(text);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(text);
+        }
+        return new ShardPlan(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    /**
+     * Ruta de un script dentro de la carpeta, con / como separador, para que
+     * sea la misma en cualquier maquina.
+     *
+     * @param root
+     * @param script
+     * @return
+     */
+    public static String relativePath(File root, File script) {
+        return root.getAbsoluteFile().toPath().relativize(script.getAbsoluteFile().toPath())
+                .toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Huella de los datos con los que se reparte: las rutas de los scripts y
+     * la duracion de la historia para cada uno. Las partes de una misma
+     * ejecucion tienen que tener la misma; si no, se calcularon repartos
+     * diferentes.
+     *
+     * @param root
+     * @param scripts Todos los scripts de la carpeta.
+     * @param history La misma que se da a {@link #select}.
+     * @return
+     */
+    public static String fingerprint(File root, List<File> scripts, Map<String, Long> history) {
+        final List<String> paths = new ArrayList<>();
+        for (File script : scripts) {
+            paths.add(relativePath(root, script));
+        }
+        paths.sort(null);
+        final StringBuilder text = new StringBuilder();
+        for (String path : paths) {
+            text.append(path).append('=').append(history.get(path)).append('\n');
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Los scripts de esta parte, ordenados por ruta.
+     *
+     * @param root
+     * @param scripts Todos los scripts de la carpeta.
+     * @param history Duracion en milisegundos por ruta relativa, de
+     * ejecuciones anteriores; vacio si no hay.
+     * @return
+     */
+    public List<File> select(File root, List<File> scripts, Map<String, Long> history) {
+        final List<File> sorted = new ArrayList<>(scripts);
+        sorted.sort(Comparator.comparing(f -> relativePath(root, f)));
+        final long known = sorted.stream()
+                .filter(f -> history.containsKey(relativePath(root, f)))
+                .count();
+        final List<File> resp = new ArrayList<>();
+        if (known == 0) {
+            for (int i = index - 1; i < sorted.size(); i += count) {
+                resp.add(sorted.get(i));
+            }
+            return resp;
+        }
+        //Los que no tienen historia cuentan como el promedio de los demas
+        final long average = sorted.stream()
+                .map(f -> history.get(relativePath(root, f)))
+                .filter(d -> d != null)
+                .mapToLong(Long::longValue)
+                .sum() / known;
+        final List<File> byDuration = new ArrayList<>(sorted);
+        byDuration.sort(Comparator.comparingLong((File f) -> history.getOrDefault(relativePath(root, f), average))
+                .reversed());
+        //El mas largo que falte va a la parte con menos tiempo
+        final long[] totals = new long[count];
+        for (File script : byDuration) {
+            int shard = 0;
+            for (int i = 1; i < count; i++) {
+                if (totals[i] < totals[shard]) {
+                    shard = i;
+                }
+            }
+            totals[shard] += history.getOrDefault(relativePath(root, script), average);
+            if (shard == index - 1) {
+                resp.add(script);
+            }
+        }
+        resp.sort(Comparator.comparing(f -> relativePath(root, f)));
+        return resp;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
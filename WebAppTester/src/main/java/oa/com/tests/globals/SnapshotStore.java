@@ -0,0 +1,232 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.Getter;
+import oa.com.tests.lang.CompiledScript;
+import oa.com.tests.lang.CompiledStatement;
+import oa.com.utils.Encryption;
+import oa.com.utils.Settings;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Sesiones guardadas por clave, en un archivo cifrado con la clave de
+ * {@link Encryption}. Una sesion vence despues de un tiempo (ttl).
+ * <p>
+ * Varios procesos pueden compartir el archivo: se escribe con un bloqueo
+ * (archivo .lock al lado), volviendo a leer antes de agregar, y el archivo
+ * nuevo se escribe aparte y se mueve encima del anterior.
+ *
+ * @author nesto
+ */
+public final class SnapshotStore {
+
+    /**
+     * Minutos que dura una sesion guardada, si no se configura
+     * webapptester.snapshot.ttl.
+     */
+    public static final int DEFAULT_TTL_MINUTES = 30;
+    private static volatile SnapshotStore defaultStore;
+
+    @Getter
+    private final File file;
+    @Getter
+    private final long ttlMillis;
+    private Map<String, SessionSnapshot> snapshots;
+    /**
+     * Fecha y tamano del archivo cuando se leyo, para notar si otro proceso
+     * lo cambio.
+     */
+    private long loadedModified;
+    private long loadedLength;
+
+    public SnapshotStore(File file, long ttlMillis) {
+        this.file = file;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * El almacen compartido por todas las ejecuciones, en el archivo
+     * webapptester.snapshot.file (snapshots.dat por omision).
+     *
+     * @return
+     */
+    public static SnapshotStore getDefault() {
+        if (defaultStore == null) {
+            synchronized (SnapshotStore.class) {
+                if (defaultStore == null) {
+                    defaultStore = new SnapshotStore(new File(Settings.get("snapshot.file", "snapshots.dat")),
+                            TimeUnit.MINUTES.toMillis(Settings.getInt("snapshot.ttl", DEFAULT_TTL_MINUTES)));
+                }
+            }
+        }
+        return defaultStore;
+    }
+
+    /**
+     * Clave de la sesion que deja un _start.txt: el hash de su contenido.
+     *
+     * @param script
+     * @return
+     */
+    public static String fixtureKey(CompiledScript script) {
+        return "fixture:" + script.getHash();
+    }
+
+    /**
+     * Clave de una sesion guardada con la accion snapshot.
+     *
+     * @param name
+     * @return
+     */
+    public static String nameKey(String name) {
+        return "name:" + name;
+    }
+
+    /**
+     * Si la sesion que deja un script se puede guardar: no tiene errores y
+     * todas sus instrucciones se resolvieron al compilar, asi que el hash del
+     * archivo describe todo lo que hace.
+     *
+     * @param script
+     * @return
+     */
+    public static boolean isCacheable(CompiledScript script) {
+        return script.getErrors().isEmpty()
+                && !script.getStatements().isEmpty()
+                && script.getStatements().stream().allMatch(CompiledStatement::isResolved);
+    }
+
+    /**
+     * Busca una sesion que no haya vencido.
+     *
+     * @param key
+     * @return La sesion o null.
+     */
+    public SessionSnapshot get(String key) {
+        return get(key, ttlMillis);
+    }
+
+    /**
+     * Busca una sesion que no tenga mas de un tiempo dado.
+     *
+     * @param key
+     * @param ttlMillis
+     * @return La sesion o null.
+     */
+    public synchronized SessionSnapshot get(String key, long ttlMillis) {
+        final SessionSnapshot resp = load().get(key);
+        if (resp == null || resp.isExpired(ttlMillis, System.currentTimeMillis())) {
+            return null;
+        }
+        return resp;
+    }
+
+    /**
+     * Guarda una sesion y escribe el archivo. Las sesiones vencidas se
+     * descartan.
+     *
+     * @param key
+     * @param snapshot
+     */
+    public synchronized void put(String key, SessionSnapshot snapshot) {
+        try (FileChannel channel = FileChannel.open(lockFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.lock()) {
+            //Lo que hayan guardado otros procesos desde la ultima lectura
+            snapshots = null;
+            final Map<String, SessionSnapshot> current = load();
+            final long now = System.currentTimeMillis();
+            current.values().removeIf(s -> s.isExpired(ttlMillis, now));
+            current.put(key, snapshot);
+            save(current);
+        } catch (IOException ex) {
+            Logger.getLogger("Probador Web").log(Level.WARNING, file.getPath(), ex);
+        }
+    }
+
+    public synchronized void clear() {
+        snapshots = new HashMap<>();
+        file.delete();
+    }
+
+    private Path lockFile() {
+        return new File(file.getAbsolutePath() + ".lock").toPath();
+    }
+
+    private Map<String, SessionSnapshot> load() {
+        if (snapshots != null && file.lastModified() == loadedModified && file.length() == loadedLength) {
+            return snapshots;
+        }
+        snapshots = new HashMap<>();
+        loadedModified = file.lastModified();
+        loadedLength = file.length();
+        if (!file.exists()) {
+            return snapshots;
+        }
+        try {
+            final String text = Encryption.decrypt(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim());
+            final JSONObject json = (JSONObject) new JSONParser().parse(text);
+            for (Object key : json.keySet()) {
+                snapshots.put((String) key, SessionSnapshot.fromJSON((JSONObject) json.get(key)));
+            }
+        } catch (IOException | ParseException | RuntimeException ex) {
+            //Otro formato, o cifrado con otra clave: se empieza de nuevo
+            Logger.getLogger("Probador Web").log(Level.WARNING, file.getPath(), ex);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Escribe un archivo temporal en la misma carpeta y lo mueve encima del
+     * archivo, para que nadie lea uno a medio escribir.
+     */
+    @SuppressWarnings("unchecked")
+    private void save(Map<String, SessionSnapshot> current) throws IOException {
+        final JSONObject json = new JSONObject();
+        for (Map.Entry<String, SessionSnapshot> entry : current.entrySet()) {
+            json.put(entry.getKey(), entry.getValue().toJSON());
+        }
+        final Path target = file.getAbsoluteFile().toPath();
+        final Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            Files.write(temp, Encryption.encrypt(json.toJSONString()).getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        loadedModified = file.lastModified();
+        loadedLength = file.length();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.FusableActionRunner;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.lang.CompiledStatement;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Modo rapido: agrupa instrucciones seguidas que se pueden hacer desde
+ * JavaScript (esperar, escribir, desplazar, clic) y las ejecuta en una sola
+ * llamada al navegador, en lugar de una o varias por instruccion. El
+ * JavaScript se detiene en el primer paso que no puede hacer y retorna
+ * cuantos hizo; desde ese paso se sigue con la ejecucion normal.
+ *
+ * @author nesto
+ */
+public final class StepFuser {
+
+    /**
+     * Minimo de instrucciones para que valga la pena agruparlas.
+     */
+    public static final int MIN_BATCH = 2;
+    /**
+     * Ejecuta los pasos de arguments[0] y retorna cuantos se completaron.
+     */
+    static final String SCRIPT
+            = "var steps=arguments[0];"
+            + "function find(s){"
+            + "if(s.type=='xpath'){return document.evaluate(s.path,document,null,"
+            + "XPathResult.FIRST_ORDERED_NODE_TYPE,null).singleNodeValue;}"
+            + "return document.querySelector(s.path);}"
+            + "function fire(el,name){el.dispatchEvent(new Event(name,{bubbles:true}));}"
+            + "for(var i=0;i<steps.length;i++){"
+            + "var s=steps[i];"
+            + "try{"
+            + "var el=s.path==null?null:find(s);"
+            + "if(el==null){return i;}"
+            + "if(s.op=='wait'){"
+            + "if(document.readyState!='complete'||el.getClientRects().length==0||el.disabled){return i;}"
+            + "}else if(s.op=='write'){"
+            + "el.focus();"
+            + "if('value' in el){el.value+=s.text;}else{el.textContent+=s.text;}"
+            + "fire(el,'input');fire(el,'change');"
+            + "}else if(s.op=='scroll'){"
+            + "el.scrollLeft+=s.x;el.scrollTop+=s.y;"
+            + "}else if(s.op=='click'){"
+            + "el.scrollIntoView({block:'center'});el.click();"
+            + "}else{return i;}"
+            + "}catch(e){return i;}"
+            + "}"
+            + "return steps.length;";
+
+    /**
+     * Instrucciones seguidas que se ejecutan en una sola llamada.
+     */
+    public static final class Batch {
+
+        @Getter
+        private final List<CompiledStatement> statements = new ArrayList<>();
+        private final List<Map<String, Object>> steps = new ArrayList<>();
+
+        private Batch() {
+        }
+
+        public int size() {
+            return statements.size();
+        }
+
+        /**
+         * Pasos de JavaScript, en orden.
+         *
+         * @return
+         */
+        public List<Map<String, Object>> getSteps() {
+            return Collections.unmodifiableList(steps);
+        }
+
+        /**
+         * Ejecuta el grupo.
+         *
+         * @param driver
+         * @return Cuantas instrucciones se completaron, desde la primera. Si
+         * la llamada falla se asume que ninguna.
+         */
+        public int run(WebDriver driver) {
+            final Object done;
+            try {
+                done = ((JavascriptExecutor) driver).executeScript(SCRIPT, steps);
+            } catch (WebDriverException ex) {
+                return 0;
+            }
+            if (!(done instanceof Number)) {
+                return 0;
+            }
+            return Math.max(0, Math.min(size(), ((Number) done).intValue()));
+        }
+    }
+
+    private StepFuser() {
+    }
+
+    /**
+     * Agrupa las instrucciones que se pueden hacer con JavaScript a partir de
+     * una dada. El grupo termina en la primera que no se puede agrupar o
+     * despues de un clic, que puede cambiar la pagina.
+     *
+     * @param statements
+     * @param from Indice de la primera instruccion.
+     * @param context Para las variables y el navegador.
+     * @return El grupo, o null si no hay suficientes instrucciones para
+     * agrupar.
+     */
+    public static Batch collect(List<CompiledStatement> statements, int from, ExecutionContext context) {
+        if (!(context.getDriver() instanceof JavascriptExecutor)) {
+            return null;
+        }
+        final Batch resp = new Batch();
+        for (int i = from; i < statements.size(); i++) {
+            final CompiledStatement statement = statements.get(i);
+            final AbstractDefaultScriptActionRunner runner = runnerFor(statement, context);
+            if (!(runner instanceof FusableActionRunner)) {
+                break;
+            }
+            final FusableActionRunner fusable = (FusableActionRunner) runner;
+            final Map<String, Object> step = fusable.toFusedStep();
+            if (step == null) {
+                break;
+            }
+            resp.statements.add(statement);
+            resp.steps.add(step);
+            if (fusable.endsBatch()) {
+                break;
+            }
+        }
+        return resp.size() < MIN_BATCH ? null : resp;
+    }
+
+    /**
+     * Crea el ejecutor de una instruccion, reemplazando sus variables.
+     *
+     * @param statement
+     * @param context
+     * @return El ejecutor, o null si la instruccion tiene algun error; en
+     * ese caso la ejecucion normal lo reporta.
+     */
+    private static AbstractDefaultScriptActionRunner runnerFor(CompiledStatement statement, ExecutionContext context) {
+        try {
+            final TestAction action = statement.isResolved()
+                    ? statement.getAction()
+                    : new TestAction(statement.getName(), statement.getTemplate().render(context::resolve));
+            return ActionRunnerManager.findRunner(action);
+        } catch (InvalidVarNameException | InvalidActionException | RuntimeException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Resultado de una ejecucion de scripts guardado en un archivo JSON, para
+ * juntar los de varias partes (ver {@link ShardPlan}) y para repartir las
+ * siguientes ejecuciones segun lo que duro cada script.
+ *
+ * @author nesto
+ */
+@Getter
+public final class SuiteReport {
+
+    /**
+     * Resultado de un script.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Entry {
+
+        /**
+         * Ruta relativa a la carpeta de scripts.
+         */
+        private final String script;
+        private final boolean ok;
+        private final long millis;
+        private final List<String> errors;
+    }
+
+    /**
+     * Partes incluidas, como "1/3"; vacio si no se repartio.
+     */
+    private final List<String> shards;
+    /**
+     * Duracion en milisegundos; al juntar partes, la de la mas larga.
+     */
+    private final long millis;
+    /**
+     * Resultados ordenados por ruta.
+     */
+    private final List<Entry> entries;
+    /**
+     * Cantidad de scripts de toda la carpeta, no solo de esta parte.
+     */
+    private final int total;
+    /**
+     * Huella de los datos con los que se repartieron las partes (ver
+     * {@link ShardPlan#fingerprint}); null si no se repartio.
+     */
+    private final String plan;
+
+    public SuiteReport(List<String> shards, long millis, List<Entry> entries, int total, String plan) {
+        this.shards = shards;
+        this.millis = millis;
+        this.entries = entries;
+        this.total = total;
+        this.plan = plan;
+    }
+
+    /**
+     * Un reporte con todos los scripts de la carpeta.
+     *
+     * @param shards
+     * @param millis
+     * @param entries
+     */
+    public SuiteReport(List<String> shards, long millis, List<Entry> entries) {
+        this(shards, millis, entries, entries.size(), null);
+    }
+
+    /**
+     * El reporte de una ejecucion.
+     *
+     * @param root Carpeta de los scripts.
+     * @param result
+     * @param shard Parte que se ejecuto; null si fueron todos.
+     * @param total Cantidad de scripts de la carpeta.
+     * @param plan Huella de la reparticion; null si fueron todos.
+     * @return
+     */
+    public static SuiteReport of(File root, SuiteRunner.SuiteResult result, ShardPlan shard, int total, String plan) {
+        final List<Entry> entries = new ArrayList<>();
+        for (SuiteRunner.ScriptResult script : result.getResults()) {
+            entries.add(entry(root, script));
+        }
+        return new SuiteReport(shard == null ? List.of() : List.of(shard.toString()), result.getMillis(), entries,
+                total, plan);
+    }
+
+    /**
+     * La linea del reporte de un script.
+     *
+     * @param root Carpeta de los scripts.
+     * @param script
+     * @return
+     */
+    public static Entry entry(File root, SuiteRunner.ScriptResult script) {
+        return new Entry(ShardPlan.relativePath(root, script.getScript()), script.isOk(), script.getMillis(),
+                script.getErrors().stream().map(String::valueOf).collect(Collectors.toList()));
+    }
+
+    /**
+     * Junta los reportes de varias partes. Si un script esta en mas de uno,
+     * queda el del ultimo.
+     *
+     * @param reports
+     * @return
+     */
+    public static SuiteReport merge(Collection<SuiteReport> reports) {
+        final List<String> shards = new ArrayList<>();
+        final Map<String, Entry> entries = new TreeMap<>();
+        long millis = 0;
+        int total = 0;
+        String plan = null;
+        for (SuiteReport report : reports) {
+            shards.addAll(report.getShards());
+            millis = Math.max(millis, report.getMillis());
+            for (Entry entry : report.getEntries()) {
+                entries.put(entry.getScript(), entry);
+            }
+            total = Math.max(total, report.getTotal());
+            plan = plan == null ? report.getPlan() : plan;
+        }
+        return new SuiteReport(shards, millis, new ArrayList<>(entries.values()),
+                Math.max(total, entries.size()), plan);
+    }
+
+    /**
+     * Revisa que las partes se hayan repartido con los mismos scripts y la
+     * misma historia. Si una maquina tenia otra historia (o ninguna), las
+     * partes no coinciden y algunos scripts se saltan o se repiten.
+     *
+     * @param reports
+     * @throws IllegalArgumentException Si no coinciden; el mensaje lista la
+     * cantidad de scripts y la huella de cada parte.
+     */
+    public static void checkPlan(Collection<SuiteReport> reports) {
+        final Set<String> plans = new TreeSet<>();
+        final Set<Integer> totals = new TreeSet<>();
+        for (SuiteReport report : reports) {
+            //Los de versiones anteriores no tienen huella: solo si no hay otros
+            plans.add(String.valueOf(report.getPlan()));
+            totals.add(report.getPlan() == null ? -1 : report.getTotal());
+        }
+        if (plans.size() > 1 || totals.size() > 1) {
+            throw new IllegalArgumentException(reports.stream()
+                    .map(r -> String.join(",", r.getShards()) + " (" + r.getTotal() + ", " + r.getPlan() + ")")
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    /**
+     * Los scripts que estan en mas de un reporte.
+     *
+     * @param reports
+     * @return Ordenados por ruta; vacio si ninguno se repite.
+     */
+    public static List<String> repeatedScripts(Collection<SuiteReport> reports) {
+        final Set<String> seen = new TreeSet<>();
+        final Set<String> resp = new TreeSet<>();
+        for (SuiteReport report : reports) {
+            for (Entry entry : report.getEntries()) {
+                if (!seen.add(entry.getScript())) {
+                    resp.add(entry.getScript());
+                }
+            }
+        }
+        return new ArrayList<>(resp);
+    }
+
+    /**
+     * Revisa que los reportes sean las partes 1..n de una misma reparticion,
+     * sin repetir ninguna. Los reportes sin partes solo se pueden juntar
+     * entre ellos.
+     *
+     * @param reports
+     * @return Las partes que faltan, como "2/3"; vacio si estan todas.
+     * @throws IllegalArgumentException Si las partes no coinciden; el
+     * mensaje lista las partes encontradas.
+     */
+    public static List<String> missingShards(Collection<SuiteReport> reports) {
+        final List<ShardPlan> shards = new ArrayList<>();
+        boolean unsharded = false;
+        for (SuiteReport report : reports) {
+            unsharded |= report.getShards().isEmpty();
+            for (String shard : report.getShards()) {
+                shards.add(ShardPlan.parse(shard));
+            }
+        }
+        if (shards.isEmpty()) {
+            return List.of();
+        }
+        final String found = shards.stream().map(String::valueOf).collect(Collectors.joining(", "));
+        final int count = shards.get(0).getCount();
+        final Set<Integer> indexes = new TreeSet<>();
+        for (ShardPlan shard : shards) {
+            if (unsharded || shard.getCount() != count || !indexes.add(shard.getIndex())) {
+                throw new IllegalArgumentException(found);
+            }
+        }
+        final List<String> resp = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            if (!indexes.contains(i)) {
+                resp.add(new ShardPlan(i, count).toString());
+            }
+        }
+        return resp;
+    }
+
+    public long getFailures() {
+        return entries.stream().filter(e -> !e.isOk()).count();
+    }
+
+    /**
+     * Duracion de cada script, por ruta relativa.
+     *
+     * @return
+     */
+    public Map<String, Long> getDurations() {
+        final Map<String, Long> resp = new HashMap<>();
+        entries.forEach(e -> resp.put(e.getScript(), e.getMillis()));
+        return resp;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void write(File file) throws IOException {
+        final JSONObject json = new JSONObject();
+        final JSONArray shardsArr = new JSONArray();
+        shardsArr.addAll(shards);
+        json.put("shards", shardsArr);
+        json.put("millis", millis);
+        json.put("total", total);
+        if (plan != null) {
+            json.put("plan", plan);
+        }
+        final JSONArray scripts = new JSONArray();
+        for (Entry entry : entries) {
+            scripts.add(toJSON(entry));
+        }
+        json.put("scripts", scripts);
+        Files.write(file.toPath(), json.toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lee un reporte escrito con {@link #write(File)}.
+     *
+     * @param file
+     * @return
+     * @throws IOException Si no se puede leer o no es un reporte.
+     */
+    @SuppressWarnings("unchecked")
+    public static SuiteReport read(File file) throws IOException {
+        try {
+            final JSONObject json = (JSONObject) new JSONParser().parse(
+                    new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            final List<Entry> entries = new ArrayList<>();
+            for (Object item : (JSONArray) json.get("scripts")) {
+                entries.add(fromJSON((JSONObject) item));
+            }
+            final Number total = (Number) json.get("total");
+            return new SuiteReport(new ArrayList<>((List<String>) json.get("shards")),
+                    ((Number) json.get("millis")).longValue(), entries,
+                    total == null ? entries.size() : total.intValue(), (String) json.get("plan"));
+        } catch (ParseException | ClassCastException | NullPointerException ex) {
+            throw new IOException(file.getPath(), ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static JSONObject toJSON(Entry entry) {
+        final JSONObject resp = new JSONObject();
+        resp.put("script", entry.getScript());
+        resp.put("ok", entry.isOk());
+        resp.put("millis", entry.getMillis());
+        final JSONArray errorsArr = new JSONArray();
+        errorsArr.addAll(entry.getErrors());
+        resp.put("errors", errorsArr);
+        return resp;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Entry fromJSON(JSONObject json) {
+        return new Entry((String) json.get("script"), Boolean.TRUE.equals(json.get("ok")),
+                ((Number) json.get("millis")).longValue(),
+                new ArrayList<>((List<String>) json.get("errors")));
+    }
+}
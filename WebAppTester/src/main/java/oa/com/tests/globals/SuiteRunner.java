@@ -0,0 +1,262 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import oa.com.tests.Utils;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Ejecuta todos los scripts de una carpeta al tiempo. Cada script, con los
+ * _start.txt y _end.txt de sus carpetas, se ejecuta en su propio gestor (con
+ * sus propias variables) y en un navegador prestado por un
+ * {@link DriverPool}.
+ *
+ * @author nesto
+ */
+public final class SuiteRunner {
+
+    /**
+     * Resultado de un script.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class ScriptResult {
+
+        private final File script;
+        private final List<Exception> errors;
+        /**
+         * Duracion en milisegundos.
+         */
+        private final long millis;
+        /**
+         * Tiempos de cada instruccion.
+         */
+        private final List<ExecutionContext.StepTiming> timings;
+        /**
+         * Contadores del cache de elementos.
+         */
+        private final ElementCache.Stats cache;
+
+        public boolean isOk() {
+            return errors.isEmpty();
+        }
+    }
+
+    /**
+     * Resultado de todos los scripts, ordenados por ruta.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class SuiteResult {
+
+        private final List<ScriptResult> results;
+        /**
+         * Duracion total en milisegundos.
+         */
+        private final long millis;
+
+        public long getFailures() {
+            return results.stream().filter(r -> !r.isOk()).count();
+        }
+
+        /**
+         * Contadores del cache de elementos de todos los scripts.
+         *
+         * @return
+         */
+        public ElementCache.Stats getCacheStats() {
+            return results.stream()
+                    .map(ScriptResult::getCache)
+                    .reduce(ElementCache.Stats.EMPTY, ElementCache.Stats::plus);
+        }
+
+        /**
+         * Tiempo total que las instrucciones pasaron esperando.
+         *
+         * @return Milisegundos.
+         */
+        public long getWaitedMillis() {
+            return results.stream()
+                    .flatMap(r -> r.getTimings().stream())
+                    .mapToLong(ExecutionContext.StepTiming::getWaitedNanos)
+                    .sum() / 1_000_000;
+        }
+
+        /**
+         * Las instrucciones que mas tiempo pasaron esperando, para saber
+         * cuales pausas conviene cambiar.
+         *
+         * @param max
+         * @return
+         */
+        public List<ExecutionContext.StepTiming> getLongestWaits(int max) {
+            return results.stream()
+                    .flatMap(r -> r.getTimings().stream())
+                    .filter(t -> t.getWaitedNanos() > 0)
+                    .sorted(Comparator.comparingLong(ExecutionContext.StepTiming::getWaitedNanos).reversed())
+                    .limit(max)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Las instrucciones que mas tiempo perdieron en reintentos.
+         *
+         * @param max
+         * @return
+         */
+        public List<FlakeStats.Entry> getFlakes(int max) {
+            final List<FlakeStats.Entry> resp = FlakeStats.collect(results.stream()
+                    .flatMap(r -> r.getTimings().stream())
+                    .collect(Collectors.toList()));
+            return resp.subList(0, Math.min(max, resp.size()));
+        }
+    }
+
+    private final DriverPool pool;
+    /**
+     * Planificador compartido; si es null cada ejecucion usa uno propio.
+     */
+    private final RunScheduler scheduler;
+
+    public SuiteRunner(DriverPool pool) {
+        this(pool, null);
+    }
+
+    public SuiteRunner(DriverPool pool, RunScheduler scheduler) {
+        this.pool = pool;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Ejecuta todos los scripts de una carpeta, cada uno en un hilo virtual.
+     * Corren al tiempo tantos como navegadores tenga el conjunto. Si se
+     * interrumpe el hilo que llama, se cancelan todos.
+     *
+     * @param root
+     * @param log
+     * @return
+     * @throws InterruptedException
+     */
+    public SuiteResult run(File root, Logger log) throws InterruptedException {
+        return run(root, Utils.findScripts(root), log);
+    }
+
+    /**
+     * Como {@link #run(File, Logger)}, solo para algunos scripts de la
+     * carpeta, como los de una parte (ver {@link ShardPlan}).
+     *
+     * @param root
+     * @param scripts
+     * @param log
+     * @return
+     * @throws InterruptedException
+     */
+    public SuiteResult run(File root, List<File> scripts, Logger log) throws InterruptedException {
+        if (scheduler != null) {
+            return run(root, scripts, log, scheduler);
+        }
+        try (RunScheduler own = new RunScheduler(pool.getSize())) {
+            return run(root, scripts, log, own);
+        }
+    }
+
+    private SuiteResult run(File root, List<File> scripts, Logger log, RunScheduler runScheduler)
+            throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        final List<CompletableFuture<ScriptResult>> futures = new ArrayList<>();
+        try (RunScheduler.Suite suite = runScheduler.newSuite()) {
+            for (File script : scripts) {
+                futures.add(suite.submit(pool.getBrowserType().name(), () -> runScript(root, script, log)));
+            }
+            suite.await();
+        }
+        final List<ScriptResult> results = new ArrayList<>();
+        for (int i = 0; i < scripts.size(); i++) {
+            try {
+                results.add(futures.get(i).join());
+            } catch (CancellationException | CompletionException ex) {
+                //run no deja escapar excepciones: solo se cancelo
+                results.add(new ScriptResult(scripts.get(i), List.of(ex), 0, List.of(), ElementCache.Stats.EMPTY));
+            }
+        }
+        return new SuiteResult(Collections.unmodifiableList(results), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Ejecuta un script, con los _start.txt y _end.txt de sus carpetas, en un
+     * navegador del conjunto.
+     *
+     * @param root
+     * @param script
+     * @param log
+     * @return El resultado; los errores no se lanzan sino que quedan en el.
+     */
+    public ScriptResult runScript(File root, File script, Logger log) {
+        final long start = System.currentTimeMillis();
+        final List<Exception> errors = new LinkedList<>();
+        WebDriver driver = null;
+        ExecutionContext context = null;
+        boolean broken = false;
+        try {
+            driver = pool.lease();
+            context = ExecutionContext.builder()
+                    .browser(pool.getBrowserType(), driver)
+                    .log(log)
+                    .build();
+            final ActionRunnerManager session = ActionRunnerManager.newSession(context);
+            for (File file : Utils.getRunnableFiles(root, script)) {
+                errors.addAll(session.exec(file));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            errors.add(ex);
+        } catch (Exception ex) {
+            log.log(Level.SEVERE, script.getPath(), ex);
+            errors.add(ex);
+            //El navegador no responde: no se vuelve a prestar
+            broken = ex instanceof WebDriverException;
+        } finally {
+            if (context != null && context.getDriver() != driver) {
+                //El script cambio de navegador: el prestado ya se cerro
+                context.getDriver().quit();
+                broken = true;
+            }
+            if (driver != null) {
+                if (broken) {
+                    pool.discard(driver);
+                } else {
+                    pool.release(driver);
+                }
+            }
+        }
+        return new ScriptResult(script, Collections.unmodifiableList(errors), System.currentTimeMillis() - start,
+                context == null ? List.of() : context.getTimings(),
+                context == null ? ElementCache.Stats.EMPTY : context.getElementCache().getStats());
+    }
+}
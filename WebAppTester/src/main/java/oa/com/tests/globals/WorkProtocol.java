@@ -0,0 +1,116 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Mensajes entre el {@link Coordinator} y sus {@link Worker}: un objeto JSON
+ * por linea, con su tipo en "type".
+ * <ul>
+ * <li>hello: el trabajador se presenta (worker).</li>
+ * <li>next: pide un script.</li>
+ * <li>script: el coordinador le da un script (script), wait: no hay por
+ * ahora, done: ya no hay mas.</li>
+ * <li>result: el resultado de un script (ver {@link SuiteReport.Entry}).</li>
+ * <li>heartbeat: el trabajador sigue vivo.</li>
+ * </ul>
+ *
+ * @author nesto
+ */
+final class WorkProtocol implements AutoCloseable {
+
+    static final String HELLO = "hello", NEXT = "next", SCRIPT = "script", WAIT = "wait",
+            DONE = "done", RESULT = "result", HEARTBEAT = "heartbeat";
+
+    private final Socket socket;
+    private final BufferedReader reader;
+    private final Writer writer;
+    /**
+     * Protege al escritor. Se escribe en el socket desde hilos virtuales, que
+     * synchronized dejaria pegados a su hilo del sistema.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    WorkProtocol(Socket socket) throws IOException {
+        this.socket = socket;
+        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    static JSONObject message(String type) {
+        final JSONObject resp = new JSONObject();
+        resp.put("type", type);
+        return resp;
+    }
+
+    static String type(JSONObject message) {
+        return (String) message.get("type");
+    }
+
+    /**
+     * Envia un mensaje. Lo pueden llamar varios hilos.
+     *
+     * @param message
+     * @throws IOException
+     */
+    void send(JSONObject message) throws IOException {
+        writeLock.lock();
+        try {
+            writer.write(message.toJSONString());
+            writer.write('\n');
+            writer.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lee el siguiente mensaje.
+     *
+     * @return El mensaje o null si se cerro la conexion.
+     * @throws IOException Si la conexion falla o el mensaje no es JSON.
+     */
+    JSONObject receive() throws IOException {
+        final String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        try {
+            return (JSONObject) new JSONParser().parse(line);
+        } catch (ParseException | ClassCastException ex) {
+            throw new IOException(line, ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            //Ya estaba cerrada
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.json.simple.JSONObject;
+
+/**
+ * Ejecuta los scripts que le da un {@link Coordinator}. Abre una conexion
+ * por cada script que puede ejecutar al tiempo (por ejemplo, uno por
+ * navegador de su {@link DriverPool}) y por cada una envia latidos mientras
+ * trabaja y el resultado de cada script en cuanto termina.
+ *
+ * @author nesto
+ */
+public final class Worker {
+
+    /**
+     * Ejecuta un script dada su ruta relativa.
+     */
+    @FunctionalInterface
+    public interface ScriptExecutor {
+
+        SuiteReport.Entry run(String script) throws InterruptedException;
+    }
+
+    private final String host;
+    private final int port;
+    private final String name;
+    private final int lanes;
+    private final Duration heartbeat;
+    private final ScriptExecutor executor;
+    private final Logger log;
+
+    /**
+     * @param host
+     * @param port
+     * @param name Nombre para los mensajes del coordinador.
+     * @param lanes Cuantos scripts se ejecutan al tiempo.
+     * @param heartbeat Cada cuanto se envia un latido.
+     * @param executor
+     * @param log
+     */
+    public Worker(String host, int port, String name, int lanes, Duration heartbeat,
+            ScriptExecutor executor, Logger log) {
+        this.host = host;
+        this.port = port;
+        this.name = name;
+        this.lanes = lanes;
+        this.heartbeat = heartbeat;
+        this.executor = executor;
+        this.log = log;
+    }
+
+    /**
+     * Trabaja hasta que el coordinador no tenga mas scripts o se desconecte.
+     *
+     * @return Cuantos scripts se ejecutaron.
+     * @throws IOException Si no se pudo conectar.
+     * @throws InterruptedException
+     */
+    public int run() throws IOException, InterruptedException {
+        final List<WorkProtocol> connections = new ArrayList<>();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (int i = 0; i < lanes; i++) {
+                    connections.add(new WorkProtocol(new Socket(host, port)));
+                }
+            } catch (IOException ex) {
+                connections.forEach(WorkProtocol::close);
+                throw ex;
+            }
+            final List<Future<Integer>> done = new ArrayList<>();
+            for (WorkProtocol connection : connections) {
+                done.add(threads.submit(() -> work(connection)));
+            }
+            int resp = 0;
+            for (Future<Integer> future : done) {
+                try {
+                    resp += future.get();
+                } catch (ExecutionException ex) {
+                    log.log(Level.WARNING, name, ex.getCause());
+                }
+            }
+            return resp;
+        } finally {
+            connections.forEach(WorkProtocol::close);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int work(WorkProtocol connection) throws InterruptedException {
+        final Thread beats = Thread.ofVirtual().start(() -> beat(connection));
+        int resp = 0;
+        try {
+            final JSONObject hello = WorkProtocol.message(WorkProtocol.HELLO);
+            hello.put("worker", name);
+            connection.send(hello);
+            while (true) {
+                connection.send(WorkProtocol.message(WorkProtocol.NEXT));
+                final JSONObject reply = connection.receive();
+                if (reply == null || WorkProtocol.DONE.equals(WorkProtocol.type(reply))) {
+                    return resp;
+                }
+                if (WorkProtocol.WAIT.equals(WorkProtocol.type(reply))) {
+                    Thread.sleep(heartbeat.toMillis());
+                    continue;
+                }
+                final JSONObject result = SuiteReport.toJSON(executor.run((String) reply.get("script")));
+                result.put("type", WorkProtocol.RESULT);
+                connection.send(result);
+                resp++;
+            }
+        } catch (IOException ex) {
+            //El coordinador termino o se cayo
+            log.log(Level.INFO, name, ex);
+            return resp;
+        } finally {
+            beats.interrupt();
+            connection.close();
+        }
+    }
+
+    private void beat(WorkProtocol connection) {
+        try {
+            while (true) {
+                Thread.sleep(heartbeat.toMillis());
+                connection.send(WorkProtocol.message(WorkProtocol.HEARTBEAT));
+            }
+        } catch (InterruptedException | IOException ex) {
+            //Termino el trabajo
+        }
+    }
+}
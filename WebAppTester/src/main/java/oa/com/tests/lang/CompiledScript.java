@@ -0,0 +1,63 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.lang;
+
+import java.util.List;
+import lombok.Getter;
+import oa.com.tests.actionrunners.exceptions.ScriptSyntaxException;
+
+/**
+ * Plan de ejecucion de un archivo de script: sus instrucciones ya compiladas,
+ * junto con los datos del archivo de los que salio (ruta, fecha de
+ * modificacion y hash del contenido).
+ *
+ * @author nesto
+ */
+@Getter
+public final class CompiledScript {
+
+    private final String path;
+    private final long lastModified;
+    private final long length;
+    /**
+     * Hash del contenido del archivo.
+     */
+    private final String hash;
+    private final List<CompiledStatement> statements;
+    /**
+     * Errores de sintaxis encontrados al separar las instrucciones.
+     */
+    private final List<ScriptSyntaxException> errors;
+
+    public CompiledScript(String path, long lastModified, long length, String hash,
+            List<CompiledStatement> statements, List<ScriptSyntaxException> errors) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.hash = hash;
+        this.statements = List.copyOf(statements);
+        this.errors = List.copyOf(errors);
+    }
+
+    /**
+     * Copia de este plan para un archivo que cambio de fecha pero no de
+     * contenido.
+     *
+     * @param lastModified
+     * @return
+     */
+    public CompiledScript withLastModified(long lastModified) {
+        return new CompiledScript(path, lastModified, length, hash, statements, errors);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.lang;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actions.TestAction;
+
+/**
+ * Una instruccion de un script ya compilada. Es inmutable, para poder
+ * compartirla entre ejecuciones.
+ *
+ * @author nesto
+ */
+@Getter
+@AllArgsConstructor
+public final class CompiledStatement {
+
+    /**
+     * Linea del archivo donde empieza la instruccion.
+     */
+    private final int line;
+    /**
+     * Columna donde empieza la instruccion.
+     */
+    private final int column;
+    /**
+     * Texto de la instruccion tal como esta en el archivo.
+     */
+    private final String source;
+    /**
+     * Nombre de la accion.
+     */
+    private final String name;
+    /**
+     * Cuerpo de la accion, con las llaves, compilado para reemplazar las
+     * variables al ejecutar.
+     */
+    private final Template template;
+    /**
+     * Accion ya interpretada. Es null si la plantilla no es constante:
+     * las variables y claves cifradas se resuelven al momento de ejecutar.
+     */
+    private final TestAction action;
+    /**
+     * Ejecutor para la accion. Es null si no se resolvio al compilar.
+     */
+    private final Class<? extends AbstractDefaultScriptActionRunner> runnerType;
+
+    /**
+     * Si la accion quedo resuelta al compilar.
+     *
+     * @return
+     */
+    public boolean isResolved() {
+        return action != null;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.lang;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ResourceBundle;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import oa.com.tests.actionrunners.exceptions.ScriptSyntaxException;
+
+/**
+ * Separa un script en instrucciones <code>nombre={...}</code> en una sola
+ * pasada. Cuenta las llaves del cuerpo (sin tener en cuenta las que estan
+ * dentro de comillas dobles), asi que una instruccion puede ocupar varias
+ * lineas y varias instrucciones pueden ir en la misma linea. Entre el = y la
+ * { puede haber espacios y saltos de linea. Solo guarda en memoria la
+ * instruccion que esta leyendo.
+ *
+ * Las lineas vacias y las que empiezan con # se ignoran. Despues de un error
+ * de sintaxis sigue con la linea siguiente.
+ *
+ * @author nesto
+ */
+public class ScriptTokenizer implements Closeable {
+
+    /**
+     * Una instruccion leida del script.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Token {
+
+        /**
+         * Linea donde empieza la instruccion, empezando en 1.
+         */
+        private final int line;
+        /**
+         * Columna donde empieza la instruccion, empezando en 1.
+         */
+        private final int column;
+        /**
+         * Nombre de la accion, sin espacios alrededor.
+         */
+        private final String name;
+        /**
+         * Cuerpo de la accion, con las llaves.
+         */
+        private final String command;
+        /**
+         * Texto completo de la instruccion. Si ocupa varias lineas, quedan
+         * unidas con un espacio.
+         */
+        private final String source;
+    }
+
+    private static final ResourceBundle globals = ResourceBundle.getBundle("application");
+
+    private final BufferedReader reader;
+    /**
+     * Numero de la ultima linea leida.
+     */
+    private int lineNumber;
+    /**
+     * Lo que falta por leer de la linea actual, o null si hay que leer otra.
+     */
+    private String pending;
+    /**
+     * Columna en el archivo del primer caracter de {@link #pending}.
+     */
+    private int pendingColumn;
+
+    public ScriptTokenizer(Reader reader) {
+        this.reader = reader instanceof BufferedReader
+                ? (BufferedReader) reader
+                : new BufferedReader(reader);
+    }
+
+    /**
+     * Lee la siguiente instruccion.
+     *
+     * @return La instruccion o null si se acabo el script.
+     * @throws IOException
+     * @throws ScriptSyntaxException Si la instruccion esta mal formada. La
+     * siguiente llamada continua en la linea siguiente al error.
+     */
+    public Token next() throws IOException, ScriptSyntaxException {
+        StringBuilder source = null;
+        int startLine = 0, startColumn = 0;
+        int nameEnd = -1, depth = 0;
+        boolean inQuote = false, escaped = false;
+        while (true) {
+            if (pending == null) {
+                final String raw = reader.readLine();
+                if (raw == null) {
+                    if (source != null && depth == 0) {
+                        throw error("tokenizer.err.expectedBody", lineNumber, 1,
+                                source.substring(0, Math.max(nameEnd, 0)).trim());
+                    }
+                    if (source != null) {
+                        throw error("tokenizer.err.unterminated", startLine, startColumn,
+                                source.substring(0, Math.max(nameEnd, 0)).trim());
+                    }
+                    return null;
+                }
+                lineNumber++;
+                final String line = raw.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                pending = line;
+                pendingColumn = raw.indexOf(line) + 1;
+                if (source != null) {
+                    source.append(' ');
+                }
+            }
+            final String line = pending;
+            final int lineColumn = pendingColumn;
+            pending = null;
+            for (int i = 0; i < line.length(); i++) {
+                final char c = line.charAt(i);
+                final int column = lineColumn + i;
+                if (source == null) {
+                    if (Character.isWhitespace(c)) {
+                        continue;
+                    }
+                    if (c == '#') {
+                        //Comentario al final de la linea
+                        break;
+                    }
+                    source = new StringBuilder();
+                    startLine = lineNumber;
+                    startColumn = column;
+                }
+                if (nameEnd < 0) {
+                    if (c == '=') {
+                        if (source.toString().trim().isEmpty()) {
+                            throw error("tokenizer.err.noName", lineNumber, column, "");
+                        }
+                        nameEnd = source.length();
+                    } else if (c == '{' || c == '}') {
+                        throw error("tokenizer.err.expectedBody", lineNumber, column,
+                                source.toString().trim());
+                    }
+                    source.append(c);
+                    continue;
+                }
+                if (depth == 0) {
+                    //Despues del =
+                    if (Character.isWhitespace(c)) {
+                        source.append(c);
+                        continue;
+                    }
+                    if (c != '{') {
+                        throw error("tokenizer.err.expectedBody", lineNumber, column,
+                                source.substring(0, nameEnd).trim());
+                    }
+                    depth = 1;
+                    source.append(c);
+                    continue;
+                }
+                source.append(c);
+                if (inQuote) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inQuote = false;
+                    }
+                } else if (c == '"') {
+                    inQuote = true;
+                } else if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    final String rest = line.substring(i + 1);
+                    final String trimmed = rest.trim();
+                    if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                        pending = trimmed;
+                        pendingColumn = column + 1 + rest.indexOf(trimmed);
+                    }
+                    final String text = source.toString();
+                    return new Token(startLine, startColumn,
+                            text.substring(0, nameEnd).trim(),
+                            text.substring(nameEnd + 1).trim(), text);
+                }
+            }
+            if (source != null && nameEnd < 0) {
+                //La linea termino antes del =
+                throw error("tokenizer.err.expectedBody", lineNumber,
+                        lineColumn + line.length(),
+                        source.substring(0, nameEnd < 0 ? source.length() : nameEnd).trim());
+            }
+            //Las cadenas JSON no pueden tener saltos de linea
+            inQuote = false;
+            escaped = false;
+        }
+    }
+
+    /**
+     * Numero de la ultima linea leida.
+     *
+     * @return
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    private ScriptSyntaxException error(String key, int line, int column, String detail) {
+        //Descarta lo que queda de la linea
+        pending = null;
+        final String message = globals.getString("tokenizer.err.position")
+                .replace("{0}", String.valueOf(line))
+                .replace("{1}", String.valueOf(column))
+                .replace("{2}", globals.getString(key).replace("{0}", detail));
+        return new ScriptSyntaxException(message, line, column);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.lang;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.Getter;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import oa.com.utils.Encryption;
+import org.openqa.selenium.Keys;
+
+/**
+ * Texto de una instruccion ya separado en partes literales y marcadores:
+ * <ul>
+ * <li>[:variable] Valor de una variable.</li>
+ * <li>[%Keys.CONTROL,Keys.A] Teclas especiales.</li>
+ * <li>[$clave] Texto cifrado con {@link Encryption}.</li>
+ * </ul>
+ * Se compila una vez y se puede mostrar muchas veces, con una sola pasada y
+ * sin expresiones regulares. Para escribir los marcadores literalmente se usan
+ * [::, [%% y [$$.
+ *
+ * @author nesto
+ */
+public final class Template {
+
+    /**
+     * Tipos de marcador.
+     */
+    public enum Placeholder {
+        VARIABLE,
+        KEYS,
+        SECRET
+    }
+
+    /**
+     * Busca el valor de una variable por su nombre.
+     */
+    @FunctionalInterface
+    public interface VariableResolver {
+
+        String resolve(String name) throws InvalidVarNameException;
+    }
+
+    @FunctionalInterface
+    private interface Segment {
+
+        void render(StringBuilder out, VariableResolver variables) throws InvalidVarNameException;
+    }
+
+    /**
+     * Texto original.
+     */
+    @Getter
+    private final String source;
+    private final Segment[] segments;
+    private final Set<Placeholder> placeholders;
+    /**
+     * Nombres de las variables usadas, en el orden en que aparecen.
+     */
+    @Getter
+    private final Set<String> variables;
+    /**
+     * Tamano aproximado del texto resultante.
+     */
+    private final int capacity;
+
+    private Template(String source, List<Segment> segments, Set<Placeholder> placeholders,
+            Set<String> variables) {
+        this.source = source;
+        this.segments = segments.toArray(new Segment[0]);
+        this.placeholders = placeholders;
+        this.variables = Collections.unmodifiableSet(variables);
+        this.capacity = source.length() + 16;
+    }
+
+    /**
+     * Compila un texto con todos los tipos de marcador.
+     *
+     * @param source
+     * @return
+     */
+    public static Template compile(String source) {
+        return compile(source, EnumSet.allOf(Placeholder.class));
+    }
+
+    /**
+     * Compila un texto teniendo en cuenta solo algunos tipos de marcador. Los
+     * demas quedan como texto.
+     *
+     * @param source
+     * @param enabled
+     * @return
+     */
+    public static Template compile(String source, Set<Placeholder> enabled) {
+        final List<Segment> segments = new ArrayList<>();
+        final Set<Placeholder> found = EnumSet.noneOf(Placeholder.class);
+        final Set<String> names = new LinkedHashSet<>();
+        final StringBuilder literal = new StringBuilder();
+        final int length = source.length();
+        int i = 0;
+        while (i < length) {
+            final char c = source.charAt(i);
+            if (c != '[' || i + 1 >= length) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            final char kind = source.charAt(i + 1);
+            final boolean escaped = i + 2 < length && source.charAt(i + 2) == kind;
+            if (kind == ':' && enabled.contains(Placeholder.VARIABLE)) {
+                if (escaped) {
+                    literal.append("\u00a8{:");
+                    i += 3;
+                    continue;
+                }
+                final int end = scan(source, i + 2, true);
+                if (end >= 0) {
+                    final String name = source.substring(i + 2, end);
+                    flush(literal, segments);
+                    segments.add((out, variables) -> out.append(variables.resolve(name)));
+                    found.add(Placeholder.VARIABLE);
+                    names.add(name);
+                    i = end + 1;
+                    continue;
+                }
+            } else if (kind == '%' && enabled.contains(Placeholder.KEYS)) {
+                if (escaped) {
+                    literal.append("\u00a8{%");
+                    i += 3;
+                    continue;
+                }
+                final int end = scan(source, i + 2, false);
+                final String keys = end < 0 ? null : keys(source.substring(i + 2, end));
+                if (keys != null) {
+                    //Como Keys.chord: el texto que sigue hace parte de la combinacion
+                    int suffixEnd = end + 1;
+                    while (suffixEnd < length && isChordText(source.charAt(suffixEnd))) {
+                        suffixEnd++;
+                    }
+                    literal.append(keys).append(source, end + 1, suffixEnd).append(Keys.NULL);
+                    found.add(Placeholder.KEYS);
+                    i = suffixEnd;
+                    continue;
+                }
+            } else if (kind == '$' && enabled.contains(Placeholder.SECRET)) {
+                if (escaped) {
+                    literal.append("[$");
+                    i += 3;
+                    continue;
+                }
+                final int end = source.indexOf(']', i + 2);
+                if (end >= 0) {
+                    final String encrypted = source.substring(i + 2, end);
+                    flush(literal, segments);
+                    segments.add((out, variables) -> out.append(Encryption.decrypt(encrypted)));
+                    found.add(Placeholder.SECRET);
+                    i = end + 1;
+                    continue;
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        flush(literal, segments);
+        return new Template(source, segments, found, names);
+    }
+
+    /**
+     * Muestra el texto reemplazando los marcadores.
+     *
+     * @param variables Valores de las variables. Puede ser null si
+     * {@link #isConstant()}.
+     * @return
+     * @throws InvalidVarNameException Si una variable no existe.
+     */
+    public String render(VariableResolver variables) throws InvalidVarNameException {
+        final StringBuilder out = new StringBuilder(capacity);
+        for (Segment segment : segments) {
+            segment.render(out, variables);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Si el resultado no depende de variables ni de claves cifradas, de modo
+     * que se puede mostrar una sola vez al compilar.
+     *
+     * @return
+     */
+    public boolean isConstant() {
+        return !placeholders.contains(Placeholder.VARIABLE)
+                && !placeholders.contains(Placeholder.SECRET);
+    }
+
+    /**
+     * Si el texto tiene teclas especiales.
+     *
+     * @return
+     */
+    public boolean hasKeys() {
+        return placeholders.contains(Placeholder.KEYS);
+    }
+
+    private static void flush(StringBuilder literal, List<Segment> segments) {
+        if (literal.length() == 0) {
+            return;
+        }
+        final String text = literal.toString();
+        segments.add((out, variables) -> out.append(text));
+        literal.setLength(0);
+    }
+
+    /**
+     * Busca el ] que cierra un marcador.
+     *
+     * @param source
+     * @param from
+     * @param name Si es un nombre de variable; si no, una lista de teclas.
+     * @return La posicion del ] o -1 si hay un caracter no permitido antes.
+     */
+    private static int scan(String source, int from, boolean name) {
+        for (int i = from; i < source.length(); i++) {
+            final char c = source.charAt(i);
+            if (c == ']') {
+                return i;
+            }
+            final boolean valid = Character.isLetterOrDigit(c) && c < 128 || c == '|'
+                    || !name && (c == '.' || c == ',' || c == '*' || c == '?');
+            if (!valid) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Convierte una lista de teclas como Keys.CONTROL,Keys.A.
+     *
+     * @param list
+     * @return Las teclas o null si alguna no existe.
+     */
+    private static String keys(String list) {
+        final StringBuilder resp = new StringBuilder();
+        for (String token : list.split(",")) {
+            try {
+                resp.append(Keys.valueOf(token.replace("Keys.", "")));
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+        return resp.toString();
+    }
+
+    private static boolean isChordText(char c) {
+        return Character.isLetterOrDigit(c) && c < 128 || c == '|' || Character.isWhitespace(c);
+    }
+}
@@ -18,12 +18,13 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
 import oa.com.tests.actions.TestAction;
 import oa.com.tests.globals.ActionRunnerManager;
-import oa.com.tests.webapptester.MainApp;
+import oa.com.tests.globals.ExecutionContext;
 import org.openqa.selenium.WebDriver;
 
 /**
@@ -31,6 +32,7 @@ import org.openqa.selenium.WebDriver;
  *
  * @author nesto
  */
+@ScriptAction
 public class BrowserSwapperActionRunner extends AbstractDefaultScriptActionRunner {
 
     private ActionRunnerManager.BROWSERTYPE browser;
@@ -45,19 +47,34 @@ public class BrowserSwapperActionRunner extends AbstractDefaultScriptActionRunne
         browser = ActionRunnerManager.BROWSERTYPE.valueOf(matcher.group(1));
     }
 
+    /**
+     * Cambia el navegador de la ejecucion de la interfaz.
+     *
+     * @param driver
+     * @throws Exception
+     */
     @Override
     public void run(WebDriver driver) throws Exception {
-        MainApp.setBrowser(browser);
         ActionRunnerManager.set(browser);
     }
 
     @Override
     public void run(WebDriver driver, Logger log) throws Exception {
+        logSwap(log);
+        run(driver);
+    }
+
+    @Override
+    public void run(ExecutionContext context) throws Exception {
+        logSwap(context.getLog());
+        context.swapBrowser(browser);
+    }
+
+    private void logSwap(Logger log) {
         ResourceBundle globals = ResourceBundle.getBundle("application");
         final String browserName = globals.getString("settings.driver." + browser.name() + ".name");
         String templateMsg = getActionLog();
         log.log(Level.INFO, templateMsg, browserName);
-        run(driver);
     }
 
 }
@@ -13,10 +13,13 @@
  */
 package oa.com.tests.scriptactionrunners;
 
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actions.TestAction;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
+import java.util.Map;
 import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
+import oa.com.tests.actionrunners.interfaces.FusableActionRunner;
 import oa.com.utils.WebUtils;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
@@ -29,7 +32,8 @@ import org.openqa.selenium.interactions.Actions;
  *
  * @author nesto
  */
-public class ClickActionRunner extends AbstractSelectorActionRunner {
+@ScriptAction
+public class ClickActionRunner extends AbstractSelectorActionRunner implements FusableActionRunner {
 
     public ClickActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
         super(action);
@@ -42,4 +46,14 @@ public class ClickActionRunner extends AbstractSelectorActionRunner {
         Actions actions = new Actions(driver);
         actions.moveToElement(elem).click().build().perform();
     }
+
+    @Override
+    public Map<String, Object> toFusedStep() {
+        return getSelector() == null ? null : fusedStep("click");
+    }
+
+    @Override
+    public boolean endsBatch() {
+        return true;
+    }
 }
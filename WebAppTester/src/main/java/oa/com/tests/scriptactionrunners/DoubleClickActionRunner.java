@@ -13,6 +13,7 @@
  */
 package oa.com.tests.scriptactionrunners;
 
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
@@ -26,6 +27,7 @@ import org.openqa.selenium.interactions.Actions;
  * doble clic en algun lado.
  * @author nesto
  */
+@ScriptAction
 public class DoubleClickActionRunner extends AbstractSelectorActionRunner{
 
     public DoubleClickActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
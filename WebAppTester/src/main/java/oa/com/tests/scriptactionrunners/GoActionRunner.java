@@ -15,10 +15,12 @@ package oa.com.tests.scriptactionrunners;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actions.TestAction;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.globals.ExecutionContext;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.openqa.selenium.WebDriver;
@@ -27,6 +29,7 @@ import org.openqa.selenium.WebDriver;
  *
  * @author nesto
  */
+@ScriptAction
 public class GoActionRunner extends AbstractDefaultScriptActionRunner{
 
     private String url;
@@ -51,4 +54,19 @@ public class GoActionRunner extends AbstractDefaultScriptActionRunner{
         log.log(Level.INFO, templateMsg, url);
         run(driver);
     }
+
+    /**
+     * Los elementos encontrados en la pagina anterior ya no sirven.
+     *
+     * @param context
+     * @throws Exception
+     */
+    @Override
+    public void run(ExecutionContext context) throws Exception {
+        try {
+            run(context.getDriver(), context.getLog());
+        } finally {
+            context.getElementCache().invalidate();
+        }
+    }
 }
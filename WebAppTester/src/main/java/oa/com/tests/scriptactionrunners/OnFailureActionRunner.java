@@ -0,0 +1,111 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.scriptactionrunners;
+
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.Getter;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actions.ActionArguments;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.globals.ExecutionContext;
+import oa.com.tests.globals.RetryPolicy;
+import oa.com.utils.I18n;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Cambia, para el resto del archivo, que pasa cuando una instruccion falla:
+ * "modo" es detener (no se ejecuta lo que sigue) o continuar, y
+ * "reintentos" los intentos de cada instruccion (ver {@link RetryPolicy}).
+ * Cada instruccion puede tener sus propios reintentos con el mismo atributo.
+ * Ejemplo:
+ * alfallar={"modo":"detener","reintentos":"3,500S"}
+ *
+ * @author nesto
+ */
+@ScriptAction
+@Getter
+public class OnFailureActionRunner extends AbstractDefaultScriptActionRunner {
+
+    /**
+     * Si se detiene el archivo; null si no se cambia.
+     */
+    private final Boolean stop;
+    /**
+     * Reintentos; null si no se cambian.
+     */
+    private final RetryPolicy retry;
+
+    public OnFailureActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
+        super(action);
+        final ActionArguments arguments = action.getArguments();
+        try {
+            stop = parseMode(arguments.getString(getClass().getSimpleName() + ".attr.mode"));
+            final String retryText = arguments.getString("exec.attr.retry");
+            retry = retryText == null ? null : RetryPolicy.parse(retryText);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidActionException(action.getCommand());
+        }
+    }
+
+    /**
+     * Lee el modo por su nombre en el idioma del script o en ingles.
+     *
+     * @param value
+     * @return
+     */
+    private Boolean parseMode(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (String mode : new String[]{"stop", "continue"}) {
+            final String key = getClass().getSimpleName() + ".mode." + mode;
+            if (value.trim().equalsIgnoreCase(mode)
+                    || I18n.aliases(key).stream().anyMatch(value.trim()::equalsIgnoreCase)) {
+                return mode.equals("stop");
+            }
+        }
+        throw new IllegalArgumentException(value.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Sin un contexto no hay archivo que cambiar.
+     *
+     * @param driver
+     * @throws Exception
+     */
+    @Override
+    public void run(WebDriver driver) throws Exception {
+    }
+
+    @Override
+    public void run(ExecutionContext context) throws Exception {
+        run(context.getDriver(), context.getLog());
+        if (stop != null) {
+            context.setStopOnFailure(stop);
+        }
+        if (retry != null) {
+            context.setFileRetry(retry);
+        }
+    }
+
+    @Override
+    public void run(WebDriver driver, Logger log) throws Exception {
+        log.log(Level.INFO, getActionLog(), getAction().getCommand());
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.scriptactionrunners;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Getter;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.PathKeeper;
+import oa.com.tests.actions.ActionArguments;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.globals.ExecutionContext;
+import oa.com.utils.PageWaiter;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Para esperar ciertos miliseg, segundos, minutos, horas o das.
+ * Opcionalmente termina antes, en cuanto la pagina cumple una condicion: que
+ * se vea un elemento (selector), que la direccion cumpla una expresion
+ * regular (url), que document.readyState llegue a un estado (estado) o que no
+ * se descarguen recursos durante un tiempo (reposo). El tiempo es el maximo.
+ * Ejemplo:
+ * pausa={"tiempo":"5s","selector":"#resultado"}
+ *
+ * @author nesto
+ */
+@ScriptAction
+@Getter
+public class PauseActionRunner extends AbstractDefaultScriptActionRunner {
+
+    public enum TimeUnit {
+        MILLISECOND,
+        SECOND,
+        MINUTE,
+        HOUR,
+        DAY
+    }
+    /**
+     * Cantidad de tiempo
+     */
+    private long amount;
+    /**
+     * Unidades del tiempo para hacer pausa.
+     */
+    private TimeUnit unit;
+    /**
+     * La conversin a milisegundos para la pausa.
+     */
+    private long millis = 0;
+    /**
+     * Condicion para terminar antes; vacia si la pausa es fija.
+     */
+    private final PageWaiter.Condition condition = new PageWaiter.Condition();
+
+    public PauseActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
+        super(action);
+        String actionCommand = action.getCommand();
+
+        final String keyName = getClass().getSimpleName() + ".attr.time";
+        String strTime = action.getArguments().getString(keyName);
+        if (strTime == null) {
+            throw new InvalidActionException(actionCommand);
+        }
+
+        final Matcher matcher = Pattern.compile("^([0-9]*).*([S|s|m|h|d]).*$").matcher(strTime);
+        if (!matcher.matches()) {
+            throw new InvalidActionException(actionCommand);
+        }
+        int groupIdx = 1;
+        try {
+            amount = Long.parseLong(matcher.group(groupIdx++));
+            switch (matcher.group(groupIdx++)) {
+                case "S":
+                    unit = TimeUnit.MILLISECOND;
+                    millis = amount;
+                    break;
+                case "s":
+                    unit = TimeUnit.SECOND;
+                    millis = Duration.ofSeconds(amount).toMillis();
+                    break;
+                case "m":
+                    unit = TimeUnit.MINUTE;
+                    millis = Duration.ofMinutes(amount).toMillis();
+                    break;
+                case "h":
+                    unit = TimeUnit.HOUR;
+                    millis = Duration.ofHours(amount).toMillis();
+                    break;
+                case "d":
+                default:
+                    unit = TimeUnit.DAY;
+                    millis = Duration.ofDays(amount).toMillis();
+                    break;
+            }
+            readCondition(action);
+        } catch (ArithmeticException | IllegalArgumentException ex) {
+            throw new InvalidActionException(actionCommand);
+        }
+    }
+
+    private void readCondition(TestAction action) {
+        final ActionArguments arguments = action.getArguments();
+        final String prefix = getClass().getSimpleName() + ".attr.";
+        final PathKeeper selector = new PathKeeper(action);
+        if (selector.hasPath()) {
+            condition.element(selector.getType().name().toLowerCase(Locale.ROOT),
+                    selector.getPath(), PageWaiter.Until.VISIBLE);
+        }
+        final String url = arguments.getString(prefix + "url");
+        if (url != null) {
+            Pattern.compile(url);
+            condition.url(url);
+        }
+        final String state = arguments.getString(prefix + "state");
+        if (state != null) {
+            condition.readyState(state.trim().toLowerCase(Locale.ROOT));
+        }
+        final Duration idle = arguments.getDuration(prefix + "idle");
+        if (idle != null) {
+            condition.networkIdle(idle);
+        }
+    }
+
+    /**
+     * Si la pausa termina antes cuando se cumple una condicion.
+     *
+     * @return
+     */
+    public boolean isConditional() {
+        return !condition.isEmpty();
+    }
+
+    @Override
+    public void run(WebDriver driver) throws Exception {
+        pause(driver);
+    }
+
+    /**
+     * Hace la pausa.
+     *
+     * @param driver
+     * @return Cuanto duro, en nanosegundos.
+     * @throws InterruptedException
+     */
+    private long pause(WebDriver driver) throws InterruptedException {
+        final long start = System.nanoTime();
+        if (isConditional() && driver instanceof JavascriptExecutor) {
+            PageWaiter.waitUntil(driver, condition, Duration.ofMillis(millis));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        } else {
+            Thread.sleep(millis);
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Override
+    public void run(WebDriver driver, Logger log) throws Exception {
+        logStart(log);
+        run(driver);
+    }
+
+    /**
+     * Hace la pausa y anota en el contexto cuanto tiempo se espero.
+     *
+     * @param context
+     * @throws Exception
+     */
+    @Override
+    public void run(ExecutionContext context) throws Exception {
+        final Logger log = context.getLog();
+        logStart(log);
+        final long waited = pause(context.getDriver());
+        context.addWaited(waited);
+        log.log(Level.INFO, ResourceBundle.getBundle("application").getString(getClass().getSimpleName() + ".action.done"),
+                new Object[]{Duration.ofNanos(waited).toMillis(), millis});
+    }
+
+    private void logStart(Logger log) {
+        String templateMsg = getActionLog();
+        final ResourceBundle bundle = ResourceBundle.getBundle("application");
+        final String key = getClass().getSimpleName()+"."
+                +TimeUnit.class.getSimpleName()+"."+unit.name();
+        final String unitName = bundle.getString(key);
+        log.log(Level.INFO, templateMsg, new Object[]{this.amount,unitName});
+    }
+    
+}
@@ -16,28 +16,29 @@ package oa.com.tests.scriptactionrunners;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.HeadlessException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Vector;
-import java.util.function.Function;
-import static java.util.stream.Collectors.toList;
-import java.util.stream.Stream;
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextArea;
-import oa.com.tests.Utils;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
+import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.exceptions.UserActionException;
 import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
 import oa.com.tests.actionrunners.interfaces.PathKeeper;
 import oa.com.tests.actionrunners.interfaces.VariableProvider;
+import oa.com.tests.actions.ActionArguments;
 import oa.com.tests.actions.TestAction;
 import oa.com.tests.lang.SelectorVariable;
 import oa.com.utils.WebUtils;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import org.json.simple.JSONValue;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
@@ -79,16 +80,76 @@ import org.openqa.selenium.WebElement;
  *
  * @author nesto
  */
+@ScriptAction
 public class PickChoiceActionRunner extends AbstractSelectorActionRunner 
 implements VariableProvider{
 
+    /**
+     * Recibe el tipo y la ruta del selector y del subselector, y retorna los
+     * elementos, el texto de cada opcion y la ruta xpath de cada elemento
+     * (ver {@link WebUtils#XPATH_FUNCTION}).
+     */
+    static final String OPTIONS_SCRIPT
+            = "var type=arguments[0],path=arguments[1],subType=arguments[2],subPath=arguments[3];"
+            + "function all(root,t,p){"
+            + "if(t=='xpath'){"
+            + "var snap=document.evaluate(p,root,null,XPathResult.ORDERED_NODE_SNAPSHOT_TYPE,null),r=[];"
+            + "for(var i=0;i<snap.snapshotLength;i++){r.push(snap.snapshotItem(i));}"
+            + "return r;}"
+            + "return Array.prototype.slice.call(root==document?document.querySelectorAll(p)"
+            + ":root.querySelectorAll(':scope '+p));}"
+            + WebUtils.XPATH_FUNCTION
+            + "var els=all(document,type,path).filter(function(e){return e.nodeType==1;}),texts=[],paths=[];"
+            + "for(var i=0;i<els.length;i++){"
+            + "var t=els[i];"
+            + "if(subPath!=null){t=all(els[i],subType,subPath)[0];}"
+            + "texts.push(t?(t.innerText||t.textContent||'').trim():'');"
+            + "paths.push(xpath(els[i]));}"
+            + "return [els,texts,paths];";
+
+    /**
+     * Opciones leidas de la pagina.
+     */
+    static final class Options {
+
+        final List<WebElement> elements;
+        /**
+         * Texto de cada opcion, en el mismo orden de los elementos.
+         */
+        final List<String> texts;
+        /**
+         * Ruta xpath de cada elemento; null si no se calculo.
+         */
+        final List<String> xpaths;
+
+        Options(List<WebElement> elements, List<String> texts, List<String> xpaths) {
+            this.elements = elements;
+            this.texts = texts;
+            this.xpaths = xpaths;
+        }
+    }
+
     private List<WebElement> elements;
     private PathKeeper subSelector;
     private boolean sorted;
     private SelectorVariable variable;
+    private String strSubSelector;
+    private String title;
+    private String msg;
+    private String varName;
     
     public PickChoiceActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
         super(action);
+        ResourceBundle bundle = ResourceBundle.getBundle("application");
+        final String clsName = getClass().getSimpleName();
+        final ActionArguments arguments = action.getArguments();
+        strSubSelector = arguments.getString(clsName + ".attr.subselector");
+        sorted = arguments.getBoolean(clsName + ".attr.sorted", false);
+        title = arguments.getString(clsName + ".attr.title",
+                bundle.getString("options.title.default"));
+        msg = arguments.getString(clsName + ".attr.msg",
+                bundle.getString(clsName + ".attr.msg.default"));
+        varName = arguments.getString(clsName + ".attr.varName");
     }
 
     @Override
@@ -96,45 +157,43 @@ implements VariableProvider{
         ResourceBundle bundle = ResourceBundle.getBundle("application");
         final String clsName = getClass().getSimpleName();
         //Busca las opciones
-        JSONParser parser = new JSONParser();
-        JSONObject JSObj = (JSONObject) parser.parse(getAction().getCommand());
-        String strSubSelector = Utils.getJSONAttributeML(JSObj, clsName + ".attr.subselector");
-        subSelector = new PathKeeper(getAction());
-        subSelector.setPath(strSubSelector);
-        elements = getMany(driver);
+        final Options options = readOptions(driver);
+        elements = options.elements;
         if (elements.isEmpty()) {
             String message = bundle.getString(clsName + ".err.selectorWOChlds")
                     .replace("{0}", getSelector().getPath());
             throw new InvalidActionException(message);
         }
-        String ssorted = Utils.getJSONAttributeML(JSObj, clsName + ".attr.sorted");
-        sorted = ssorted == null ? false : ssorted.equals(bundle.getString("options.value.YES"));
         //Combo con opciones
-        Stream<String> elementsStr = elements.stream()
-                .map(webElementToString);
+        List<String> shown = options.texts;
         if (sorted) {
-            elementsStr = elementsStr.sorted();
-        }
-        String title = Utils.getJSONAttributeML(JSObj, clsName + ".attr.title");
-        if (title == null) {
-            title = bundle.getString("options.title.default");
-        }
-        String msg = Utils.getJSONAttributeML(JSObj, clsName + ".attr.msg");
-        if (msg == null) {
-            msg = bundle.getString(clsName + ".attr.msg.default");
+            shown = new ArrayList<>(shown);
+            shown.sort(null);
         }
-        String varName = Utils.getJSONAttributeML(JSObj, clsName + ".attr.varName");
-        String selection = promptUser(elementsStr.collect(toList()), msg, title);
-        int idx = elements.stream()
-                .map(webElementToString)
-                .collect(toList())
-                .indexOf(selection);
+        String selection = promptUser(shown, msg, title);
+        int idx = options.texts.indexOf(selection);
 
         final WebElement selectedElem = elements.get(idx);
-        String xpath = WebUtils.generateXPATH( selectedElem);
+        String xpath = options.xpaths != null
+                ? options.xpaths.get(idx)
+                : WebUtils.generateXPATH(selectedElem);
 
-        PathKeeper finder = new PathKeeper(new TestAction("command={\"selector\":\""+xpath+"\",\"type\":\"xpath\"}"));
-        this.variable = new SelectorVariable(selectedElem,varName,finder);
+        this.variable = toVariable(selectedElem, xpath);
+    }
+
+    /**
+     * Variable con el elemento seleccionado y la ruta xpath para volver a
+     * buscarlo. La ruta se escapa antes de ponerla en el JSON del selector.
+     *
+     * @param selectedElem
+     * @param xpath
+     * @return
+     * @throws BadSyntaxException
+     */
+    SelectorVariable toVariable(WebElement selectedElem, String xpath) throws BadSyntaxException {
+        PathKeeper finder = new PathKeeper(new TestAction("command={\"selector\":\""
+                + JSONValue.escape(xpath) + "\",\"type\":\"xpath\"}"));
+        return new SelectorVariable(selectedElem, varName, finder);
     }
 
     /**
@@ -176,14 +235,57 @@ implements VariableProvider{
         return (String) opciones.getSelectedItem();
     }
 
-    private Function<WebElement, String> webElementToString = (elem) -> {
-        WebElement optElement = AbstractSelectorActionRunner.get(elem, subSelector.getType(), subSelector.getPath());
-        return optElement.getText();
-    };
+    /**
+     * Lee los elementos y el texto de cada opcion. Con JavaScript se hace en
+     * una sola llamada al navegador, que tambien calcula las rutas xpath; sin
+     * JavaScript, con una busqueda por opcion.
+     *
+     * @param driver
+     * @return
+     * @throws BadSyntaxException
+     */
+    Options readOptions(WebDriver driver) throws BadSyntaxException {
+        subSelector = new PathKeeper(getAction());
+        subSelector.setPath(strSubSelector);
+        if (driver instanceof JavascriptExecutor && getSelector() != null) {
+            final Object result = ((JavascriptExecutor) driver).executeScript(OPTIONS_SCRIPT,
+                    getSelector().getType().name().toLowerCase(Locale.ROOT), getSelector().getPath(),
+                    subSelector.getType().name().toLowerCase(Locale.ROOT), strSubSelector);
+            if (result instanceof List && ((List<?>) result).size() == 3) {
+                final List<?> parts = (List<?>) result;
+                final List<WebElement> resultElements = new ArrayList<>();
+                final List<String> texts = new ArrayList<>();
+                final List<String> xpaths = new ArrayList<>();
+                for (Object elem : (List<?>) parts.get(0)) {
+                    resultElements.add((WebElement) elem);
+                }
+                for (Object text : (List<?>) parts.get(1)) {
+                    texts.add(String.valueOf(text));
+                }
+                for (Object path : (List<?>) parts.get(2)) {
+                    xpaths.add(String.valueOf(path));
+                }
+                return new Options(resultElements, texts, xpaths);
+            }
+        }
+        final List<WebElement> found = getMany(driver);
+        final List<String> texts = new ArrayList<>();
+        for (WebElement elem : found) {
+            final WebElement optElement = strSubSelector == null ? elem
+                    : AbstractSelectorActionRunner.get(elem, subSelector.getType(), strSubSelector);
+            texts.add(optElement.getText());
+        }
+        return new Options(found, texts, null);
+    }
 
     @Override
     public SelectorVariable getVariable() {
         return variable;
     }
 
+    @Override
+    public String getVariableName() {
+        return varName;
+    }
+
 }
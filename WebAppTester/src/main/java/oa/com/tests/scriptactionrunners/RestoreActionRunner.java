@@ -0,0 +1,93 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.scriptactionrunners;
+
+import java.time.Duration;
+import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.Getter;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.globals.ExecutionContext;
+import oa.com.tests.globals.SessionSnapshot;
+import oa.com.tests.globals.SnapshotStore;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Pone una sesion guardada con la accion instantanea. Falla si no existe o
+ * si ya vencio; la vigencia por omision es la del almacen
+ * (webapptester.snapshot.ttl). Ejemplo:
+ * restaurar={"nombre":"admin","vigencia":"10m"}
+ *
+ * @author nesto
+ */
+@ScriptAction
+@Getter
+public class RestoreActionRunner extends AbstractDefaultScriptActionRunner {
+
+    private final String name;
+    /**
+     * Edad maxima de la sesion; null para usar la del almacen.
+     */
+    private final Duration ttl;
+
+    public RestoreActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
+        super(action);
+        final String prefix = getClass().getSimpleName() + ".attr.";
+        name = action.getArguments().getString(prefix + "name");
+        if (name == null || name.isBlank()) {
+            throw new InvalidActionException(action.getCommand());
+        }
+        try {
+            ttl = action.getArguments().getDuration(prefix + "ttl");
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidActionException(action.getCommand());
+        }
+    }
+
+    @Override
+    public void run(WebDriver driver) throws Exception {
+        run(driver, SnapshotStore.getDefault());
+    }
+
+    @Override
+    public void run(WebDriver driver, Logger log) throws Exception {
+        log.log(Level.INFO, getActionLog(), name);
+        run(driver);
+    }
+
+    @Override
+    public void run(ExecutionContext context) throws Exception {
+        context.getLog().log(Level.INFO, getActionLog(), name);
+        try {
+            run(context.getDriver(), context.getSnapshots() == null ? SnapshotStore.getDefault() : context.getSnapshots());
+        } finally {
+            context.getElementCache().invalidate();
+        }
+    }
+
+    private void run(WebDriver driver, SnapshotStore store) {
+        final SessionSnapshot snapshot = store.get(SnapshotStore.nameKey(name),
+                ttl == null ? store.getTtlMillis() : ttl.toMillis());
+        if (snapshot == null) {
+            throw new IllegalStateException(ResourceBundle.getBundle("application")
+                    .getString(getClass().getSimpleName() + ".err.missing").replace("{0}", name));
+        }
+        snapshot.restore(driver);
+    }
+}
@@ -13,6 +13,7 @@
  */
 package oa.com.tests.scriptactionrunners;
 
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
@@ -26,6 +27,7 @@ import org.openqa.selenium.interactions.Actions;
  * Hacer click derecho en algun elemento.
  * @author nesto
  */
+@ScriptAction
 public class RightClickActionRunner extends AbstractSelectorActionRunner{
 
     public RightClickActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
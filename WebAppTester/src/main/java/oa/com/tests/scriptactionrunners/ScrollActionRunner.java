@@ -13,20 +13,22 @@
  */
 package oa.com.tests.scriptactionrunners;
 
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
-import oa.com.tests.Utils;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
+import oa.com.tests.actionrunners.interfaces.FusableActionRunner;
 import oa.com.tests.actionrunners.interfaces.PathKeeper;
+import oa.com.tests.actions.ActionArguments;
 import oa.com.tests.actions.TestAction;
-import org.json.simple.parser.ParseException;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -36,9 +38,10 @@ import org.openqa.selenium.WebElement;
  *
  * @author nestor
  */
+@ScriptAction
 @Getter
 @Setter(AccessLevel.PRIVATE)
-public class ScrollActionRunner extends AbstractSelectorActionRunner {
+public class ScrollActionRunner extends AbstractSelectorActionRunner implements FusableActionRunner {
 
     private enum SCROLL_DIRECTION {
         VERTICAL,
@@ -53,26 +56,27 @@ public class ScrollActionRunner extends AbstractSelectorActionRunner {
 
     public ScrollActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
         super(action);
-        final String command = getAction().getCommand();
-        boolean hasXY = false;
-        //has selector param?
-        try { //has x,y arguments?
-            setX(getParamInt("x", command));
-            setY(getParamInt("y", command));
-            hasXY = true;
-        } catch (NumberFormatException nfe) {
-            final String errMsg = globals.getString("ScrollRunner.attr.err.noNumbers");
+        final ActionArguments arguments = getAction().getArguments();
+        if (!arguments.isJSON()) {
+            final String errMsg = globals.getString(getClass().getSimpleName() + ".attr.err.parseEx");
             throw new InvalidActionException(errMsg);
-        } catch (ParseException pe) {
-            System.out.println("parseExcept.");
-            final String errMsg = globals.getString("ScrollRunner.attr.err.parseEx");
+        }
+        try { //has x,y arguments?
+            setX(getParamInt("x", arguments));
+            setY(getParamInt("y", arguments));
+        } catch (NumberFormatException | ArithmeticException nfe) {
+            final String errMsg = globals.getString(getClass().getSimpleName() + ".attr.err.noNumbers");
             throw new InvalidActionException(errMsg);
         }
     }
 
-    private int getParamInt(String attr, final String command) throws NumberFormatException, ParseException {
+    private int getParamInt(String attr, final ActionArguments arguments) throws NumberFormatException {
         String key = ScrollActionRunner.class.getSimpleName() + ".attr." + attr;
-        return Integer.parseInt(Utils.getJSONAttributeML(command, key));
+        final Integer resp = arguments.getInt(key);
+        if (resp == null) {
+            throw new NumberFormatException(key);
+        }
+        return resp;
     }
 
     @Override
@@ -89,6 +93,23 @@ public class ScrollActionRunner extends AbstractSelectorActionRunner {
         }
     }
 
+    /**
+     * Sin selector tambien se maximiza la ventana, asi que solo se agrupa el
+     * desplazamiento de un elemento.
+     *
+     * @return
+     */
+    @Override
+    public Map<String, Object> toFusedStep() {
+        if (getSelector() == null) {
+            return null;
+        }
+        final Map<String, Object> resp = fusedStep("scroll");
+        resp.put("x", x);
+        resp.put("y", y);
+        return resp;
+    }
+
     private boolean scroll_Page(WebDriver driver, WebElement webelement, int scrollPoints, SCROLL_DIRECTION direction) {
         if (scrollPoints == 0) {
             return true;
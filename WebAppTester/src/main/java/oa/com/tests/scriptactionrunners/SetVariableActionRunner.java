@@ -16,7 +16,7 @@ package oa.com.tests.scriptactionrunners;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import lombok.Getter;
-import oa.com.tests.Utils;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
@@ -24,6 +24,7 @@ import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
 import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
 import oa.com.tests.actionrunners.interfaces.PathKeeper;
 import oa.com.tests.actionrunners.interfaces.VariableProvider;
+import oa.com.tests.actions.ActionArguments;
 import oa.com.tests.actions.TestAction;
 import oa.com.tests.lang.SelectorVariable;
 import oa.com.tests.lang.StringVariable;
@@ -37,28 +38,30 @@ import org.openqa.selenium.WebElement;
  *
  * @author nesto
  */
+@ScriptAction
 @Getter
 public class SetVariableActionRunner extends AbstractDefaultScriptActionRunner
         implements VariableProvider {
 
     private Variable variable;
     private String name;
+    private String value;
+    /**
+     * Tipo de selector, si el valor es un selector.
+     */
+    private String type;
 
     public SetVariableActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
         super(action);
-        final String actionCommand = getAction().getCommand();
-        String keyName = getClass().getSimpleName() + ".attr.name";
-        name = Utils.getJSONAttributeML(actionCommand, keyName);
+        final ActionArguments arguments = getAction().getArguments();
+        name = arguments.getString(getClass().getSimpleName() + ".attr.name");
+        value = arguments.getString(getClass().getSimpleName() + ".attr.value");
+        //opcional: tipo
+        type = arguments.getString("CssSelectorActionRunner.attr.type");
     }
 
     @Override
     public void run(WebDriver driver) throws Exception {
-        final String actionCommand = getAction().getCommand();
-        String keyName = getClass().getSimpleName() + ".attr.value";
-        String value = Utils.getJSONAttributeML(actionCommand, keyName);
-        //opcional: tipo
-        keyName = "CssSelectorActionRunner.attr.type";
-        String type = Utils.getJSONAttributeML(actionCommand, keyName);
         if (type != null) {
             PathKeeper path = new PathKeeper(new TestAction("s={\"selector\":\"" + value + "\",\"type\":\"" + type + "\"}"));
             final WebElement element = AbstractSelectorActionRunner.get(driver, path.getType(), path.getPath());
@@ -77,7 +80,11 @@ public class SetVariableActionRunner extends AbstractDefaultScriptActionRunner
         run(driver);
     }
 
-    
+    @Override
+    public String getVariableName() {
+        return name;
+    }
+
     private void setVariable(Variable variable) {
         this.variable = variable;
     }
@@ -0,0 +1,71 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.scriptactionrunners;
+
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.Getter;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.globals.ExecutionContext;
+import oa.com.tests.globals.SessionSnapshot;
+import oa.com.tests.globals.SnapshotStore;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Guarda la sesion actual (cookies, localStorage y sessionStorage) con un
+ * nombre, para ponerla despues con la accion restaurar. Ejemplo:
+ * instantanea={"nombre":"admin"}
+ *
+ * @author nesto
+ */
+@ScriptAction
+@Getter
+public class SnapshotActionRunner extends AbstractDefaultScriptActionRunner {
+
+    private final String name;
+
+    public SnapshotActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
+        super(action);
+        name = action.getArguments().getString(getClass().getSimpleName() + ".attr.name");
+        if (name == null || name.isBlank()) {
+            throw new InvalidActionException(action.getCommand());
+        }
+    }
+
+    @Override
+    public void run(WebDriver driver) throws Exception {
+        run(driver, SnapshotStore.getDefault());
+    }
+
+    @Override
+    public void run(WebDriver driver, Logger log) throws Exception {
+        log.log(Level.INFO, getActionLog(), name);
+        run(driver);
+    }
+
+    @Override
+    public void run(ExecutionContext context) throws Exception {
+        context.getLog().log(Level.INFO, getActionLog(), name);
+        run(context.getDriver(), context.getSnapshots() == null ? SnapshotStore.getDefault() : context.getSnapshots());
+    }
+
+    private void run(WebDriver driver, SnapshotStore store) {
+        store.put(SnapshotStore.nameKey(name), SessionSnapshot.capture(driver, Map.of()));
+    }
+}
@@ -13,15 +13,25 @@
  */
 package oa.com.tests.scriptactionrunners;
 
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
+import oa.com.tests.actionrunners.interfaces.FusableActionRunner;
+import oa.com.tests.actionrunners.interfaces.IdempotentActionRunner;
 import oa.com.tests.actionrunners.interfaces.PathKeeper;
+import oa.com.tests.actions.ActionArguments;
 import oa.com.tests.actions.TestAction;
+import oa.com.utils.I18n;
+import oa.com.utils.PageWaiter;
 import oa.com.utils.WebUtils;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
@@ -34,9 +44,17 @@ import org.openqa.selenium.support.ui.WebDriverWait;
 esperar:{}
 
 esperar:{selector:{#__next > div > div > main > div._3ZoET > div > div._2oVR5 > section > section:nth-child(2) > div}}
+esperar:{selector:{#resultado},hasta:{visible},tiempo:{30s}}
+ * La espera se hace desde la pagina (ver {@link PageWaiter}); "hasta" es
+ * presente, visible o clicable (por omision) y "tiempo" el limite.
  * @author nesto
  */
-public class WaitActionRunner extends AbstractSelectorActionRunner{
+@ScriptAction
+public class WaitActionRunner extends AbstractSelectorActionRunner
+        implements FusableActionRunner, IdempotentActionRunner {
+
+    private final PageWaiter.Until until;
+    private final Duration timeout;
 
     public WaitActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException, BadSyntaxException {
         super(action);
@@ -45,11 +63,47 @@ public class WaitActionRunner extends AbstractSelectorActionRunner{
             final PathKeeper PathKeeper = new PathKeeper(testAction);
             setSelector(PathKeeper);
         }
+        final ActionArguments arguments = action.getArguments();
+        try {
+            until = parseUntil(arguments.getString(getClass().getSimpleName() + ".attr.until"));
+            final Duration argTimeout = arguments.getDuration(getClass().getSimpleName() + ".attr.timeout");
+            timeout = argTimeout != null ? argTimeout : PageWaiter.defaultTimeout();
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidActionException(action.getCommand());
+        }
+    }
+
+    /**
+     * Lee la condicion por su nombre en el idioma del script o en ingles.
+     *
+     * @param value
+     * @return
+     */
+    private PageWaiter.Until parseUntil(String value) {
+        if (value == null) {
+            return PageWaiter.Until.CLICKABLE;
+        }
+        final String name = value.trim().toLowerCase(Locale.ROOT);
+        for (PageWaiter.Until option : PageWaiter.Until.values()) {
+            final String key = getClass().getSimpleName() + ".until." + option.name().toLowerCase(Locale.ROOT);
+            if (name.equals(option.name().toLowerCase(Locale.ROOT))
+                    || I18n.aliases(key).stream().anyMatch(name::equalsIgnoreCase)) {
+                return option;
+            }
+        }
+        throw new IllegalArgumentException(value);
     }
 
     @Override
     public void run(WebDriver driver) throws Exception {
-        final WebElement element = get(driver);
+        final PathKeeper selector = getSelector();
+        if (driver instanceof JavascriptExecutor) {
+            PageWaiter.waitFor(driver, selector.getType().name().toLowerCase(Locale.ROOT),
+                    selector.getPath(), until, timeout);
+            return;
+        }
+        //Sin cache: el elemento puede ser de otra pagina
+        final WebElement element = get(driver, selector.getType(), selector.getPath());
         WebUtils.waitToBeClickable(driver, element);
     }
     
@@ -60,6 +114,22 @@ public class WaitActionRunner extends AbstractSelectorActionRunner{
         run(driver);
     }
 
+    /**
+     * En JavaScript no se espera: si el elemento aun no esta listo, el grupo
+     * se detiene y esta instruccion se ejecuta de la forma normal.
+     *
+     * @return
+     */
+    @Override
+    public Map<String, Object> toFusedStep() {
+        return fusedStep("wait");
+    }
+
+    @Override
+    public boolean usesElementCache() {
+        return false;
+    }
+
     @Override
     public boolean isRequired() {
         return false;
@@ -13,11 +13,13 @@
  */
 package oa.com.tests.scriptactionrunners;
 
-import oa.com.tests.Utils;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
 import oa.com.tests.actions.TestAction;
 import oa.com.tests.actionrunners.exceptions.InvalidActionException;
 import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
 import oa.com.tests.actionrunners.interfaces.AbstractSelectorActionRunner;
+import oa.com.tests.actionrunners.interfaces.FusableActionRunner;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import oa.com.tests.globals.ActionRunnerManager;
@@ -32,7 +34,8 @@ import org.openqa.selenium.WebElement;
  *
  * @author nesto
  */
-public class WriteActionRunner extends AbstractSelectorActionRunner {
+@ScriptAction
+public class WriteActionRunner extends AbstractSelectorActionRunner implements FusableActionRunner {
 
     private String text;
     private String originalText;
@@ -40,7 +43,7 @@ public class WriteActionRunner extends AbstractSelectorActionRunner {
 
     public WriteActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
         super(action);
-        extractText(action.getCommand());
+        extractText(action);
     }
 
     @Override
@@ -55,16 +58,32 @@ public class WriteActionRunner extends AbstractSelectorActionRunner {
         run(driver);
     }
 
-    private void extractText(String command) throws InvalidActionException {
+    /**
+     * Las teclas especiales solo se pueden enviar con el navegador, no desde
+     * JavaScript.
+     *
+     * @return
+     */
+    @Override
+    public Map<String, Object> toFusedStep() {
+        if (hasCommands || getSelector() == null) {
+            return null;
+        }
+        final Map<String, Object> resp = fusedStep("write");
+        resp.put("text", text);
+        return resp;
+    }
+
+    private void extractText(TestAction action) throws InvalidActionException {
         String key = getClass().getSimpleName() + ".attr.text";
-        originalText = Utils.getJSONAttributeML(command, key);
+        originalText = action.getArguments().getString(key);
         if (originalText != null) {
             this.hasCommands = ActionRunnerManager.hasKeys(originalText);
             this.text = hasCommands
                     ? ActionRunnerManager.parseKeys(originalText)
                     : originalText;
         } else {
-            throw new InvalidActionException(command);
+            throw new InvalidActionException(action.getCommand());
         }
     }
 
@@ -0,0 +1,484 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.webapptester;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.stream.Collectors;
+import oa.com.tests.Utils;
+import oa.com.tests.globals.ActionRunnerManager;
+import oa.com.tests.globals.Coordinator;
+import oa.com.tests.globals.DriverPool;
+import oa.com.tests.globals.ElementCache;
+import oa.com.tests.globals.ExecutionContext;
+import oa.com.tests.globals.FlakeStats;
+import oa.com.tests.globals.ScriptLinter;
+import oa.com.tests.globals.ShardPlan;
+import oa.com.tests.globals.SuiteReport;
+import oa.com.tests.globals.SuiteRunner;
+import oa.com.tests.globals.Worker;
+import oa.com.utils.Settings;
+
+/**
+ * Uso de la aplicacion por linea de comandos, sin ventana ni navegador.
+ * <ul>
+ * <li>--lint [carpeta] Revisa los scripts de la carpeta (por omision,
+ * scripts).</li>
+ * <li>--run [carpeta] [--shard i/n] [--out archivo] Ejecuta en paralelo
+ * todos los scripts de la carpeta, o solo la parte i de n (ver
+ * {@link ShardPlan}), y guarda el resultado en el archivo.</li>
+ * <li>--merge salida entrada... Junta los resultados de varias partes.</li>
+ * <li>--coordinator [carpeta] [--host direccion] [--port puerto] [--out
+ * archivo] Reparte los scripts de la carpeta entre los trabajadores que se
+ * conecten (ver {@link Coordinator}); sin --host, solo los de esta
+ * maquina.</li>
+ * <li>--worker maquina:puerto [carpeta] Ejecuta los scripts que le de un
+ * coordinador; la carpeta debe tener los mismos scripts.</li>
+ * </ul>
+ *
+ * @author nesto
+ */
+public final class ConsoleApp {
+
+    public static final String LINT = "--lint";
+    public static final String RUN = "--run";
+    public static final String MERGE = "--merge";
+    public static final String SHARD = "--shard";
+    public static final String OUT = "--out";
+    public static final String COORDINATOR = "--coordinator";
+    public static final String WORKER = "--worker";
+    public static final String PORT = "--port";
+    public static final String HOST = "--host";
+    public static final int DEFAULT_PORT = 7070;
+    /**
+     * Codigos de salida.
+     */
+    public static final int OK = 0, PROBLEMS = 1, USAGE = 2;
+    /**
+     * Cuantas esperas se muestran en el reporte.
+     */
+    private static final int LONGEST_WAITS = 10;
+    /**
+     * Latidos perdidos tras los que un trabajador se da por muerto.
+     */
+    private static final int HEARTBEATS_LOST = 3;
+
+    private ConsoleApp() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out));
+    }
+
+    /**
+     * Ejecuta la orden que viene en los argumentos.
+     *
+     * @param args
+     * @param out Donde se muestran los resultados.
+     * @return El codigo de salida.
+     */
+    public static int run(String[] args, PrintStream out) {
+        final ResourceBundle globals = ResourceBundle.getBundle("application");
+        if (args.length >= 3 && MERGE.equals(args[0])) {
+            final List<File> inputs = new ArrayList<>();
+            for (int i = 2; i < args.length; i++) {
+                inputs.add(new File(args[i]));
+            }
+            return merge(new File(args[1]), inputs, out, globals);
+        }
+        final String command = args.length == 0 ? "" : args[0];
+        if (!List.of(LINT, RUN, COORDINATOR, WORKER).contains(command)) {
+            out.println(globals.getString("console.usage"));
+            return USAGE;
+        }
+        String folder = null;
+        String address = null;
+        ShardPlan shard = null;
+        File report = null;
+        int port = DEFAULT_PORT;
+        String host = null;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                final boolean hasValue = i + 1 < args.length;
+                if (RUN.equals(command) && SHARD.equals(args[i]) && hasValue) {
+                    shard = ShardPlan.parse(args[++i]);
+                } else if ((RUN.equals(command) || COORDINATOR.equals(command)) && OUT.equals(args[i]) && hasValue) {
+                    report = new File(args[++i]);
+                } else if (COORDINATOR.equals(command) && PORT.equals(args[i]) && hasValue) {
+                    port = Integer.parseInt(args[++i]);
+                } else if (COORDINATOR.equals(command) && HOST.equals(args[i]) && hasValue) {
+                    host = args[++i];
+                } else if (WORKER.equals(command) && address == null && !args[i].startsWith("--")) {
+                    address = args[i];
+                } else if (folder == null && !args[i].startsWith("--")) {
+                    folder = args[i];
+                } else {
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (WORKER.equals(command) && (address == null || address.lastIndexOf(':') < 1)) {
+                throw new IllegalArgumentException(WORKER);
+            }
+        } catch (IllegalArgumentException ex) {
+            out.println(globals.getString("console.usage"));
+            return USAGE;
+        }
+        final File root = new File(folder != null ? folder
+                : globals.getString("globals.actionfolder.name"));
+        if (!root.isDirectory()) {
+            out.println(globals.getString("lint.err.noFolder").replace("{0}", root.getPath()));
+            return USAGE;
+        }
+        if (shard != null && report == null) {
+            report = new File("results-" + shard.getIndex() + "-of-" + shard.getCount() + ".json");
+        }
+        switch (command) {
+            case LINT:
+                return lint(root, out, globals);
+            case COORDINATOR:
+                return coordinate(root, host, port, report, out, globals);
+            case WORKER:
+                try {
+                    return work(root, address.substring(0, address.lastIndexOf(':')),
+                            Integer.parseInt(address.substring(address.lastIndexOf(':') + 1)), out, globals);
+                } catch (NumberFormatException ex) {
+                    out.println(globals.getString("console.usage"));
+                    return USAGE;
+                }
+            default:
+                return runSuite(root, shard, report, out, globals);
+        }
+    }
+
+    /**
+     * Reparte los scripts entre los trabajadores que se conecten, los mas
+     * largos primero (segun el reporte "history"), y muestra los resultados
+     * como --merge.
+     */
+    private static int coordinate(File root, String host, int port, File report, PrintStream out,
+            ResourceBundle globals) {
+        final Map<String, Long> history = readHistory(out);
+        final List<String> scripts = new ArrayList<>();
+        for (File script : Utils.findScripts(root)) {
+            scripts.add(ShardPlan.relativePath(root, script));
+        }
+        scripts.sort(Comparator.comparingLong((String s) -> history.getOrDefault(s, 0L)).reversed());
+        final SuiteReport result;
+        try (Coordinator coordinator = new Coordinator(host, port, scripts,
+                heartbeat().multipliedBy(HEARTBEATS_LOST),
+                Settings.getInt("reassignments", Coordinator.DEFAULT_MAX_REASSIGNMENTS), Utils.getLogger())) {
+            out.println(globals.getString("coordinator.listening")
+                    .replace("{0}", String.valueOf(coordinator.getPort()))
+                    .replace("{1}", String.valueOf(scripts.size())));
+            result = coordinator.start().await();
+        } catch (IOException ex) {
+            out.println(ex);
+            return USAGE;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return PROBLEMS;
+        }
+        return printReport(result, report, out, globals);
+    }
+
+    /**
+     * Ejecuta los scripts que de un coordinador, con tantos navegadores como
+     * diga la opcion "parallel".
+     */
+    private static int work(File root, String host, int port, PrintStream out, ResourceBundle globals) {
+        final ActionRunnerManager.BROWSERTYPE browser = ActionRunnerManager.BROWSERTYPE.valueOf(
+                Settings.get("browser", ActionRunnerManager.BROWSERTYPE.CHROME.name()));
+        final int parallel = Math.max(1, Settings.getInt("parallel", Runtime.getRuntime().availableProcessors()));
+        String name;
+        try {
+            name = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            name = "worker";
+        }
+        name += "#" + ProcessHandle.current().pid();
+        try (DriverPool pool = new DriverPool(browser, parallel)) {
+            final SuiteRunner runner = new SuiteRunner(pool);
+            final int done = new Worker(host, port, name, parallel, heartbeat(),
+                    script -> SuiteReport.entry(root, runner.runScript(root, new File(root, script), Utils.getLogger())),
+                    Utils.getLogger()).run();
+            out.println(globals.getString("worker.summary")
+                    .replace("{0}", name)
+                    .replace("{1}", String.valueOf(done)));
+            return OK;
+        } catch (IOException ex) {
+            out.println(ex);
+            return USAGE;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return PROBLEMS;
+        }
+    }
+
+    /**
+     * Cada cuanto envian latidos los trabajadores (opcion "heartbeat", en
+     * milisegundos).
+     */
+    private static Duration heartbeat() {
+        return Duration.ofMillis(Math.max(100, Settings.getInt("heartbeat", 5000)));
+    }
+
+    private static int lint(File root, PrintStream out, ResourceBundle globals) {
+        final List<ScriptLinter.Problem> problems
+                = new ScriptLinter(ActionRunnerManager.getRegistry()).lint(root);
+        problems.forEach(out::println);
+        final long files = problems.stream()
+                .map(ScriptLinter.Problem::getFile)
+                .collect(Collectors.toSet())
+                .size();
+        out.println(globals.getString("lint.summary")
+                .replace("{0}", String.valueOf(problems.size()))
+                .replace("{1}", String.valueOf(files)));
+        return problems.isEmpty() ? OK : PROBLEMS;
+    }
+
+    /**
+     * Ejecuta todos los scripts de la carpeta en paralelo. El navegador y la
+     * cantidad de navegadores se toman de las opciones "browser" y
+     * "parallel" (ver {@link Settings}). Si es solo una parte, se reparte con
+     * las duraciones del reporte "history" (results.json por omision), si
+     * existe.
+     *
+     * @param shard Parte que se ejecuta; null para todos.
+     * @param report Donde se guarda el resultado; null para no guardarlo.
+     */
+    private static int runSuite(File root, ShardPlan shard, File report, PrintStream out, ResourceBundle globals) {
+        List<File> scripts = Utils.findScripts(root);
+        final int total = scripts.size();
+        String plan = null;
+        if (shard != null) {
+            final Map<String, Long> history = readHistory(out);
+            plan = ShardPlan.fingerprint(root, scripts, history);
+            scripts = shard.select(root, scripts, history);
+            out.println(globals.getString("shard.selected")
+                    .replace("{0}", shard.toString())
+                    .replace("{1}", String.valueOf(scripts.size()))
+                    .replace("{2}", String.valueOf(total)));
+        }
+        final ActionRunnerManager.BROWSERTYPE browser = ActionRunnerManager.BROWSERTYPE.valueOf(
+                Settings.get("browser", ActionRunnerManager.BROWSERTYPE.CHROME.name()));
+        final int parallel = Math.max(1, Settings.getInt("parallel", Runtime.getRuntime().availableProcessors()));
+        final SuiteRunner.SuiteResult result;
+        final DriverPool.Stats stats;
+        try (DriverPool pool = new DriverPool(browser, parallel)) {
+            result = new SuiteRunner(pool).run(root, scripts, Utils.getLogger());
+            stats = pool.getStats();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return PROBLEMS;
+        }
+        for (SuiteRunner.ScriptResult script : result.getResults()) {
+            out.println(globals.getString(script.isOk() ? "suite.result.ok" : "suite.result.failed")
+                    .replace("{0}", script.getScript().getPath())
+                    .replace("{1}", String.valueOf(script.getMillis()))
+                    .replace("{2}", String.valueOf(script.getErrors().size())));
+            script.getErrors().forEach(ex -> out.println("    " + ex));
+            if (script.getCache().getPrefetches() > 0) {
+                out.println(globals.getString("prefetch.stats")
+                        .replace("{0}", String.valueOf(script.getCache().getPrefetches()))
+                        .replace("{1}", String.valueOf(script.getCache().getPrefetchHits()))
+                        .replace("{2}", String.valueOf(script.getCache().getSavedRoundTrips())));
+            }
+        }
+        out.println(globals.getString("suite.summary")
+                .replace("{0}", String.valueOf(result.getResults().size()))
+                .replace("{1}", String.valueOf(result.getFailures()))
+                .replace("{2}", String.valueOf(result.getMillis()))
+                .replace("{3}", String.valueOf(parallel)));
+        out.println(globals.getString("pool.stats")
+                .replace("{0}", String.valueOf(stats.getLaunches()))
+                .replace("{1}", String.valueOf(stats.getReuses()))
+                .replace("{2}", String.valueOf(stats.getResets()))
+                .replace("{3}", String.valueOf(stats.getEvictions())));
+        final ElementCache.Stats cache = result.getCacheStats();
+        out.println(globals.getString("cache.stats")
+                .replace("{0}", String.valueOf(cache.getHits()))
+                .replace("{1}", String.valueOf(cache.getMisses()))
+                .replace("{2}", String.valueOf(cache.getInvalidations())));
+        printWaits(result, out, globals);
+        printFlakes(result, out, globals);
+        if (report != null) {
+            try {
+                SuiteReport.of(root, result, shard, total, plan).write(report);
+                out.println(globals.getString("report.written").replace("{0}", report.getPath()));
+            } catch (IOException ex) {
+                out.println(globals.getString("report.err.io").replace("{0}", report.getPath()) + " " + ex);
+                return PROBLEMS;
+            }
+        }
+        return result.getFailures() == 0 ? OK : PROBLEMS;
+    }
+
+    /**
+     * Duraciones de la ultima ejecucion, para repartir los scripts.
+     *
+     * @return Vacio si no hay reporte.
+     */
+    private static Map<String, Long> readHistory(PrintStream out) {
+        final File history = new File(Settings.get("history", "results.json"));
+        if (!history.isFile()) {
+            return Map.of();
+        }
+        try {
+            return SuiteReport.read(history).getDurations();
+        } catch (IOException ex) {
+            //Se reparte por cantidad de archivos
+            out.println(ex);
+            return Map.of();
+        }
+    }
+
+    /**
+     * Junta los resultados de varias partes en un solo archivo.
+     */
+    private static int merge(File output, List<File> inputs, PrintStream out, ResourceBundle globals) {
+        final List<SuiteReport> reports = new ArrayList<>();
+        for (File input : inputs) {
+            try {
+                reports.add(SuiteReport.read(input));
+            } catch (IOException ex) {
+                out.println(globals.getString("report.err.io").replace("{0}", input.getPath()) + " " + ex);
+                return USAGE;
+            }
+        }
+        String shardsProblem = null;
+        try {
+            final List<String> missing = SuiteReport.missingShards(reports);
+            if (!missing.isEmpty()) {
+                shardsProblem = globals.getString("merge.err.missingShards").replace("{0}", String.join(", ", missing));
+            }
+        } catch (IllegalArgumentException ex) {
+            shardsProblem = globals.getString("merge.err.shards").replace("{0}", ex.getMessage());
+        }
+        final SuiteReport merged = SuiteReport.merge(reports);
+        if (shardsProblem == null) {
+            shardsProblem = coverageProblem(reports, merged, globals);
+        }
+        final int resp = printReport(merged, output, out, globals);
+        if (shardsProblem != null) {
+            out.println(shardsProblem);
+            return PROBLEMS;
+        }
+        return resp;
+    }
+
+    /**
+     * Revisa que todas las partes se repartieran igual y que el resultado
+     * tenga cada script de la carpeta una sola vez. Los reportes sin partes
+     * se juntan como antes.
+     *
+     * @return El problema; null si no hay.
+     */
+    private static String coverageProblem(List<SuiteReport> reports, SuiteReport merged, ResourceBundle globals) {
+        if (merged.getShards().isEmpty()) {
+            return null;
+        }
+        try {
+            SuiteReport.checkPlan(reports);
+        } catch (IllegalArgumentException ex) {
+            return globals.getString("merge.err.plan").replace("{0}", ex.getMessage());
+        }
+        final List<String> repeated = SuiteReport.repeatedScripts(reports);
+        if (!repeated.isEmpty()) {
+            return globals.getString("merge.err.repeated").replace("{0}", String.join(", ", repeated));
+        }
+        //Los reportes de versiones anteriores no tienen la huella ni el total
+        if (merged.getPlan() != null && merged.getEntries().size() != merged.getTotal()) {
+            return globals.getString("merge.err.total")
+                    .replace("{0}", String.valueOf(merged.getEntries().size()))
+                    .replace("{1}", String.valueOf(merged.getTotal()));
+        }
+        return null;
+    }
+
+    /**
+     * Muestra un reporte y lo guarda, si se da un archivo.
+     */
+    private static int printReport(SuiteReport merged, File output, PrintStream out, ResourceBundle globals) {
+        for (SuiteReport.Entry entry : merged.getEntries()) {
+            out.println(globals.getString(entry.isOk() ? "suite.result.ok" : "suite.result.failed")
+                    .replace("{0}", entry.getScript())
+                    .replace("{1}", String.valueOf(entry.getMillis()))
+                    .replace("{2}", String.valueOf(entry.getErrors().size())));
+            entry.getErrors().forEach(error -> out.println("    " + error));
+        }
+        out.println(globals.getString("merge.summary")
+                .replace("{0}", String.valueOf(merged.getEntries().size()))
+                .replace("{1}", String.valueOf(merged.getFailures()))
+                .replace("{2}", String.join(", ", merged.getShards()))
+                .replace("{3}", String.valueOf(merged.getMillis())));
+        if (output != null) {
+            try {
+                merged.write(output);
+                out.println(globals.getString("report.written").replace("{0}", output.getPath()));
+            } catch (IOException ex) {
+                out.println(globals.getString("report.err.io").replace("{0}", output.getPath()) + " " + ex);
+                return PROBLEMS;
+            }
+        }
+        return merged.getFailures() == 0 ? OK : PROBLEMS;
+    }
+
+    /**
+     * Muestra las instrucciones que mas tiempo pasaron esperando.
+     */
+    private static void printWaits(SuiteRunner.SuiteResult result, PrintStream out, ResourceBundle globals) {
+        final List<ExecutionContext.StepTiming> waits = result.getLongestWaits(LONGEST_WAITS);
+        if (waits.isEmpty()) {
+            return;
+        }
+        out.println(globals.getString("pause.report")
+                .replace("{0}", String.valueOf(result.getWaitedMillis())));
+        for (ExecutionContext.StepTiming wait : waits) {
+            out.println(globals.getString("pause.report.line")
+                    .replace("{0}", wait.getFile())
+                    .replace("{1}", String.valueOf(wait.getLine()))
+                    .replace("{2}", String.valueOf(wait.getWaitedNanos() / 1_000_000)));
+        }
+    }
+
+    /**
+     * Muestra las instrucciones que mas tiempo perdieron en reintentos.
+     */
+    private static void printFlakes(SuiteRunner.SuiteResult result, PrintStream out, ResourceBundle globals) {
+        final List<FlakeStats.Entry> flakes = result.getFlakes(LONGEST_WAITS);
+        if (flakes.isEmpty()) {
+            return;
+        }
+        out.println(globals.getString("flake.report"));
+        for (FlakeStats.Entry flake : flakes) {
+            out.println(globals.getString("flake.report.line")
+                    .replace("{0}", flake.getFile())
+                    .replace("{1}", String.valueOf(flake.getLine()))
+                    .replace("{2}", flake.getAction())
+                    .replace("{3}", String.valueOf(flake.getRetries()))
+                    .replace("{4}", String.valueOf(flake.getFlakyRuns()))
+                    .replace("{5}", String.valueOf(flake.getRuns()))
+                    .replace("{6}", String.valueOf(flake.getRetriedMillis())));
+        }
+    }
+}
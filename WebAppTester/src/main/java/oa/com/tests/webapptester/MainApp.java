@@ -16,6 +16,7 @@ package oa.com.tests.webapptester;
 import oa.com.tests.actionrunners.exceptions.AbstractException;
 import oa.com.tests.Utils;
 import oa.com.tests.globals.ActionRunnerManager;
+import oa.com.tests.globals.RunScheduler;
 import oa.com.tests.parser.SIDEToTesterParser;
 import java.awt.Canvas;
 import java.awt.Dimension;
@@ -42,7 +43,6 @@ import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
-import java.util.prefs.Preferences;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import javax.imageio.ImageIO;
@@ -56,8 +56,11 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTree;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
 import lombok.Data;
 import oa.com.utils.Encryption;
+import oa.com.utils.Settings;
 
 //import static javafx.application.Application.launch;
 //import javafx.fxml.FXMLLoader;
@@ -77,6 +80,14 @@ public class MainApp extends JFrame {
     private final String NEW_LINE = System.getProperty("line.separator");
     private final String LOG_NAME = "WebTester.log";
     private static Logger log = Logger.getLogger("Probador Web");
+    /**
+     * Ejecuta los scripts fuera del hilo de la interfaz.
+     */
+    private final RunScheduler scheduler = new RunScheduler(1);
+    /**
+     * Todas las ejecuciones de la interfaz, para cancelarlas juntas.
+     */
+    private final RunScheduler.Suite runs = scheduler.newSuite();
 
     public enum PROPS {
         JTREE,
@@ -105,6 +116,7 @@ public class MainApp extends JFrame {
 
             @Override
             public void windowClosing(WindowEvent e) {
+                runs.cancel();
                 ActionRunnerManager.quit();
                 System.exit(0);
             }
@@ -171,7 +183,12 @@ public class MainApp extends JFrame {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            ConsoleApp.main(args);
+            return;
+        }
         instance = new MainApp();
+        ActionRunnerManager.setBrowserListener(MainApp::setBrowser);
         instance.pack();
         instance.setVisible(true);
     }
@@ -217,7 +234,7 @@ public class MainApp extends JFrame {
                 }
                 parser.parse(SIDEfile);
                 parser.saveAll(directory);
-                rootTree.setModel(ActionRunnerManager.getTreeModel());
+                rootTree.setModel(loadTree());
                 repaint();
                 JOptionPane.showMessageDialog(this, globals.getString("parser.side.done"));
             } catch (Exception e) {
@@ -230,7 +247,7 @@ public class MainApp extends JFrame {
         reloadButton.setSize(goButton.getSize());
         reloadButton.setPreferredSize(reloadButton.getSize());
         reloadButton.addActionListener(evt -> {
-            rootTree.setModel(ActionRunnerManager.getTreeModel());
+            rootTree.setModel(loadTree());
             repaint();
         });
 
@@ -330,7 +347,7 @@ public class MainApp extends JFrame {
                 updateBrowser(true);
             }
         });
-        final String storedBrowserName = Preferences.userRoot().get("webapptester.browser", null);
+        final String storedBrowserName = Settings.get("browser", null);
         if (storedBrowserName != null) {
             final ActionRunnerManager.BROWSERTYPE storedBrowser
                     = ActionRunnerManager.BROWSERTYPE.valueOf(storedBrowserName);
@@ -338,7 +355,7 @@ public class MainApp extends JFrame {
             browserTree.setSelectedItem(globals.getString("settings.driver." + storedBrowserName + ".name"));
         }
         updateBrowser(false);
-        rootTree.setModel(ActionRunnerManager.getTreeModel());
+        rootTree.setModel(loadTree());
 //Distrubucion grafica
         setLayout(layout);
         gbc.gridwidth = 6;
@@ -413,18 +430,35 @@ public class MainApp extends JFrame {
         } catch (SecurityException ex) {
             Logger.getLogger("Probador Web").log(Level.SEVERE, null, ex);
         }
-        Thread t = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    ActionRunnerManager.exec(rootTree.getSelectionModel().getSelectionPath(), log);
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(null, ex.toString(), ERR_TITLE, JOptionPane.ERROR_MESSAGE);
-                    log.log(Level.SEVERE, null, ex);
+        final TreePath selection = rootTree.getSelectionModel().getSelectionPath();
+        //Un solo script a la vez en el navegador compartido
+        runs.submit(MainApp.class.getName(), () -> {
+            try {
+                final List<Exception> errors = ActionRunnerManager.exec(selection, log);
+                if (!errors.isEmpty()) {
+                    addException(errors.toArray(new Exception[]{}));
                 }
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(null, ex.toString(), ERR_TITLE, JOptionPane.ERROR_MESSAGE);
+                log.log(Level.SEVERE, null, ex);
             }
+            return null;
         });
-        t.start();
+    }
+
+    /**
+     * Carga el arbol de scripts, avisando si la carpeta no existia y se
+     * crea con los ejemplos.
+     *
+     * @return
+     */
+    private TreeModel loadTree() {
+        if (!new File(globals.getString("globals.actionfolder.name")).exists()) {
+            final String message = globals.getString("globals.folder.read.errNoFolder");
+            final String title = globals.getString("globals.error.title");
+            JOptionPane.showMessageDialog(null, message, title, JOptionPane.WARNING_MESSAGE);
+        }
+        return ActionRunnerManager.getTreeModel();
     }
 
     /**
@@ -445,7 +479,7 @@ public class MainApp extends JFrame {
         if (browserMatch.isPresent()) {
             final ActionRunnerManager.BROWSERTYPE resp = browserMatch.get();
             ActionRunnerManager.set(resp);
-            Preferences.userRoot().put("webapptester.browser", resp.name());
+            Settings.put("browser", resp.name());
             return resp;
         } else {
             if (withUsrMsg) {
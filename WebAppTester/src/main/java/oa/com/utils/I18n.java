@@ -13,11 +13,21 @@
  */
 package oa.com.utils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.ResourceBundle;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *
@@ -25,7 +35,12 @@ import java.util.ResourceBundle;
  */
 public class I18n {
     private static final String defaultLang="en";
-    public static final String []supportedLangs={defaultLang,"es"};
+    /**
+     * Lenguajes con archivo application_xx.properties. Para agregar uno basta
+     * con agregar el archivo.
+     */
+    public static final String []supportedLangs=findLangs("application");
+    private static final Map<String, AliasIndex> indexes = new ConcurrentHashMap<>();
     /**
      * Agrega el cdigo del lenguaje activo para la mquina virtual actual, al string
      * proporcionado como parmetro
@@ -60,23 +75,106 @@ public class I18n {
         return aliases("application",key);
     }
     /**
-     * Retorna todos los alias de una clave en un archivo de propiedades
+     * Retorna todos los alias de una clave en un archivo de propiedades, sin
+     * repetir y empezando por el lenguaje por omisin. La lista es inmutable
+     * y se calcula una sola vez por archivo.
      * @param bundleName
      * @param key
      * @return 
      */
     public static List<String> aliases(String bundleName,String key){
-        LinkedList<String> resp = new LinkedList<>();
-        for (String langCode : I18n.supportedLangs) {
-            try {
-                final ResourceBundle bundle = ResourceBundle.getBundle(bundleName+"_" + langCode);
-                if (bundle != null
-                        && bundle.containsKey(key)) {
-                    resp.add(bundle.getString(key));
+        return index(bundleName).aliases.getOrDefault(key, List.of());
+    }
+    /**
+     * Retorna las claves que tienen un alias dado en el archivo de propiedades
+     * "application".
+     * @param alias
+     * @return 
+     */
+    public static List<String> keys(String alias){
+        return keys("application",alias);
+    }
+    /**
+     * Retorna las claves que tienen un alias dado, en cualquier lenguaje.
+     * @param bundleName
+     * @param alias
+     * @return 
+     */
+    public static List<String> keys(String bundleName,String alias){
+        return index(bundleName).keys.getOrDefault(alias, List.of());
+    }
+
+    private static AliasIndex index(String bundleName){
+        return indexes.computeIfAbsent(bundleName, AliasIndex::load);
+    }
+
+    /**
+     * Busca los lenguajes para los que hay un archivo bundleName_xx.properties.
+     * @param bundleName
+     * @return El lenguaje por omisin primero y luego los dems en orden.
+     */
+    private static String[] findLangs(String bundleName){
+        final ClassLoader loader = I18n.class.getClassLoader();
+        final List<String> resp = new ArrayList<>();
+        resp.add(defaultLang);
+        for (String langCode : new TreeSet<>(Arrays.asList(Locale.getISOLanguages()))) {
+            if (!langCode.equals(defaultLang)
+                    && loader.getResource(bundleName + "_" + langCode + ".properties") != null) {
+                resp.add(langCode);
+            }
+        }
+        return resp.toArray(new String[0]);
+    }
+
+    /**
+     * Tablas de alias de un archivo de propiedades en todos sus lenguajes.
+     */
+    private static final class AliasIndex {
+        /**
+         * Clave -> alias.
+         */
+        private final Map<String, List<String>> aliases;
+        /**
+         * Alias -> claves.
+         */
+        private final Map<String, List<String>> keys;
+
+        private AliasIndex(Map<String, List<String>> aliases, Map<String, List<String>> keys) {
+            this.aliases = aliases;
+            this.keys = keys;
+        }
+
+        private static AliasIndex load(String bundleName){
+            final Map<String, Set<String>> aliases = new HashMap<>();
+            final Map<String, Set<String>> keys = new HashMap<>();
+            final String[] langs = bundleName.equals("application")
+                    ? supportedLangs
+                    : findLangs(bundleName);
+            for (String langCode : langs) {
+                final Properties props = new Properties();
+                try (InputStream in = I18n.class.getClassLoader()
+                        .getResourceAsStream(bundleName + "_" + langCode + ".properties")) {
+                    if (in == null) {
+                        continue;
+                    }
+                    props.load(in);
+                } catch (IOException ex) {
+                    Logger.getLogger("Probador Web").log(Level.WARNING, bundleName + "_" + langCode, ex);
+                    continue;
+                }
+                for (String key : props.stringPropertyNames()) {
+                    final String alias = props.getProperty(key);
+                    aliases.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(alias);
+                    keys.computeIfAbsent(alias, k -> new LinkedHashSet<>()).add(key);
                 }
-            } catch (Exception ex) {;
             }
+            return new AliasIndex(freeze(aliases), freeze(keys));
+        }
+
+        private static Map<String, List<String>> freeze(Map<String, Set<String>> map){
+            final Map<String, List<String>> resp = new HashMap<>();
+            map.forEach((k, v) -> resp.put(k, List.copyOf(v)));
+            return Map.copyOf(resp);
         }
-        return resp;
     }
 }
@@ -0,0 +1,270 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.utils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Espera a que la pagina cumpla una condicion desde la misma pagina: instala
+ * un MutationObserver y un ciclo de requestAnimationFrame con
+ * {@link JavascriptExecutor#executeAsyncScript(java.lang.String, java.lang.Object...)}
+ * y responde en cuanto se cumple, sin consultar al navegador cada cierto
+ * tiempo.
+ *
+ * @author nesto
+ */
+public final class PageWaiter {
+
+    /**
+     * Condicion que debe cumplir el elemento.
+     */
+    public enum Until {
+        /**
+         * Esta en el documento.
+         */
+        PRESENT,
+        /**
+         * Esta en el documento y se ve.
+         */
+        VISIBLE,
+        /**
+         * Se ve y esta habilitado.
+         */
+        CLICKABLE
+    }
+
+    /**
+     * Lo que se espera de la pagina. Se deben cumplir todas las partes que
+     * tengan valor.
+     */
+    public static final class Condition {
+
+        private final Map<String, Object> values = new HashMap<>();
+
+        /**
+         * Un elemento en cierto estado.
+         *
+         * @param type "css" o "xpath".
+         * @param path
+         * @param until
+         * @return
+         */
+        public Condition element(String type, String path, Until until) {
+            values.put("type", type);
+            values.put("path", path);
+            values.put("until", until.name());
+            return this;
+        }
+
+        /**
+         * Que la direccion de la pagina cumpla una expresion regular.
+         *
+         * @param pattern
+         * @return
+         */
+        public Condition url(String pattern) {
+            values.put("url", pattern);
+            return this;
+        }
+
+        /**
+         * Que document.readyState sea al menos el dado: loading, interactive
+         * o complete.
+         *
+         * @param state
+         * @return
+         */
+        public Condition readyState(String state) {
+            values.put("state", state);
+            return this;
+        }
+
+        /**
+         * Que la pagina termino de cargar y no se ha descargado ningun
+         * recurso en cierto tiempo. Solo se ven los recursos que terminan, no
+         * los que estan en curso.
+         *
+         * @param quiet
+         * @return
+         */
+        public Condition networkIdle(Duration quiet) {
+            values.put("idle", quiet.toMillis());
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return values.isEmpty();
+        }
+
+        Map<String, Object> toMap() {
+            return values;
+        }
+    }
+
+    /**
+     * Tiempo maximo de espera por omision, si no se configura el valor
+     * "wait.timeout" (en milisegundos, ver {@link Settings}).
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+    /**
+     * Cada llamada al navegador espera a lo sumo esto; las esperas mas largas
+     * se hacen en varias llamadas.
+     */
+    static final Duration SLICE = Duration.ofSeconds(30);
+    /**
+     * Margen sobre el limite de los scripts del navegador, para que el
+     * limite de la espera se cumpla primero.
+     */
+    private static final Duration SCRIPT_MARGIN = Duration.ofSeconds(2);
+    /**
+     * Pausa antes de reinstalar la espera despues de un error.
+     */
+    private static final Duration RETRY_PAUSE = Duration.ofMillis(50);
+    /**
+     * Argumentos: la condicion y el limite en milisegundos. Llama al final
+     * con true si se cumplio la condicion o false si se acabo el tiempo.
+     */
+    static final String SCRIPT
+            = "var c=arguments[0],limit=arguments[1];"
+            + "var done=arguments[arguments.length-1],finished=false,observer=null,perf=null,timer=null;"
+            + "var states=['loading','interactive','complete'];"
+            + "var resources=performance.getEntriesByType('resource');"
+            + "var lastResource=resources.length?resources[resources.length-1].responseEnd:0;"
+            + "function find(){"
+            + "if(c.type=='xpath'){return document.evaluate(c.path,document,null,"
+            + "XPathResult.FIRST_ORDERED_NODE_TYPE,null).singleNodeValue;}"
+            + "return document.querySelector(c.path);}"
+            + "function elementReady(){"
+            + "if(c.path==null){return true;}"
+            + "var el=find();"
+            + "if(el==null){return false;}"
+            + "if(c.until=='PRESENT'){return true;}"
+            + "var style=window.getComputedStyle(el);"
+            + "var visible=el.getClientRects().length>0&&style.visibility!='hidden'&&style.display!='none';"
+            + "if(c.until=='VISIBLE'){return visible;}"
+            + "return visible&&!el.disabled;}"
+            + "function ready(){"
+            + "if(c.state!=null&&states.indexOf(document.readyState)<states.indexOf(c.state)){return false;}"
+            + "if(c.url!=null&&!new RegExp(c.url).test(window.location.href)){return false;}"
+            + "if(c.idle!=null&&(document.readyState!='complete'||performance.now()-lastResource<c.idle)){return false;}"
+            + "return elementReady();}"
+            + "function finish(ok){"
+            + "if(finished){return;}"
+            + "finished=true;"
+            + "if(observer){observer.disconnect();}"
+            + "if(perf){perf.disconnect();}"
+            + "clearTimeout(timer);"
+            + "done(ok);}"
+            + "function check(){"
+            + "if(finished){return;}"
+            + "try{if(ready()){finish(true);return;}}catch(e){}"
+            + "window.requestAnimationFrame(check);}"
+            + "timer=setTimeout(function(){finish(false);},limit);"
+            + "if(c.idle!=null&&window.PerformanceObserver){"
+            + "perf=new PerformanceObserver(function(){lastResource=performance.now();});"
+            + "try{perf.observe({entryTypes:['resource']});}catch(e){}}"
+            + "observer=new MutationObserver(function(){try{if(ready()){finish(true);}}catch(e){}});"
+            + "observer.observe(document,{childList:true,subtree:true,attributes:true});"
+            + "check();";
+
+    private PageWaiter() {
+    }
+
+    /**
+     * Tiempo maximo de espera configurado.
+     *
+     * @return
+     */
+    public static Duration defaultTimeout() {
+        return Duration.ofMillis(Settings.getInt("wait.timeout", (int) DEFAULT_TIMEOUT.toMillis()));
+    }
+
+    /**
+     * Espera a que un elemento cumpla una condicion.
+     *
+     * @param driver
+     * @param type "css" o "xpath".
+     * @param path
+     * @param until
+     * @param timeout
+     * @throws TimeoutException Si se acaba el tiempo.
+     */
+    public static void waitFor(WebDriver driver, String type, String path, Until until, Duration timeout) {
+        if (!waitUntil(driver, new Condition().element(type, path, until), timeout)) {
+            throw new TimeoutException(until.name().toLowerCase() + ": " + path
+                    + " (" + timeout.toMillis() + " ms)");
+        }
+    }
+
+    /**
+     * Espera a que la pagina cumpla una condicion. Si la pagina cambia durante
+     * la espera, se vuelve a instalar en la nueva hasta que se acabe el
+     * tiempo.
+     *
+     * @param driver
+     * @param condition
+     * @param timeout
+     * @return Si se cumplio la condicion antes de que se acabara el tiempo.
+     */
+    public static boolean waitUntil(WebDriver driver, Condition condition, Duration timeout) {
+        final JavascriptExecutor js = (JavascriptExecutor) driver;
+        ensureScriptTimeout(driver, timeout.compareTo(SLICE) < 0 ? timeout : SLICE);
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        long remaining = timeout.toMillis();
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (Boolean.TRUE.equals(js.executeAsyncScript(SCRIPT, condition.toMap(),
+                        Math.min(remaining, SLICE.toMillis())))) {
+                    return true;
+                }
+            } catch (WebDriverException ex) {
+                //Se recargo la pagina o todavia no hay documento
+                LockSupport.parkNanos(RETRY_PAUSE.toNanos());
+            }
+            remaining = Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+        }
+        return false;
+    }
+
+    /**
+     * Sube el limite de los scripts asincronos del navegador si es menor que
+     * la espera.
+     *
+     * @param driver
+     * @param timeout
+     */
+    private static void ensureScriptTimeout(WebDriver driver, Duration timeout) {
+        final WebDriver.Options options = driver.manage();
+        if (options == null || options.timeouts() == null) {
+            return;
+        }
+        try {
+            final WebDriver.Timeouts timeouts = options.timeouts();
+            final Duration needed = timeout.plus(SCRIPT_MARGIN);
+            final Duration current = timeouts.getScriptTimeout();
+            if (current == null || current.compareTo(needed) < 0) {
+                timeouts.scriptTimeout(needed);
+            }
+        } catch (UnsupportedOperationException | WebDriverException ex) {
+            //Se deja el que tenga
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.utils;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
+/**
+ * Opciones de configuracion. Cada opcion se busca primero como propiedad del
+ * sistema (-Dwebapptester.xxx=...), luego en las preferencias del usuario y
+ * si no esta se usa el valor por omision.
+ *
+ * @author nesto
+ */
+public final class Settings {
+
+    /**
+     * Prefijo de todas las opciones.
+     */
+    public static final String PREFIX = "webapptester.";
+
+    private Settings() {
+    }
+
+    /**
+     * Valor de una opcion.
+     *
+     * @param name Nombre sin el prefijo, por ejemplo "browser".
+     * @param def Valor por omision.
+     * @return
+     */
+    public static String get(String name, String def) {
+        final String key = PREFIX + name;
+        final String resp = System.getProperty(key);
+        if (resp != null) {
+            return resp;
+        }
+        return Preferences.userRoot().get(key, def);
+    }
+
+    /**
+     * Valor entero de una opcion. Si no es un numero se usa el valor por
+     * omision.
+     *
+     * @param name
+     * @param def
+     * @return
+     */
+    public static int getInt(String name, int def) {
+        final String value = get(name, null);
+        if (value == null) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            Logger.getLogger("Probador Web").log(Level.WARNING, PREFIX + name, ex);
+            return def;
+        }
+    }
+
+    /**
+     * Guarda una opcion en las preferencias del usuario.
+     *
+     * @param name
+     * @param value
+     */
+    public static void put(String name, String value) {
+        Preferences.userRoot().put(PREFIX + name, value);
+    }
+}
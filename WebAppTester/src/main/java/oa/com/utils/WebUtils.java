@@ -16,8 +16,11 @@ package oa.com.utils;
 import java.time.Duration;
 import java.util.List;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
@@ -27,7 +30,62 @@ import org.openqa.selenium.support.ui.WebDriverWait;
  */
 public class WebUtils {
 
+    /**
+     * Funcion de JavaScript xpath(el) que retorna una ruta xpath para un
+     * elemento. Parte del ancestro mas cercano con un id unico en la pagina
+     * (//*[@id='...']); si no hay, desde /html[1]. Cada paso lleva la
+     * posicion del elemento entre sus hermanos con la misma etiqueta. Las
+     * literales van entre comillas simples para poder usar la ruta dentro
+     * del JSON de un selector.
+     */
+    public static final String XPATH_FUNCTION
+            = "function xpath(el){"
+            + "var p='',html='http://www.w3.org/1999/xhtml';"
+            + "for(;el&&el.nodeType==1;el=el.parentNode){"
+            + "var id=el.getAttribute('id');"
+            + "if(id&&id.indexOf(\"'\")<0&&document.evaluate(\"count(//*[@id='\"+id+\"'])\",document,null,"
+            + "XPathResult.NUMBER_TYPE,null).numberValue==1){return \"//*[@id='\"+id+\"']\"+p;}"
+            + "var i=1;"
+            + "for(var s=el.previousElementSibling;s;s=s.previousElementSibling){"
+            + "if(s.localName==el.localName&&s.namespaceURI==el.namespaceURI){i++;}}"
+            + "var step=el.namespaceURI==html||el.namespaceURI==null?el.localName.toLowerCase()"
+            + ":\"*[local-name()='\"+el.localName+\"']\";"
+            + "p='/'+step+'['+i+']'+p;}"
+            + "return p;}";
+
+    /**
+     * Ruta xpath de un elemento, calculada en el navegador en una sola
+     * llamada (ver {@link #XPATH_FUNCTION}). Si no se puede usar JavaScript,
+     * se calcula desde aqui con {@link #generatePositionalXPATH(WebElement)}.
+     *
+     * @param childElement
+     * @return
+     */
     public static String generateXPATH(WebElement childElement) {
+        final WebDriver driver = childElement instanceof WrapsDriver
+                ? ((WrapsDriver) childElement).getWrappedDriver() : null;
+        if (driver instanceof JavascriptExecutor) {
+            try {
+                final Object resp = ((JavascriptExecutor) driver)
+                        .executeScript(XPATH_FUNCTION + "return xpath(arguments[0]);", childElement);
+                if (resp instanceof String) {
+                    return (String) resp;
+                }
+            } catch (WebDriverException ex) {
+                //Se calcula de la otra forma
+            }
+        }
+        return generatePositionalXPATH(childElement);
+    }
+
+    /**
+     * Ruta xpath desde /html[1], subiendo por los padres del elemento. Hace
+     * varias llamadas al navegador por cada nivel.
+     *
+     * @param childElement
+     * @return
+     */
+    public static String generatePositionalXPATH(WebElement childElement) {
         return generateXPATH(childElement, "");
     }
     private static String generateXPATH(WebElement childElement, String current) {
@@ -51,45 +109,6 @@ public class WebUtils {
         return null;
     }
     
-  /*  public static String getXpath(WebDriver driver, WebElement selectedElem) {
-        String function = "function createXPathFromElement(elm) { \n"
-                + "    var allNodes = document.getElementsByTagName('*'); \n"
-                + "    for (var segs = []; elm && elm.nodeType == 1; elm = elm.parentNode) \n"
-                + "    { \n"
-                + "        if (elm.hasAttribute('id')) { \n"
-                + "                var uniqueIdCount = 0; \n"
-                + "                for (var n=0;n < allNodes.length;n++) { \n"
-                + "                    if (allNodes[n].hasAttribute('id') && allNodes[n].id == elm.id) uniqueIdCount++; \n"
-                + "                    if (uniqueIdCount > 1) break; \n"
-                + "                }; \n"
-                + "                if ( uniqueIdCount == 1) { \n"
-                + "                    segs.unshift('id(\"' + elm.getAttribute('id') + '\")'); \n"
-                + "                    return segs.join('/'); \n"
-                + "                } else { \n"
-                + "                    segs.unshift(elm.localName.toLowerCase() + '[@id=\"' + elm.getAttribute('id') + '\"]'); \n"
-                + "                } \n"
-                + "        } else if (elm.hasAttribute('class')) { \n"
-                + "            segs.unshift(elm.localName.toLowerCase() + '[@class=\"' + elm.getAttribute('class') + '\"]'); \n"
-                + "        } else { \n"
-                + "            for (i = 1, sib = elm.previousSibling; sib; sib = sib.previousSibling) { \n"
-                + "                if (sib.localName == elm.localName)  i++; }; \n"
-                + "                segs.unshift(elm.localName.toLowerCase() + '[' + i + ']'); \n"
-                + "        }; \n"
-                + "    }; \n"
-                + "    return segs.length ? '/' + segs.join('/') : null; \n"
-                + "}; \n"
-                + "\n"
-                + "function lookupElementByXPath(path) { \n"
-                + "    var evaluator = new XPathEvaluator(); \n"
-                + "    var result = evaluator.evaluate(path, document.documentElement, null,XPathResult.FIRST_ORDERED_NODE_TYPE, null); \n"
-                + "    return  result.singleNodeValue; \n"
-                + "} "
-                + "return createXPathFromElement(arguments[0]);";
-            JavascriptExecutor js = (JavascriptExecutor) driver;
-            final Object result = js.executeScript(function, selectedElem);
-            return (String) result;
-    }*/
-
     public static void waitToBeClickable(WebDriver driver, final WebElement elem) {
         WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
         wait.until(ExpectedConditions.elementToBeClickable(elem));
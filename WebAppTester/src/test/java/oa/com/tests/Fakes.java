@@ -0,0 +1,128 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Navegadores y elementos falsos para las pruebas que no abren un navegador.
+ * Son proxies que comparan por identidad y pasan el resto de llamadas a un
+ * {@link Handler}.
+ *
+ * @author nesto
+ */
+public final class Fakes {
+
+    /**
+     * Responde las llamadas a un falso.
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * @param proxy El falso.
+         * @param method Nombre del metodo llamado.
+         * @param args Argumentos; vacio si no tiene.
+         * @return La respuesta; null para lo que no se atiende.
+         * @throws Throwable
+         */
+        Object invoke(Object proxy, String method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Un falso que no hace nada.
+     */
+    public static final Handler NOTHING = (proxy, method, args) -> null;
+
+    private Fakes() {
+    }
+
+    /**
+     * Un falso de una interfaz, y de las otras que se den.
+     *
+     * @param <T>
+     * @param type
+     * @param handler
+     * @param others
+     * @return
+     */
+    public static <T> T fake(Class<T> type, Handler handler, Class<?>... others) {
+        final Class<?>[] types = Arrays.copyOf(new Class<?>[]{type}, others.length + 1);
+        System.arraycopy(others, 0, types, 1, others.length);
+        return type.cast(Proxy.newProxyInstance(Fakes.class.getClassLoader(), types, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + "@" + System.identityHashCode(proxy);
+                default:
+                    return handler.invoke(proxy, method.getName(), args == null ? new Object[0] : args);
+            }
+        }));
+    }
+
+    /**
+     * Un navegador que no hace nada.
+     *
+     * @return
+     */
+    public static WebDriver driver() {
+        return driver(NOTHING);
+    }
+
+    /**
+     * Un navegador que responde con {@code handler}.
+     *
+     * @param handler
+     * @return
+     */
+    public static WebDriver driver(Handler handler) {
+        return fake(WebDriver.class, handler);
+    }
+
+    /**
+     * Un navegador que tambien ejecuta JavaScript.
+     *
+     * @param handler
+     * @return
+     */
+    public static WebDriver scriptDriver(Handler handler) {
+        return fake(WebDriver.class, handler, JavascriptExecutor.class);
+    }
+
+    /**
+     * Un elemento que no hace nada.
+     *
+     * @return
+     */
+    public static WebElement element() {
+        return element(NOTHING);
+    }
+
+    /**
+     * Un elemento que responde con {@code handler}.
+     *
+     * @param handler
+     * @return
+     */
+    public static WebElement element(Handler handler) {
+        return fake(WebElement.class, handler);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class UtilsTest {
+
+    private File touch(File file) throws IOException {
+        assertTrue(file.createNewFile());
+        return file;
+    }
+
+    @Test
+    public void testFolderRunnableFiles() throws IOException {
+        File root = Files.createTempDirectory("WebAppTest").toFile().getAbsoluteFile();
+        File suite = new File(root, "suite");
+        File sub = new File(suite, "sub");
+        assertTrue(sub.mkdirs());
+        File rootStart = touch(new File(root, "_start.txt"));
+        File rootEnd = touch(new File(root, "_end.txt"));
+        File start = touch(new File(suite, "_start.txt"));
+        File end = touch(new File(suite, "_end.txt"));
+        File a = touch(new File(suite, "a.txt"));
+        File b = touch(new File(suite, "b.txt"));
+        File subEnd = touch(new File(sub, "_end.txt"));
+        File c = touch(new File(sub, "c.txt"));
+        touch(new File(sub, "notes.md"));
+
+        assertArrayEquals(new File[]{rootStart, start, a, b, c, subEnd, end, rootEnd},
+                Utils.getFolderRunnableFiles(root, suite, false).toArray());
+        assertArrayEquals(new File[]{rootStart, start, a, end, rootEnd,
+            rootStart, start, b, end, rootEnd,
+            rootStart, start, c, subEnd, end, rootEnd},
+                Utils.getFolderRunnableFiles(root, suite, true).toArray());
+        assertArrayEquals(new File[]{rootStart, start, a, b, c, subEnd, end, rootEnd},
+                Utils.getFolderRunnableFiles(root, root, false).toArray());
+        assertThrows(IllegalArgumentException.class,
+                () -> Utils.getFolderRunnableFiles(suite, root, false));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actions;
+
+import java.time.Duration;
+import oa.com.tests.actionrunners.interfaces.PathKeeper.SearchTypes;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class ActionArgumentsTest {
+
+    @Test
+    public void testAliases() {
+        ActionArguments en = new TestAction("write", "{\"selector\":\"#a\",\"text\":\"hola\"}").getArguments();
+        ActionArguments es = new TestAction("escribir", "{\"selector\":\"#a\",\"texto\":\"hola\"}").getArguments();
+        assertTrue(en.isJSON());
+        assertEquals("hola", en.getString("WriteActionRunner.attr.text"));
+        assertEquals("hola", es.getString("WriteActionRunner.attr.text"));
+        assertNull(es.getString("PickChoiceActionRunner.attr.title"));
+        assertEquals("x", es.getString("PickChoiceActionRunner.attr.title", "x"));
+    }
+
+    @Test
+    public void testTypes() {
+        ActionArguments args = ActionArguments.parse("{\"x\":10,\"y\":\"-5\","
+                + "\"orden alfabetico\":\"si\",\"tipo\":\"xpath\",\"tiempo\":\"3s\"}");
+        assertEquals(10, args.getInt("ScrollActionRunner.attr.x", 0));
+        assertEquals(-5, args.getInt("ScrollActionRunner.attr.y", 0));
+        assertTrue(args.getBoolean("PickChoiceActionRunner.attr.sorted", false));
+        assertEquals(SearchTypes.XPATH,
+                args.getEnum("CssSelectorActionRunner.attr.type",
+                        SearchTypes.class));
+        assertEquals(Duration.ofSeconds(3), args.getDuration("PauseActionRunner.attr.time"));
+    }
+
+    @Test
+    public void testNotJSON() {
+        ActionArguments args = new TestAction("go", "{https://duckduckgo.com/}").getArguments();
+        assertFalse(args.isJSON());
+        assertNull(args.getString("WriteActionRunner.attr.text"));
+    }
+}
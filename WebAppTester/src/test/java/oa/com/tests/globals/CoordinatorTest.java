@@ -0,0 +1,150 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import oa.com.tests.Utils;
+import static org.junit.jupiter.api.Assertions.*;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class CoordinatorTest {
+
+    private static final Duration HEARTBEAT = Duration.ofMillis(50);
+    /**
+     * Largo para que ningun trabajador vivo se de por muerto; los callados se
+     * cierran con {@link Coordinator#closeSilent(long)}.
+     */
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    /**
+     * Un trabajador que tarda un tiempo dado en cada script.
+     */
+    private Worker worker(int port, String name, long millis) {
+        return new Worker("localhost", port, name, 1, HEARTBEAT, script -> {
+            Thread.sleep(millis);
+            return new SuiteReport.Entry(script, !script.startsWith("bad"), millis, List.of());
+        }, Utils.getLogger());
+    }
+
+    /**
+     * Toma un script y no lo termina: se desconecta, o se queda callado si
+     * silent.
+     */
+    private WorkProtocol takeOne(int port, boolean silent) throws IOException {
+        WorkProtocol lane = new WorkProtocol(new Socket("localhost", port));
+        lane.send(WorkProtocol.message(WorkProtocol.NEXT));
+        JSONObject reply = lane.receive();
+        assertEquals(WorkProtocol.SCRIPT, WorkProtocol.type(reply));
+        if (!silent) {
+            lane.close();
+        }
+        return lane;
+    }
+
+    /**
+     * Espera a que el coordinador note que se cayeron los trabajadores.
+     */
+    private void awaitReassignments(Coordinator coordinator, int count) throws InterruptedException {
+        for (int i = 0; i < 500 && coordinator.getReassignments() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, coordinator.getReassignments());
+    }
+
+    @Test
+    public void testDistribute() throws Exception {
+        List<String> scripts = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            scripts.add((i == 5 ? "bad" : "script") + i + ".txt");
+        }
+        try (Coordinator coordinator = new Coordinator(0, scripts, TIMEOUT, Utils.getLogger()).start();
+                ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            int port = coordinator.getPort();
+            takeOne(port, false);
+            awaitReassignments(coordinator, 1);
+            WorkProtocol silent = takeOne(port, true);
+            //Como si hubiera pasado el tiempo limite sin latidos
+            coordinator.closeSilent(System.nanoTime() + TIMEOUT.toNanos() + 1);
+            awaitReassignments(coordinator, 2);
+            Future<Integer> fast = threads.submit(() -> worker(port, "fast", 5).run());
+            Future<Integer> slow = threads.submit(() -> worker(port, "slow", 200).run());
+
+            SuiteReport report = coordinator.await();
+            assertEquals(12, report.getEntries().size());
+            assertEquals(1, report.getFailures());
+            assertEquals(2, coordinator.getReassignments());
+            assertEquals(List.of("fast", "slow"), report.getShards().stream().sorted().toList());
+            assertTrue(fast.get() > slow.get(), () -> fast + " " + slow);
+            assertEquals(12, fast.get() + slow.get());
+            silent.close();
+        }
+    }
+
+    @Test
+    public void testGiveUp() throws Exception {
+        try (Coordinator coordinator = new Coordinator(null, 0, List.of("a.txt"), TIMEOUT, 1,
+                Utils.getLogger()).start()) {
+            takeOne(coordinator.getPort(), false);
+            awaitReassignments(coordinator, 1);
+            takeOne(coordinator.getPort(), false);
+            SuiteReport report = coordinator.await();
+            assertEquals(1, coordinator.getReassignments());
+            assertEquals(1, report.getFailures());
+            assertEquals("a.txt", report.getEntries().get(0).getScript());
+            assertEquals(1, report.getEntries().get(0).getErrors().size());
+        }
+    }
+
+    @Test
+    public void testUnexpectedResults() throws Exception {
+        try (Coordinator coordinator = new Coordinator(0, List.of("a.txt", "b.txt"), TIMEOUT,
+                Utils.getLogger()).start()) {
+            WorkProtocol rogue = new WorkProtocol(new Socket("localhost", coordinator.getPort()));
+            //Ni pedidos ni de la ejecucion: no pueden terminarla
+            for (String script : List.of("bogus.txt", "other.txt", "a.txt", "b.txt")) {
+                JSONObject result = SuiteReport.toJSON(new SuiteReport.Entry(script, false, 1, List.of("rogue")));
+                result.put("type", WorkProtocol.RESULT);
+                rogue.send(result);
+            }
+            WorkProtocol lane = new WorkProtocol(new Socket("localhost", coordinator.getPort()));
+            lane.send(WorkProtocol.message(WorkProtocol.NEXT));
+            JSONObject reply = lane.receive();
+            assertEquals(WorkProtocol.SCRIPT, WorkProtocol.type(reply));
+            assertEquals("a.txt", reply.get("script"));
+            JSONObject result = SuiteReport.toJSON(new SuiteReport.Entry("a.txt", true, 5, List.of()));
+            result.put("type", WorkProtocol.RESULT);
+            lane.send(result);
+            //Solo queda b.txt
+            assertEquals(1, worker(coordinator.getPort(), "ok", 5).run());
+
+            SuiteReport report = coordinator.await();
+            assertEquals(2, report.getEntries().size());
+            assertEquals(0, report.getFailures());
+            rogue.close();
+            lane.close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import oa.com.tests.Fakes;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+/**
+ *
+ * @author nesto
+ */
+public class DriverPoolTest {
+
+    private final AtomicInteger quit = new AtomicInteger();
+    private final Set<WebDriver> broken = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+
+    /**
+     * Un navegador que no hace nada.
+     */
+    private WebDriver fakeDriver() {
+        return Fakes.driver((proxy, method, args) -> {
+            if (method.equals("quit")) {
+                quit.incrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    private DriverPool.Builder builder(int size) {
+        return DriverPool.builder(ActionRunnerManager.BROWSERTYPE.CHROME)
+                .size(size)
+                .warm(false)
+                .factory(this::fakeDriver)
+                .healthCheck(driver -> {
+                    if (broken.contains(driver)) {
+                        throw new WebDriverException("broken");
+                    }
+                })
+                .reset(driver -> {
+                });
+    }
+
+    @Test
+    public void testReuseAndRecycle() throws InterruptedException {
+        try (DriverPool pool = builder(1).maxUses(2).build()) {
+            WebDriver first = pool.lease();
+            pool.release(first);
+            assertSame(first, pool.lease());
+            //Segundo uso: se cierra
+            pool.release(first);
+            WebDriver second = pool.lease();
+            assertNotSame(first, second);
+            assertEquals(1, quit.get());
+            pool.release(second);
+            DriverPool.Stats stats = pool.getStats();
+            assertEquals(2, stats.getLaunches());
+            assertEquals(1, stats.getReuses());
+            assertEquals(2, stats.getResets());
+            assertEquals(1, stats.getEvictions());
+        }
+        assertEquals(2, quit.get());
+    }
+
+    @Test
+    public void testHealthCheck() throws InterruptedException {
+        try (DriverPool pool = builder(1).build()) {
+            WebDriver first = pool.lease();
+            pool.release(first);
+            broken.add(first);
+            WebDriver second = pool.lease();
+            assertNotSame(first, second);
+            assertEquals(1, pool.getStats().getEvictions());
+            pool.release(second);
+        }
+    }
+
+    @Test
+    public void testFailedReset() throws InterruptedException {
+        try (DriverPool pool = builder(1).reset(driver -> {
+            throw new WebDriverException("reset");
+        }).build()) {
+            WebDriver first = pool.lease();
+            pool.release(first);
+            assertEquals(1, quit.get());
+            assertEquals(0, pool.getStats().getResets());
+            assertNotSame(first, pool.lease());
+        }
+    }
+
+    @Test
+    public void testWarmUp() throws InterruptedException {
+        DriverPool pool = builder(3).warm(true).build();
+        for (int i = 0; i < 50 && pool.getStats().getLaunches() < 3; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(3, pool.getStats().getLaunches());
+        pool.lease();
+        assertEquals(1, pool.getStats().getReuses());
+        pool.close();
+        assertEquals(2, quit.get());
+    }
+
+    @Test
+    public void testResetState() {
+        List<String> calls = new ArrayList<>();
+        String[] window = {"main"};
+        WebDriver.TargetLocator[] locator = {null};
+        WebDriver driver = Fakes.fake(WebDriver.class, (proxy, method, args) -> {
+            switch (method) {
+                case "getWindowHandles":
+                    return new LinkedHashSet<>(List.of("main", "popup"));
+                case "switchTo":
+                    return locator[0];
+                case "close":
+                    calls.add("close " + window[0]);
+                    return null;
+                case "executeCdpCommand":
+                    calls.add(args[0] + " " + (args[0].equals("Storage.clearDataForOrigin")
+                            ? ((Map<?, ?>) args[1]).get("origin") : window[0]));
+                    if (args[0].equals("Page.getNavigationHistory")) {
+                        return window[0].equals("main")
+                                ? Map.of("entries", List.of(Map.of("url", "https://a.com/login"),
+                                        Map.of("url", "http://b.com:8080/x?y=1"), Map.of("url", "about:blank"),
+                                        Map.of("url", "https://a.com/home")))
+                                : Map.of("entries", List.of(Map.of("url", "https://popup.com/")));
+                    }
+                    if (args[0].equals("Page.getFrameTree") && window[0].equals("main")) {
+                        return Map.of("frameTree", Map.of("frame", Map.of("url", "https://a.com/home"),
+                                "childFrames", List.of(Map.of("frame", Map.of("url", "https://pay.com/widget")))));
+                    }
+                    return Map.of();
+                case "get":
+                    calls.add("get " + args[0]);
+                    return null;
+                default:
+                    return null;
+            }
+        }, HasCdp.class);
+        locator[0] = Fakes.fake(WebDriver.TargetLocator.class, (p, m, a) -> {
+            window[0] = (String) a[0];
+            return driver;
+        });
+        DriverPool.resetState(driver);
+        assertEquals(List.of("Page.getNavigationHistory popup",
+                "Page.getFrameTree popup",
+                "close popup",
+                "Page.getNavigationHistory main",
+                "Page.getFrameTree main",
+                "Storage.clearDataForOrigin https://popup.com",
+                "Storage.clearDataForOrigin https://a.com",
+                "Storage.clearDataForOrigin http://b.com:8080",
+                "Storage.clearDataForOrigin https://pay.com",
+                "Network.clearBrowserCookies main",
+                "get about:blank"), calls);
+        //Sin DevTools no se puede limpiar todo: el pool lo cierra
+        assertThrows(UnsupportedOperationException.class, () -> DriverPool.resetState(fakeDriver()));
+    }
+}
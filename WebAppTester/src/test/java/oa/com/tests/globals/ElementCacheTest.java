@@ -0,0 +1,114 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ *
+ * @author nesto
+ */
+public class ElementCacheTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    /**
+     * Cuantas veces mas el elemento responde que ya no esta en la pagina.
+     */
+    private final AtomicInteger stale = new AtomicInteger();
+
+    private File write(String content) throws IOException {
+        File file = File.createTempFile("WebAppTest", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.append(content);
+        }
+        return file;
+    }
+
+    private WebElement fakeElement() {
+        return Fakes.element((proxy, method, args) -> {
+            if (method.equals("sendKeys") && stale.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new StaleElementReferenceException("stale");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Un navegador que cuenta las busquedas.
+     */
+    private WebDriver fakeDriver() {
+        return Fakes.driver((proxy, method, args) -> {
+            if (method.equals("findElement")) {
+                lookups.incrementAndGet();
+                return fakeElement();
+            }
+            return null;
+        });
+    }
+
+    private List<Exception> run(ExecutionContext context, String script) throws IOException, InvalidVarNameException {
+        return ActionRunnerManager.newSession(context).exec(write(script));
+    }
+
+    @Test
+    public void testRepeatedLookups() throws IOException, InvalidVarNameException {
+        ExecutionContext context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver()).build();
+        List<Exception> errors = run(context, "write={\"selector\":\"#user\",\"text\":\"a\"}\n"
+                + "write={\"selector\":\"#user\",\"text\":\"b\"}\n"
+                + "write={\"selector\":\"#pass\",\"text\":\"c\"}");
+        assertTrue(errors.isEmpty(), errors::toString);
+        assertEquals(2, lookups.get());
+        ElementCache.Stats stats = context.getElementCache().getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    public void testGoInvalidates() throws IOException, InvalidVarNameException {
+        ExecutionContext context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver()).build();
+        List<Exception> errors = run(context, "write={\"selector\":\"#user\",\"text\":\"a\"}\n"
+                + "go={http://localhost/}\n"
+                + "write={\"selector\":\"#user\",\"text\":\"b\"}");
+        assertTrue(errors.isEmpty(), errors::toString);
+        assertEquals(2, lookups.get());
+        assertEquals(1, context.getElementCache().getEpoch());
+    }
+
+    @Test
+    public void testStaleElement() throws IOException, InvalidVarNameException {
+        ExecutionContext context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver()).build();
+        run(context, "write={\"selector\":\"#user\",\"text\":\"a\"}");
+        stale.set(1);
+        List<Exception> errors = run(context, "write={\"selector\":\"#user\",\"text\":\"b\"}");
+        assertTrue(errors.isEmpty(), errors::toString);
+        //Se volvio a buscar despues del error
+        assertEquals(2, lookups.get());
+        assertEquals(1, context.getElementCache().getEpoch());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+/**
+ *
+ * @author nesto
+ */
+public class ElementPrefetcherTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger scripts = new AtomicInteger();
+
+    private File write(String content) throws IOException {
+        File file = File.createTempFile("WebAppTest", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.append(content);
+        }
+        return file;
+    }
+
+    /**
+     * Un navegador donde estan todos los elementos menos #missing.
+     */
+    private WebDriver fakeDriver() {
+        return Fakes.scriptDriver((proxy, method, args) -> {
+            switch (method) {
+                case "findElement":
+                    lookups.incrementAndGet();
+                    return Fakes.element();
+                case "executeScript":
+                    scripts.incrementAndGet();
+                    List<Object> resp = new ArrayList<>();
+                    for (Object item : (List<?>) ((Object[]) args[1])[0]) {
+                        resp.add("#missing".equals(((Map<?, ?>) item).get("path")) ? null : Fakes.element());
+                    }
+                    return resp;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private ExecutionContext context(int prefetch) {
+        return ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver())
+                .fastMode(false)
+                .prefetch(prefetch).build();
+    }
+
+    @Test
+    public void testPrefetch() throws IOException, InvalidVarNameException {
+        ExecutionContext context = context(5);
+        List<Exception> errors = ActionRunnerManager.newSession(context).exec(write(
+                "write={\"selector\":\"#user\",\"text\":\"a\"}\n"
+                + "write={\"selector\":\"#pass\",\"text\":\"b\"}\n"
+                + "write={\"selector\":\"#missing\",\"text\":\"c\"}\n"
+                + "write={\"selector\":\"#user\",\"text\":\"d\"}"));
+        assertTrue(errors.isEmpty(), errors::toString);
+        assertEquals(1, scripts.get());
+        //Solo el que no estaba se busco aparte
+        assertEquals(1, lookups.get());
+        ElementCache.Stats stats = context.getElementCache().getStats();
+        assertEquals(1, stats.getPrefetches());
+        assertEquals(2, stats.getPrefetchHits());
+        assertEquals(1, stats.getSavedRoundTrips());
+    }
+
+    @Test
+    public void testStopsAtNavigation() throws IOException, InvalidVarNameException {
+        ExecutionContext context = context(5);
+        ActionRunnerManager.newSession(context).exec(write(
+                "write={\"selector\":\"#user\",\"text\":\"a\"}\n"
+                + "go={http://localhost/}\n"
+                + "write={\"selector\":\"#pass\",\"text\":\"b\"}"));
+        assertEquals(0, scripts.get());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testDisabled() throws IOException, InvalidVarNameException {
+        ExecutionContext context = context(0);
+        ActionRunnerManager.newSession(context).exec(write(
+                "write={\"selector\":\"#user\",\"text\":\"a\"}\n"
+                + "write={\"selector\":\"#pass\",\"text\":\"b\"}"));
+        assertEquals(0, scripts.get());
+        assertEquals(2, lookups.get());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+/**
+ *
+ * @author nesto
+ */
+public class ExecutionContextTest {
+
+    private File write(String content) throws IOException {
+        File file = File.createTempFile("WebAppTest", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.append(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void testIsolatedRuns() throws IOException, InvalidVarNameException {
+        ExecutionContext first = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, Fakes.driver()).build();
+        ExecutionContext second = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, Fakes.driver()).build();
+        ActionRunnerManager.newSession(first).exec(write("set={\"name\":\"user\",\"value\":\"nesto\"}\n"
+                + "set={\"name\":\"copy\",\"value\":\"[:user]\"}"));
+        ActionRunnerManager.newSession(second).exec(write("set={\"name\":\"user\",\"value\":\"otro\"}"));
+        assertEquals("nesto", first.resolve("copy"));
+        assertEquals("otro", second.resolve("user"));
+        assertThrows(InvalidVarNameException.class, () -> second.resolve("copy"));
+        List<ExecutionContext.StepTiming> timings = first.getTimings();
+        assertEquals(2, timings.size());
+        assertEquals(2, timings.get(1).getLine());
+    }
+
+    @Test
+    public void testCancel() throws IOException, InvalidVarNameException {
+        CancellationToken token = new CancellationToken();
+        ExecutionContext context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, Fakes.driver())
+                .cancellation(token).build();
+        token.cancel();
+        ActionRunnerManager.newSession(context).exec(write("set={\"name\":\"user\",\"value\":\"nesto\"}"));
+        assertTrue(context.getTimings().isEmpty());
+        assertNull(context.getVariable("user"));
+    }
+
+    @Test
+    public void testSwapBrowser() throws IOException, InvalidVarNameException {
+        WebDriver firefox = Fakes.driver();
+        ExecutionContext context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, Fakes.driver())
+                .switcher((ctx, btype) -> {
+                    assertEquals(ActionRunnerManager.BROWSERTYPE.FIREFOX, btype);
+                    return firefox;
+                }).build();
+        List<Exception> errors = ActionRunnerManager.newSession(context).exec(write("browser={FIREFOX}"));
+        assertTrue(errors.isEmpty(), errors::toString);
+        assertSame(firefox, context.getDriver());
+        assertEquals(ActionRunnerManager.BROWSERTYPE.FIREFOX, context.getBrowserType());
+    }
+
+    @Test
+    public void testTimingsAreBounded() {
+        ExecutionContext context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, Fakes.driver()).build();
+        for (int line = 1; line <= ExecutionContext.MAX_TIMINGS + 5; line++) {
+            context.record("largo.txt", line, "go", 1);
+        }
+        List<ExecutionContext.StepTiming> timings = context.getTimings();
+        assertEquals(ExecutionContext.MAX_TIMINGS, timings.size());
+        assertEquals(6, timings.get(0).getLine());
+        assertEquals(ExecutionContext.MAX_TIMINGS + 5, timings.get(timings.size() - 1).getLine());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.logging.Logger;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import oa.com.tests.actionrunners.annotations.ProvidedActions;
+import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.ActionRunnerProvider;
+import oa.com.tests.actionrunners.interfaces.PluginRunner;
+import oa.com.tests.actions.TestAction;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+/**
+ *
+ * @author nesto
+ */
+public class PluginLoaderTest {
+
+    @Test
+    public void testClasspathProvider() throws Exception {
+        final ClassLoader loader = getClass().getClassLoader();
+        RunnerRegistry registry = builderWithPlugins(loader, new File("no-existe")).build();
+        final RunnerRegistry.Entry entry = registry.find("Saludar");
+        assertNotNull(entry);
+        assertEquals(PluginActionRunner.class, entry.getType());
+        //Aun no se ha creado el proveedor
+        assertEquals(0, GreetingProvider.instances);
+        AbstractDefaultScriptActionRunner runner = registry.create(new TestAction("saludar={\"a\":1}"));
+        assertTrue(runner instanceof PluginActionRunner);
+        runner.run(null, Logger.getLogger("Probador Web"));
+        registry.create(new TestAction("greet={}"));
+        assertEquals(1, GreetingProvider.instances);
+        assertEquals("{\"a\":1}", GreetingProvider.lastCommand);
+        assertNull(registry.create(new TestAction("hello={}")));
+    }
+
+    @Test
+    public void testJarProvider() throws Exception {
+        final Path dir = Files.createTempDirectory("plugins");
+        final Path src = Files.createTempDirectory("plugin-src");
+        final Path source = src.resolve("acme/JarProvider.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, "package acme;\n"
+                + "@oa.com.tests.actionrunners.annotations.ProvidedActions(\"desde jar\")\n"
+                + "public class JarProvider implements oa.com.tests.actionrunners.interfaces.ActionRunnerProvider {\n"
+                + "  public oa.com.tests.actionrunners.interfaces.PluginRunner create(String name, String command) {\n"
+                + "    return (driver, log) -> System.setProperty(\"acme.ran\", command);\n"
+                + "  }\n"
+                + "}\n");
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final String classpath = location(ActionRunnerProvider.class) + File.pathSeparator
+                + location(WebDriver.class);
+        assertEquals(0, compiler.run(null, null, null, "-cp", classpath, "-d", src.toString(), source.toString()));
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(dir.resolve("acme.jar").toFile()))) {
+            jar.putNextEntry(new JarEntry("acme/JarProvider.class"));
+            jar.write(Files.readAllBytes(src.resolve("acme/JarProvider.class")));
+            jar.putNextEntry(new JarEntry("META-INF/services/" + ActionRunnerProvider.class.getName()));
+            jar.write("acme.JarProvider\n".getBytes(StandardCharsets.UTF_8));
+        }
+        final RunnerRegistry.Builder builder = RunnerRegistry.builder();
+        final List<URLClassLoader> loaders = PluginLoader.addPlugins(builder, getClass().getClassLoader(), dir.toFile());
+        assertEquals(1, loaders.size());
+        RunnerRegistry registry = builder.build();
+        assertEquals("acme.JarProvider", registry.find("desde jar").getClassName());
+        registry.create(new TestAction("desde jar={x}")).run(null, Logger.getLogger("Probador Web"));
+        assertEquals("{x}", System.getProperty("acme.ran"));
+        for (URLClassLoader loader : loaders) {
+            loader.close();
+        }
+    }
+
+    private RunnerRegistry.Builder builderWithPlugins(ClassLoader loader, File dir) {
+        final RunnerRegistry.Builder builder = RunnerRegistry.builder();
+        assertTrue(PluginLoader.addPlugins(builder, loader, dir).isEmpty());
+        return builder;
+    }
+
+    private static String location(Class<?> cls) throws URISyntaxException {
+        return new File(cls.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    /**
+     * Proveedor registrado en los servicios de las pruebas.
+     */
+    @ProvidedActions({"saludar", "greet"})
+    public static class GreetingProvider implements ActionRunnerProvider {
+
+        static int instances = 0;
+        static String lastCommand;
+
+        public GreetingProvider() {
+            instances++;
+        }
+
+        @Override
+        public PluginRunner create(String actionName, String command) throws InvalidActionException {
+            return (driver, log) -> lastCommand = command;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ *
+ * @author nesto
+ */
+public class RetryPolicyTest {
+
+    private final AtomicInteger finds = new AtomicInteger();
+
+    /**
+     * Un navegador que no encuentra los primeros elementos que se le piden.
+     */
+    private WebDriver fakeDriver(int failures) {
+        final WebElement element = Fakes.element();
+        return Fakes.driver((proxy, method, args) -> {
+            if (method.equals("findElement")) {
+                if (finds.incrementAndGet() <= failures) {
+                    throw new NoSuchElementException("#a");
+                }
+                return element;
+            }
+            return null;
+        });
+    }
+
+    private File write(String content) throws IOException {
+        File file = new File(Files.createTempDirectory("WebAppTest").toFile(), "script.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.append(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void testParse() {
+        RetryPolicy policy = RetryPolicy.parse("4, 200S");
+        assertEquals(4, policy.getMaxAttempts());
+        assertEquals(200, policy.delayMillis(1, 0));
+        assertEquals(800, policy.delayMillis(3, 0));
+        assertEquals(400, policy.delayMillis(3, 1));
+        assertEquals(RetryPolicy.MAX_DELAY.toMillis(), policy.delayMillis(40, 0));
+        assertTrue(policy.retries(new NoSuchElementException("x"), false));
+        assertTrue(policy.retries(new ElementNotInteractableException("x"), false));
+        //Pudo haber actuado: solo si se puede repetir
+        assertFalse(policy.retries(new TimeoutException("x"), false));
+        assertTrue(policy.retries(new TimeoutException("x"), true));
+        assertFalse(policy.retries(new NoSuchSessionException("x"), true));
+        assertFalse(policy.retries(new IllegalStateException("x"), true));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.parse("0"));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.parse("x"));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.parse("1,2,3"));
+
+        assertEquals(2, RetryPolicy.DEFAULT.getMaxAttempts());
+        assertTrue(RetryPolicy.DEFAULT.retries(new StaleElementReferenceException("x"), false));
+        assertFalse(RetryPolicy.DEFAULT.retries(new NoSuchElementException("x"), true));
+        assertEquals(Duration.ZERO, RetryPolicy.DEFAULT.getInitialDelay());
+    }
+
+    @Test
+    public void testRunnerRetry() throws IOException, InvalidVarNameException {
+        File script = write("write={\"selector\":\"#a\",\"text\":\"b\"}\nset={\"name\":\"x\",\"value\":\"1\",\"retry\":\"2\"}");
+        ExecutionContext context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver(2)).build();
+        //Sin reintentos configurados, solo se repite si el elemento quedo de otra pagina
+        assertEquals(1, ActionRunnerManager.newSession(context).exec(script).size());
+
+        finds.set(0);
+        System.setProperty("webapptester.retry.write", "3,1S");
+        try {
+            context = ExecutionContext.builder()
+                    .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver(2)).build();
+            assertTrue(ActionRunnerManager.newSession(context).exec(script).isEmpty());
+            assertEquals(3, finds.get());
+            assertEquals(2, context.getTimings().get(0).getRetries());
+        } finally {
+            System.clearProperty("webapptester.retry.write");
+        }
+    }
+
+    @Test
+    public void testFilePolicy() throws IOException, InvalidVarNameException {
+        File script = write("onfailure={\"mode\":\"stop\",\"retry\":\"3,1S\"}\n"
+                + "write={\"selector\":\"#a\",\"text\":\"b\"}\n"
+                + "set={\"name\":\"x\",\"value\":\"1\"}");
+        ExecutionContext context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver(2)).build();
+        List<Exception> errors = ActionRunnerManager.newSession(context).exec(script);
+        assertTrue(errors.isEmpty(), errors::toString);
+        assertEquals(3, finds.get());
+        List<FlakeStats.Entry> flakes = FlakeStats.collect(context.getTimings());
+        assertEquals(1, flakes.size());
+        assertEquals(2, flakes.get(0).getLine());
+        assertEquals(2, flakes.get(0).getRetries());
+        assertEquals(1, flakes.get(0).getFlakyRuns());
+
+        //Se acaban los intentos: el archivo se detiene
+        finds.set(0);
+        context = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver(5)).build();
+        errors = ActionRunnerManager.newSession(context).exec(script);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getCause() instanceof NoSuchElementException);
+        assertEquals(3, finds.get());
+        assertEquals(2, context.getTimings().size());
+        assertNull(context.getVariable("x"));
+    }
+
+    @Test
+    public void testRelativeScrollNotRepeated() throws IOException, InvalidVarNameException {
+        File script = write("scroll={\"selector\":\"#a\",\"x\":\"0\",\"y\":\"100\"}");
+        final AtomicInteger scrolls = new AtomicInteger();
+        final WebElement element = Fakes.element();
+        WebDriver driver = Fakes.scriptDriver((proxy, method, args) -> {
+            switch (method) {
+                case "findElement":
+                    return element;
+                case "executeScript":
+                    scrolls.incrementAndGet();
+                    throw new TimeoutException("script");
+                default:
+                    return null;
+            }
+        });
+        System.setProperty("webapptester.retry.scroll", "3,1S");
+        try {
+            ExecutionContext context = ExecutionContext.builder()
+                    .browser(ActionRunnerManager.BROWSERTYPE.CHROME, driver).build();
+            //El desplazamiento es relativo: repetirlo desplazaria dos veces
+            assertEquals(1, ActionRunnerManager.newSession(context).exec(script).size());
+            assertEquals(1, scrolls.get());
+        } finally {
+            System.clearProperty("webapptester.retry.scroll");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class RunSchedulerTest {
+
+    @Test
+    public void testMaxPerBackend() throws InterruptedException {
+        final AtomicInteger current = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        try (RunScheduler scheduler = new RunScheduler(3);
+                RunScheduler.Suite suite = scheduler.newSuite()) {
+            for (int i = 0; i < 30; i++) {
+                final int n = i;
+                futures.add(suite.submit("grid", () -> {
+                    max.accumulateAndGet(current.incrementAndGet(), Math::max);
+                    Thread.sleep(10);
+                    current.decrementAndGet();
+                    return n;
+                }));
+            }
+            suite.await();
+        }
+        assertEquals(3, max.get());
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(Integer.valueOf(i), futures.get(i).join());
+        }
+    }
+
+    @Test
+    public void testManyBlockedRuns() throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        try (RunScheduler scheduler = new RunScheduler(5000);
+                RunScheduler.Suite suite = scheduler.newSuite()) {
+            for (int i = 0; i < 5000; i++) {
+                suite.submit("grid", () -> {
+                    Thread.sleep(200);
+                    return null;
+                });
+            }
+            suite.await();
+        }
+        //Con un hilo del sistema por ejecucion esto no seria posible
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        final List<CompletableFuture<Object>> futures = new ArrayList<>();
+        final long start = System.currentTimeMillis();
+        try (RunScheduler scheduler = new RunScheduler(2)) {
+            RunScheduler.Suite suite = scheduler.newSuite();
+            for (int i = 0; i < 10; i++) {
+                futures.add(suite.submit("grid", () -> {
+                    Thread.sleep(60000);
+                    return null;
+                }));
+            }
+            Thread.sleep(100);
+            suite.close();
+            assertTrue(suite.isCancelled());
+        }
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        for (CompletableFuture<Object> future : futures) {
+            assertTrue(future.isCompletedExceptionally());
+            assertThrows(CancellationException.class, future::join);
+        }
+    }
+}
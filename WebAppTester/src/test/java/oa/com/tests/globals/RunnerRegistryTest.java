@@ -0,0 +1,117 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import oa.com.tests.actionrunners.exceptions.BadSyntaxException;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actionrunners.exceptions.NoActionSupportedException;
+import oa.com.tests.actionrunners.interfaces.AbstractDefaultScriptActionRunner;
+import oa.com.tests.actionrunners.interfaces.ScriptActionRunner;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.scriptactionrunners.DoubleClickActionRunner;
+import oa.com.tests.scriptactionrunners.GoActionRunner;
+import oa.com.tests.scriptactionrunners.WriteActionRunner;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+/**
+ *
+ * @author nesto
+ */
+public class RunnerRegistryTest {
+
+    private final List<Class<? extends ScriptActionRunner>> runners = Arrays.asList(
+            GoActionRunner.class, WriteActionRunner.class, DoubleClickActionRunner.class);
+
+    @Test
+    public void testFind() {
+        RunnerRegistry registry = RunnerRegistry.build(runners);
+        assertEquals(GoActionRunner.class, registry.find("go").getType());
+        assertEquals(GoActionRunner.class, registry.find("ir").getType());
+        assertEquals(DoubleClickActionRunner.class, registry.find("Doble Clic").getType());
+        assertNull(registry.find("volar"));
+        assertTrue(registry.getAmbiguities().isEmpty());
+    }
+
+    @Test
+    public void testCreate() throws BadSyntaxException, InvalidActionException {
+        RunnerRegistry registry = RunnerRegistry.build(runners);
+        assertTrue(registry.create(new TestAction("escribir={\"selector\":\"#a\",\"texto\":\"b\"}"))
+                instanceof WriteActionRunner);
+        assertNull(registry.create(new TestAction("volar={}")));
+        assertThrows(InvalidActionException.class,
+                () -> registry.create(new TestAction("write={\"selector\":\"#a\"}")));
+    }
+
+    @Test
+    public void testAmbiguities() {
+        RunnerRegistry registry = RunnerRegistry.build(Arrays.asList(
+                GoActionRunner.class, oa.com.tests.scriptactionrunners.ClickActionRunner.class,
+                ClickActionRunner.class));
+        assertFalse(registry.getAmbiguities().isEmpty());
+        assertEquals(GoActionRunner.class, registry.find("go").getType());
+    }
+
+    @Test
+    public void testLoadIndex() throws IOException {
+        Map<String, String> index = RunnerRegistry.readIndex(getClass().getClassLoader());
+        assertEquals("WriteActionRunner.action", index.get(WriteActionRunner.class.getName()));
+        assertFalse(index.containsKey(ClickActionRunner.class.getName()));
+        RunnerRegistry registry = RunnerRegistry.load(getClass().getClassLoader());
+        assertEquals(WriteActionRunner.class.getName(), registry.find("escribir").getClassName());
+        assertEquals(WriteActionRunner.class, registry.find("escribir").getType());
+    }
+
+    @Test
+    public void testMatchesIgnoresCase() throws Exception {
+        LongClickActionRunner runner = new LongClickActionRunner(new TestAction("clic largo", "{}"));
+        assertTrue(runner.matches(new TestAction("CLIC LARGO", "{}")));
+        assertFalse(runner.matches(new TestAction("clic", "{}")));
+    }
+
+    /**
+     * Un ejecutor cuyo nombre de accion tiene mayusculas, como los de algunos
+     * plugins.
+     */
+    public static class LongClickActionRunner extends ClickActionRunner {
+
+        public LongClickActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
+            super(action);
+        }
+
+        @Override
+        public String getActionName() {
+            return "Clic Largo";
+        }
+    }
+
+    /**
+     * Otro ejecutor con los mismos nombres de accion de "click".
+     */
+    public static class ClickActionRunner extends AbstractDefaultScriptActionRunner {
+
+        public ClickActionRunner(TestAction action) throws NoActionSupportedException, InvalidActionException {
+            super(action);
+        }
+
+        @Override
+        public void run(WebDriver driver) throws Exception {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+import oa.com.tests.scriptactionrunners.GoActionRunner;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class ScriptLinterTest {
+
+    private File write(File file, String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.append(content);
+        }
+        return file;
+    }
+
+    private List<String> lines(List<ScriptLinter.Problem> problems, File file) {
+        return problems.stream()
+                .filter(p -> p.getFile().equals(file))
+                .map(p -> p.getLine() + ":" + p.getMessage())
+                .collect(toList());
+    }
+
+    @Test
+    public void testLint() throws IOException {
+        File root = Files.createTempDirectory("WebAppTest").toFile();
+        File folder = new File(root, "login");
+        assertTrue(folder.mkdir());
+        write(new File(root, "_start.txt"), "set={\"name\":\"user\",\"value\":\"nesto\"}");
+        write(new File(folder, "_start.txt"), "go={https://duckduckgo.com/}");
+        File ok = write(new File(folder, "ok.txt"),
+                "set={\"name\":\"pwd\",\"value\":\"123\"}\n"
+                + "write={\"selector\":\"#user\",\"text\":\"[:user]\"}\n"
+                + "write={\"selector\":\"#pwd\",\"text\":\"[:pwd]\"}\n"
+                + "pause={\"time\":\"7 s\"}");
+        File bad = write(new File(folder, "bad.txt"),
+                "write={\"selector\":\"#pwd\",\"text\":\"[:pwd]\"}\n"
+                + "wirte={\"selector\":\"#a\",\"text\":\"hola\"}\n"
+                + "write={\"selector\":\"#a\"}\n"
+                + "pause={\"time\":\"siete\"}\n"
+                + "write={\"selector\":\"#a\",\"type\":\"regex\",\"text\":\"hola\"}\n"
+                + "go={https://duckduckgo.com/");
+        List<ScriptLinter.Problem> problems = new ScriptLinter(ActionRunnerManager.getRegistry()).lint(root);
+        assertTrue(lines(problems, ok).isEmpty(), problems::toString);
+        List<String> badLines = lines(problems, bad);
+        assertEquals(6, badLines.size(), problems::toString);
+        assertTrue(badLines.get(0).startsWith("1:") && badLines.get(0).contains("pwd"));
+        assertTrue(badLines.get(1).startsWith("2:") && badLines.get(1).contains("wirte"));
+        for (int i = 2; i < 6; i++) {
+            assertTrue(badLines.get(i).startsWith((i + 1) + ":"), badLines.get(i));
+        }
+    }
+
+    @Test
+    public void testRunnerBug() throws IOException {
+        File root = Files.createTempDirectory("WebAppTest").toFile();
+        File script = write(new File(root, "a.txt"), "roto={\"selector\":\"[:x]\"}");
+        RunnerRegistry registry = RunnerRegistry.builder()
+                .add(new RunnerRegistry.Entry("Roto", GoActionRunner.class, action -> {
+                    throw new IllegalArgumentException("bug");
+                }), Arrays.asList("roto"))
+                .build();
+        List<String> problems = lines(new ScriptLinter(registry).lint(root), script);
+        assertEquals(2, problems.size(), problems::toString);
+        assertTrue(problems.get(1).contains("IllegalArgumentException: bug"), problems::toString);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import oa.com.tests.actionrunners.exceptions.ScriptSyntaxException;
+import oa.com.tests.lang.CompiledScript;
+import oa.com.tests.lang.CompiledStatement;
+import oa.com.tests.lang.ScriptTokenizer;
+import oa.com.tests.scriptactionrunners.GoActionRunner;
+import oa.com.tests.scriptactionrunners.WriteActionRunner;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class ScriptPlanCacheTest {
+
+    private File write(File file, String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.append(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void testCompile() throws IOException {
+        File f = File.createTempFile("WebAppTest", ".txt");
+        f.deleteOnExit();
+        write(f, "#comentario\n"
+                + "go={https://duckduckgo.com/}\n"
+                + "\n"
+                + "write={\"selector\":\"#a\",\n"
+                + "\"text\":\"hola\"}\n"
+                + "write={\"selector\":\"#a\",\"text\":\"[:nombre]\"}\n"
+                + "write={\"selector\":\"#a\",");
+        CompiledScript script = ScriptPlanCache.get(f);
+        assertEquals(3, script.getStatements().size());
+        CompiledStatement go = script.getStatements().get(0);
+        assertEquals(2, go.getLine());
+        assertTrue(go.isResolved());
+        assertEquals(GoActionRunner.class, go.getRunnerType());
+        CompiledStatement write = script.getStatements().get(1);
+        assertEquals(4, write.getLine());
+        assertEquals(WriteActionRunner.class, write.getRunnerType());
+        assertFalse(script.getStatements().get(2).isResolved());
+        assertEquals(1, script.getErrors().size());
+        assertEquals(7, script.getErrors().get(0).getLine());
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        File f = File.createTempFile("WebAppTest", ".txt");
+        f.deleteOnExit();
+        write(f, "go={https://duckduckgo.com/}");
+        CompiledScript first = ScriptPlanCache.get(f);
+        assertSame(first, ScriptPlanCache.get(f));
+        //Misma fecha nueva, mismo contenido: no recompila
+        assertTrue(f.setLastModified(first.getLastModified() - 10000));
+        CompiledScript touched = ScriptPlanCache.get(f);
+        assertNotSame(first, touched);
+        assertSame(first.getStatements(), touched.getStatements());
+        //Contenido nuevo
+        write(f, "go={https://duckduckgo.com/}\ngo={https://www.wikipedia.org/}");
+        assertTrue(f.setLastModified(first.getLastModified() + 10000));
+        CompiledScript changed = ScriptPlanCache.get(f);
+        assertEquals(2, changed.getStatements().size());
+        assertNotEquals(first.getHash(), changed.getHash());
+    }
+
+    @Test
+    public void testMissingRunnerClass() throws IOException, ScriptSyntaxException {
+        RunnerRegistry registry = RunnerRegistry.builder()
+                .add(new RunnerRegistry.Entry("oa.com.tests.NoExiste", getClass().getClassLoader()),
+                        Arrays.asList("roto"))
+                .build();
+        try (ScriptTokenizer tokenizer = new ScriptTokenizer(new StringReader("\n  roto={algo}"))) {
+            ScriptTokenizer.Token token = tokenizer.next();
+            ScriptSyntaxException ex = assertThrows(ScriptSyntaxException.class,
+                    () -> ScriptPlanCache.compileStatement(token, registry));
+            assertEquals(2, ex.getLine());
+            assertEquals(3, ex.getColumn());
+            assertTrue(ex.getMessage().contains("oa.com.tests.NoExiste"));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import oa.com.tests.webapptester.ConsoleApp;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class ShardPlanTest {
+
+    private final File root = new File("scripts");
+
+    private List<File> scripts(String... names) {
+        final List<File> resp = new ArrayList<>();
+        for (String name : names) {
+            resp.add(new File(root, name));
+        }
+        return resp;
+    }
+
+    @Test
+    public void testByCount() {
+        List<File> all = scripts("e.txt", "a.txt", "sub/c.txt", "b.txt", "d.txt");
+        Set<File> seen = new HashSet<>();
+        for (int i = 1; i <= 2; i++) {
+            for (File script : ShardPlan.parse(i + "/2").select(root, all, Map.of())) {
+                assertTrue(seen.add(script));
+            }
+        }
+        assertEquals(new HashSet<>(all), seen);
+        assertEquals(scripts("a.txt", "d.txt", "sub/c.txt"),
+                ShardPlan.parse("1/2").select(root, all, Map.of()));
+        assertEquals(List.of(), ShardPlan.parse("3/3").select(root, scripts("a.txt"), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> ShardPlan.parse("0/2"));
+        assertThrows(IllegalArgumentException.class, () -> ShardPlan.parse("3/2"));
+        assertThrows(IllegalArgumentException.class, () -> ShardPlan.parse("1-2"));
+    }
+
+    @Test
+    public void testByDuration() {
+        List<File> all = scripts("a.txt", "b.txt", "c.txt", "d.txt", "new.txt");
+        Map<String, Long> history = Map.of("a.txt", 100L, "b.txt", 10L, "c.txt", 10L, "d.txt", 60L);
+        //La nueva cuenta como el promedio (45): a y b suman 110, c, d y la nueva 115
+        assertEquals(scripts("a.txt", "b.txt"), ShardPlan.parse("1/2").select(root, all, history));
+        assertEquals(scripts("c.txt", "d.txt", "new.txt"), ShardPlan.parse("2/2").select(root, all, history));
+    }
+
+    @Test
+    public void testMerge() throws IOException {
+        File folder = Files.createTempDirectory("WebAppTest").toFile();
+        File first = new File(folder, "results-1-of-2.json");
+        File second = new File(folder, "results-2-of-2.json");
+        new SuiteReport(List.of("1/2"), 300, List.of(
+                new SuiteReport.Entry("a.txt", true, 250, List.of())), 3, "plan").write(first);
+        new SuiteReport(List.of("2/2"), 500, List.of(
+                new SuiteReport.Entry("b.txt", false, 400, List.of("line 3: no element")),
+                new SuiteReport.Entry("sub/c.txt", true, 90, List.of())), 3, "plan").write(second);
+
+        File merged = new File(folder, "results.json");
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        assertEquals(ConsoleApp.PROBLEMS, ConsoleApp.run(new String[]{"--merge", merged.getPath(),
+            first.getPath(), second.getPath()}, new PrintStream(buffer, true)));
+        assertTrue(buffer.toString().contains("line 3: no element"));
+
+        SuiteReport report = SuiteReport.read(merged);
+        assertEquals(List.of("1/2", "2/2"), report.getShards());
+        assertEquals(500, report.getMillis());
+        assertEquals(3, report.getEntries().size());
+        assertEquals(3, report.getTotal());
+        assertEquals("plan", report.getPlan());
+        assertEquals(1, report.getFailures());
+        assertEquals(Map.of("a.txt", 250L, "b.txt", 400L, "sub/c.txt", 90L), report.getDurations());
+        assertThrows(IOException.class, () -> SuiteReport.read(new File(folder, "missing.json")));
+    }
+
+    private SuiteReport report(String... shards) {
+        return new SuiteReport(List.of(shards), 100, List.of(new SuiteReport.Entry("a.txt", true, 100, List.of())));
+    }
+
+    @Test
+    public void testMissingShards() throws IOException {
+        assertEquals(List.of(), SuiteReport.missingShards(List.of(report("2/2"), report("1/2"))));
+        assertEquals(List.of(), SuiteReport.missingShards(List.of(report(), report())));
+        assertEquals(List.of("2/3"), SuiteReport.missingShards(List.of(report("1/3"), report("3/3"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> SuiteReport.missingShards(List.of(report("1/2"), report("2/3"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> SuiteReport.missingShards(List.of(report("1/2"), report("1/2"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> SuiteReport.missingShards(List.of(report("1/2"), report())));
+
+        File folder = Files.createTempDirectory("WebAppTest").toFile();
+        File first = new File(folder, "results-1-of-2.json");
+        report("1/2").write(first);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        assertEquals(ConsoleApp.PROBLEMS, ConsoleApp.run(new String[]{"--merge", new File(folder, "results.json").getPath(),
+            first.getPath()}, new PrintStream(buffer, true)));
+        assertTrue(buffer.toString().contains("2/2"), buffer::toString);
+    }
+
+    @Test
+    public void testPlanMismatch() throws IOException {
+        List<File> all = scripts("a.txt", "b.txt", "c.txt");
+        Map<String, Long> history = Map.of("a.txt", 100L);
+        assertEquals(ShardPlan.fingerprint(root, all, history),
+                ShardPlan.fingerprint(root, scripts("c.txt", "b.txt", "a.txt"), Map.of("a.txt", 100L, "x.txt", 5L)));
+        assertNotEquals(ShardPlan.fingerprint(root, all, history), ShardPlan.fingerprint(root, all, Map.of()));
+        assertNotEquals(ShardPlan.fingerprint(root, all, history),
+                ShardPlan.fingerprint(root, scripts("a.txt", "b.txt"), history));
+
+        //Una maquina sin historia: a.txt queda en las dos partes y c.txt en ninguna
+        SuiteReport first = new SuiteReport(List.of("1/2"), 100, List.of(
+                new SuiteReport.Entry("a.txt", true, 100, List.of())), 3, ShardPlan.fingerprint(root, all, history));
+        SuiteReport second = new SuiteReport(List.of("2/2"), 100, List.of(
+                new SuiteReport.Entry("a.txt", true, 100, List.of()),
+                new SuiteReport.Entry("b.txt", true, 100, List.of())), 3, ShardPlan.fingerprint(root, all, Map.of()));
+        assertEquals(List.of(), SuiteReport.missingShards(List.of(first, second)));
+        assertThrows(IllegalArgumentException.class, () -> SuiteReport.checkPlan(List.of(first, second)));
+        assertEquals(List.of("a.txt"), SuiteReport.repeatedScripts(List.of(first, second)));
+
+        File folder = Files.createTempDirectory("WebAppTest").toFile();
+        File firstFile = new File(folder, "results-1-of-2.json");
+        File secondFile = new File(folder, "results-2-of-2.json");
+        first.write(firstFile);
+        second.write(secondFile);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        assertEquals(ConsoleApp.PROBLEMS, ConsoleApp.run(new String[]{"--merge", new File(folder, "results.json").getPath(),
+            firstFile.getPath(), secondFile.getPath()}, new PrintStream(buffer, true)));
+        assertTrue(buffer.toString().contains("webapptester.history"), buffer::toString);
+
+        //Misma huella, pero falta un script
+        SuiteReport partial = new SuiteReport(List.of("2/2"), 100, List.of(
+                new SuiteReport.Entry("b.txt", true, 100, List.of())), 3, first.getPlan());
+        SuiteReport.checkPlan(List.of(first, partial));
+        partial.write(secondFile);
+        buffer.reset();
+        assertEquals(ConsoleApp.PROBLEMS, ConsoleApp.run(new String[]{"--merge", new File(folder, "results.json").getPath(),
+            firstFile.getPath(), secondFile.getPath()}, new PrintStream(buffer, true)));
+        assertTrue(buffer.toString().contains(ResourceBundle.getBundle("application").getString("merge.err.total")
+                .replace("{0}", "2").replace("{1}", "3")), buffer::toString);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+
+/**
+ *
+ * @author nesto
+ */
+public class SnapshotStoreTest {
+
+    private final Set<Cookie> cookies = new HashSet<>();
+    private final Map<String, Object> local = new HashMap<>();
+    private int loads;
+
+    /**
+     * Un navegador con cookies y localStorage en memoria.
+     */
+    private WebDriver fakeDriver() {
+        final WebDriver.Options options = Fakes.fake(WebDriver.Options.class, (proxy, method, args) -> {
+            switch (method) {
+                case "getCookies":
+                    return new HashSet<>(cookies);
+                case "addCookie":
+                    cookies.add((Cookie) args[0]);
+                    return null;
+                case "deleteAllCookies":
+                    cookies.clear();
+                    return null;
+                default:
+                    return null;
+            }
+        });
+        return Fakes.scriptDriver((proxy, method, args) -> {
+            switch (method) {
+                case "manage":
+                    return options;
+                case "getCurrentUrl":
+                    return "http://localhost/home";
+                case "get":
+                    loads++;
+                    return null;
+                case "executeScript":
+                    if (args[0].equals(SessionSnapshot.CAPTURE_SCRIPT)) {
+                        return Map.of("local", new HashMap<>(local), "session", Map.of());
+                    }
+                    local.clear();
+                    local.putAll((Map<String, Object>) ((Object[]) args[1])[0]);
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private File store() throws IOException {
+        File file = File.createTempFile("snapshots", ".dat");
+        file.delete();
+        return file;
+    }
+
+    @Test
+    public void testPersist() throws IOException {
+        File file = store();
+        cookies.add(new Cookie("session", "secret-token", "/"));
+        local.put("user", "nesto");
+        new SnapshotStore(file, TimeUnit.MINUTES.toMillis(5))
+                .put("name:admin", SessionSnapshot.capture(fakeDriver(), Map.of("x", "1")));
+        assertFalse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).contains("secret-token"));
+
+        cookies.clear();
+        local.clear();
+        SnapshotStore store = new SnapshotStore(file, TimeUnit.MINUTES.toMillis(5));
+        SessionSnapshot snapshot = store.get("name:admin");
+        assertNotNull(snapshot);
+        assertEquals("1", snapshot.getVariables().get("x"));
+        snapshot.restore(fakeDriver());
+        assertEquals("secret-token", cookies.iterator().next().getValue());
+        assertEquals("nesto", local.get("user"));
+        assertEquals(2, loads);
+        assertNull(store.get("name:admin", 0));
+        assertNull(store.get("name:other"));
+    }
+
+    @Test
+    public void testFixture() throws IOException, InvalidVarNameException {
+        File folder = Files.createTempDirectory("WebAppTest").toFile();
+        File start = new File(folder, "_start.txt");
+        try (FileWriter writer = new FileWriter(start)) {
+            writer.append("set={\"name\":\"user\",\"value\":\"nesto\"}");
+        }
+        SnapshotStore store = new SnapshotStore(store(), TimeUnit.MINUTES.toMillis(5));
+        ExecutionContext first = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver()).snapshots(store).build();
+        assertTrue(ActionRunnerManager.newSession(first).exec(start).isEmpty());
+        assertEquals(1, first.getTimings().size());
+
+        ExecutionContext second = ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver()).snapshots(store).build();
+        List<Exception> errors = ActionRunnerManager.newSession(second).exec(start);
+        assertTrue(errors.isEmpty(), errors::toString);
+        //No se ejecuto: se puso la sesion y sus variables
+        assertTrue(second.getTimings().isEmpty());
+        assertEquals("nesto", second.resolve("user"));
+    }
+
+    @Test
+    public void testSharedFile() throws IOException {
+        File file = store();
+        SnapshotStore first = new SnapshotStore(file, TimeUnit.MINUTES.toMillis(5));
+        SnapshotStore second = new SnapshotStore(file, TimeUnit.MINUTES.toMillis(5));
+        assertNull(second.get("name:admin"));
+        first.put("name:admin", SessionSnapshot.capture(fakeDriver(), Map.of("x", "1")));
+        //El segundo ya habia leido el archivo vacio: vuelve a leer antes de agregar
+        second.put("name:guest", SessionSnapshot.capture(fakeDriver(), Map.of("x", "2")));
+        SnapshotStore third = new SnapshotStore(file, TimeUnit.MINUTES.toMillis(5));
+        assertEquals("1", third.get("name:admin").getVariables().get("x"));
+        assertEquals("2", third.get("name:guest").getVariables().get("x"));
+        assertNotNull(first.get("name:guest"));
+        File[] temps = file.getParentFile().listFiles((dir, name) -> name.startsWith(file.getName()) && name.endsWith(".tmp"));
+        assertEquals(0, temps.length);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import oa.com.tests.lang.CompiledStatement;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+/**
+ *
+ * @author nesto
+ */
+public class StepFuserTest {
+
+    /**
+     * Pasos recibidos en cada llamada de JavaScript.
+     */
+    private final List<List<?>> calls = new ArrayList<>();
+
+    private File write(String content) throws IOException {
+        File file = File.createTempFile("WebAppTest", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.append(content);
+        }
+        return file;
+    }
+
+    /**
+     * Un navegador que no encuentra nada y cuyo JavaScript completa
+     * {@code done} pasos.
+     */
+    private WebDriver fakeDriver(long done) {
+        return Fakes.scriptDriver((proxy, method, args) -> {
+            if (method.equals("executeScript")) {
+                calls.add((List<?>) ((Object[]) args[1])[0]);
+                return done;
+            }
+            return null;
+        });
+    }
+
+    private ExecutionContext context(WebDriver driver, boolean fastMode) {
+        return ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, driver)
+                .fastMode(fastMode).build();
+    }
+
+    @Test
+    public void testFusedRun() throws IOException, InvalidVarNameException {
+        ExecutionContext context = context(fakeDriver(3), true);
+        List<Exception> errors = ActionRunnerManager.newSession(context).exec(write(
+                "wait={\"selector\":\"#user\"}\n"
+                + "write={\"selector\":\"#user\",\"text\":\"nesto\"}\n"
+                + "click={\"selector\":\"#send\"}\n"
+                + "set={\"name\":\"user\",\"value\":\"nesto\"}"));
+        assertTrue(errors.isEmpty(), errors::toString);
+        assertEquals(1, calls.size());
+        assertEquals(3, calls.get(0).size());
+        assertEquals("nesto", context.resolve("user"));
+        List<ExecutionContext.StepTiming> timings = context.getTimings();
+        assertEquals(2, timings.size());
+        assertEquals("wait+write+click", timings.get(0).getAction());
+    }
+
+    @Test
+    public void testFallback() throws IOException, InvalidVarNameException {
+        ExecutionContext context = context(fakeDriver(1), true);
+        List<Exception> errors = ActionRunnerManager.newSession(context).exec(write(
+                "write={\"selector\":\"#user\",\"text\":\"nesto\"}\n"
+                + "write={\"selector\":\"#pass\",\"text\":\"123\"}"));
+        //El segundo paso se hizo sin JavaScript y no encontro el elemento
+        assertEquals(1, calls.size());
+        assertEquals(1, errors.size());
+        assertEquals(2, context.getTimings().size());
+    }
+
+    @Test
+    public void testCollect() throws IOException {
+        ExecutionContext context = context(fakeDriver(0), true);
+        File file = write("click={\"selector\":\"#a\"}\n"
+                + "write={\"selector\":\"#a\",\"text\":\"x\"}\n"
+                + "scroll={\"selector\":\"#a\",\"x\":0,\"y\":10}\n"
+                + "click={\"selector\":\"#b\"}\n"
+                + "set={\"name\":\"user\",\"value\":\"nesto\"}");
+        List<CompiledStatement> statements = ScriptPlanCache.get(file).getStatements();
+        //Un clic cierra el grupo
+        assertNull(StepFuser.collect(statements, 0, context));
+        StepFuser.Batch batch = StepFuser.collect(statements, 1, context);
+        assertEquals(3, batch.size());
+        assertEquals("scroll", batch.getSteps().get(1).get("op"));
+        assertEquals(Integer.valueOf(10), batch.getSteps().get(1).get("y"));
+        assertNull(StepFuser.collect(statements, 3, context));
+        //Sin navegador no hay JavaScript
+        assertNull(StepFuser.collect(statements, 1, ExecutionContext.builder().build()));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.globals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import oa.com.tests.Fakes;
+import oa.com.tests.Utils;
+import oa.com.tests.actionrunners.exceptions.ScriptSyntaxException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+/**
+ *
+ * @author nesto
+ */
+public class SuiteRunnerTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger quit = new AtomicInteger();
+
+    private File write(File file, String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.append(content);
+        }
+        return file;
+    }
+
+    /**
+     * Un navegador que no hace nada.
+     */
+    private WebDriver fakeDriver() {
+        created.incrementAndGet();
+        return Fakes.driver((proxy, method, args) -> {
+            if (method.equals("quit")) {
+                quit.incrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testRun() throws IOException, InterruptedException {
+        File root = Files.createTempDirectory("WebAppTest").toFile();
+        File folder = new File(root, "sub");
+        assertTrue(folder.mkdir());
+        write(new File(root, "_start.txt"), "set={\"name\":\"user\",\"value\":\"nesto\"}");
+        File end = write(new File(folder, "_end.txt"), "pause={\"time\":\"1 S\"}");
+        write(new File(root, "a.txt"), "set={\"name\":\"x\",\"value\":\"[:user]\"}\npause={\"time\":\"50 S\"}");
+        //Cada script tiene sus variables: x no existe aqui
+        write(new File(root, "b.txt"), "pause={\"time\":\"50 S\"}\nset={\"name\":\"y\",\"value\":\"[:x]\"}");
+        File c = write(new File(folder, "c.txt"), "set={\"name\":\"z\",\"value\":\"[:user]\"}");
+        assertArrayEquals(new File[]{new File(root, "_start.txt"), c, end},
+                Utils.getRunnableFiles(root, c).toArray());
+
+        SuiteRunner.SuiteResult result;
+        try (DriverPool pool = DriverPool.builder(ActionRunnerManager.BROWSERTYPE.CHROME)
+                .size(2).warm(false).factory(this::fakeDriver)
+                .reset(driver -> {
+                }).build()) {
+            result = new SuiteRunner(pool).run(root, Utils.getLogger());
+        }
+        List<SuiteRunner.ScriptResult> results = result.getResults();
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isOk(), () -> results.get(0).getErrors().toString());
+        assertFalse(results.get(1).isOk());
+        assertEquals(c, results.get(2).getScript());
+        assertTrue(results.get(2).isOk(), () -> results.get(2).getErrors().toString());
+        assertEquals(1, result.getFailures());
+        assertTrue(created.get() >= 1 && created.get() <= 2);
+        assertEquals(created.get(), quit.get());
+    }
+
+    @Test
+    public void testSyntaxErrorsNotShared() throws IOException {
+        File root = Files.createTempDirectory("WebAppTest").toFile();
+        File script = write(new File(root, "a.txt"), "go https://duckduckgo.com/\npause={\"time\":\"1 S\"}");
+        ScriptSyntaxException cached = ScriptPlanCache.get(script).getErrors().get(0);
+        try (DriverPool pool = DriverPool.builder(ActionRunnerManager.BROWSERTYPE.CHROME)
+                .size(1).warm(false).factory(this::fakeDriver)
+                .reset(driver -> {
+                }).build()) {
+            SuiteRunner runner = new SuiteRunner(pool);
+            List<Exception> first = runner.runScript(root, script, Utils.getLogger()).getErrors();
+            List<Exception> second = runner.runScript(root, script, Utils.getLogger()).getErrors();
+            assertEquals(1, first.size());
+            assertEquals(1, second.size());
+            assertNotSame(first.get(0), second.get(0));
+            ScriptSyntaxException error = (ScriptSyntaxException) first.get(0);
+            assertNotSame(cached, error);
+            assertEquals(cached.getMessage(), error.getMessage());
+            assertEquals(1, error.getLine());
+            assertEquals(script.getAbsolutePath(), error.getContext());
+        }
+        assertNull(cached.getContext());
+    }
+}
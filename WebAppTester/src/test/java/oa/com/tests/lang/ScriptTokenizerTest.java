@@ -0,0 +1,100 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.lang;
+
+import java.io.IOException;
+import java.io.StringReader;
+import oa.com.tests.actionrunners.exceptions.ScriptSyntaxException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class ScriptTokenizerTest {
+
+    @Test
+    public void testStatements() throws IOException, ScriptSyntaxException {
+        ScriptTokenizer tokenizer = new ScriptTokenizer(new StringReader(
+                "# comentario\n"
+                + "go={https://duckduckgo.com/}\n"
+                + "\n"
+                + "  write={\"selector\":\"#a\",\n"
+                + "    \"text\":\"x={y}}\"}\n"
+                + "click={#b} pause={500} # al final\n"));
+        ScriptTokenizer.Token go = tokenizer.next();
+        assertEquals("go", go.getName());
+        assertEquals("{https://duckduckgo.com/}", go.getCommand());
+        assertEquals(2, go.getLine());
+        assertEquals(1, go.getColumn());
+        ScriptTokenizer.Token write = tokenizer.next();
+        assertEquals("write", write.getName());
+        assertEquals("{\"selector\":\"#a\", \"text\":\"x={y}}\"}", write.getCommand());
+        assertEquals(4, write.getLine());
+        assertEquals(3, write.getColumn());
+        ScriptTokenizer.Token click = tokenizer.next();
+        assertEquals("click={#b}", click.getSource());
+        ScriptTokenizer.Token pause = tokenizer.next();
+        assertEquals("pause", pause.getName());
+        assertEquals(6, pause.getLine());
+        assertEquals(12, pause.getColumn());
+        assertNull(tokenizer.next());
+    }
+
+    @Test
+    public void testErrors() throws IOException, ScriptSyntaxException {
+        ScriptTokenizer tokenizer = new ScriptTokenizer(new StringReader(
+                "go https://duckduckgo.com/\n"
+                + "={#a}\n"
+                + "go={https://www.wikipedia.org/}\n"
+                + "write={\"selector\":\"#a\","));
+        ScriptSyntaxException ex = assertThrows(ScriptSyntaxException.class, tokenizer::next);
+        assertEquals(1, ex.getLine());
+        ex = assertThrows(ScriptSyntaxException.class, tokenizer::next);
+        assertEquals(2, ex.getLine());
+        assertEquals(1, ex.getColumn());
+        //Se recupera en la linea siguiente
+        assertEquals("go", tokenizer.next().getName());
+        ex = assertThrows(ScriptSyntaxException.class, tokenizer::next);
+        assertEquals(4, ex.getLine());
+        assertNull(tokenizer.next());
+    }
+
+    @Test
+    public void testBodyOnNextLine() throws IOException, ScriptSyntaxException {
+        ScriptTokenizer tokenizer = new ScriptTokenizer(new StringReader(
+                "go=\n"
+                + "{https://duckduckgo.com/}\n"
+                + "write =  \n"
+                + "\n"
+                + "  {\"selector\":\"#a\"}\n"
+                + "pause= x\n"
+                + "click=\n"));
+        ScriptTokenizer.Token go = tokenizer.next();
+        assertEquals("go", go.getName());
+        assertEquals("{https://duckduckgo.com/}", go.getCommand());
+        assertEquals(1, go.getLine());
+        ScriptTokenizer.Token write = tokenizer.next();
+        assertEquals("write", write.getName());
+        assertEquals("{\"selector\":\"#a\"}", write.getCommand());
+        assertEquals(3, write.getLine());
+        ScriptSyntaxException ex = assertThrows(ScriptSyntaxException.class, tokenizer::next);
+        assertEquals(6, ex.getLine());
+        //Se acaba el archivo sin el cuerpo
+        ex = assertThrows(ScriptSyntaxException.class, tokenizer::next);
+        assertEquals(7, ex.getLine());
+        assertNull(tokenizer.next());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.lang;
+
+import java.util.Map;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.Keys;
+
+/**
+ *
+ * @author nesto
+ */
+public class TemplateTest {
+
+    private final Map<String, String> values = Map.of("nombre", "Ana", "edad", "30");
+
+    private String resolve(String name) throws InvalidVarNameException {
+        final String value = values.get(name);
+        if (value == null) {
+            throw new InvalidVarNameException(name);
+        }
+        return value;
+    }
+
+    @Test
+    public void testVariables() throws InvalidVarNameException {
+        Template template = Template.compile("{\"text\":\"[:nombre] tiene [:edad], [:nombre]\"}");
+        assertFalse(template.isConstant());
+        assertEquals("{\"text\":\"Ana tiene 30, Ana\"}", template.render(this::resolve));
+        assertThrows(InvalidVarNameException.class,
+                () -> Template.compile("[:otra]").render(this::resolve));
+    }
+
+    @Test
+    public void testKeys() throws InvalidVarNameException {
+        Template template = Template.compile("{\"text\":\"[%Keys.CONTROL,Keys.SHIFT]a\"}");
+        assertTrue(template.isConstant());
+        assertTrue(template.hasKeys());
+        assertEquals("{\"text\":\"" + Keys.chord(Keys.CONTROL, Keys.SHIFT, "a") + "\"}",
+                template.render(null));
+        //Una tecla que no existe queda como texto
+        assertFalse(Template.compile("[%Keys.NO_EXISTE]").hasKeys());
+    }
+
+    @Test
+    public void testEscapes() throws InvalidVarNameException {
+        Template template = Template.compile("[::nombre] [%%Keys.TAB] [$$clave]");
+        assertTrue(template.isConstant());
+        assertEquals("\u00a8{:nombre] \u00a8{%Keys.TAB] [$clave]", template.render(null));
+        assertFalse(Template.compile("[$clave]").isConstant());
+    }
+}
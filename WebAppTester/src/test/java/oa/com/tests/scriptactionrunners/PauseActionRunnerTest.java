@@ -0,0 +1,98 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.scriptactionrunners;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.globals.ActionRunnerManager;
+import oa.com.tests.globals.ExecutionContext;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Pruebas de la pausa, sin navegador.
+ *
+ * @author nesto
+ */
+public class PauseActionRunnerTest {
+
+    /**
+     * Condiciones recibidas por el navegador.
+     */
+    private final List<Map<?, ?>> conditions = new ArrayList<>();
+
+    /**
+     * Un navegador en el que las condiciones se cumplen de inmediato.
+     */
+    private WebDriver fakeDriver() {
+        return Fakes.scriptDriver((proxy, method, args) -> {
+            if (method.equals("executeAsyncScript")) {
+                conditions.add((Map<?, ?>) ((Object[]) args[1])[0]);
+                return true;
+            }
+            return null;
+        });
+    }
+
+    private ExecutionContext context() {
+        return ExecutionContext.builder()
+                .browser(ActionRunnerManager.BROWSERTYPE.CHROME, fakeDriver()).build();
+    }
+
+    @Test
+    public void testNoOverflow() throws Exception {
+        PauseActionRunner runner = new PauseActionRunner(new TestAction("pause", "{\"time\":\"30 d\"}"));
+        assertEquals(Duration.ofDays(30).toMillis(), runner.getMillis());
+        assertFalse(runner.isConditional());
+    }
+
+    @Test
+    public void testConditional() throws Exception {
+        PauseActionRunner runner = new PauseActionRunner(new TestAction("pause",
+                "{\"time\":\"1 h\",\"selector\":\"#done\",\"url\":\"/end$\",\"state\":\"complete\",\"idle\":\"500\"}"));
+        assertTrue(runner.isConditional());
+        ExecutionContext context = context();
+        long start = System.nanoTime();
+        runner.run(context);
+        assertTrue(System.nanoTime() - start < Duration.ofMinutes(1).toNanos());
+        assertEquals(1, conditions.size());
+        Map<?, ?> condition = conditions.get(0);
+        assertEquals("#done", condition.get("path"));
+        assertEquals("/end$", condition.get("url"));
+        assertEquals("complete", condition.get("state"));
+        assertEquals(500L, condition.get("idle"));
+    }
+
+    @Test
+    public void testWaitedIsRecorded() throws Exception {
+        PauseActionRunner runner = new PauseActionRunner(new TestAction("pausa", "{\"tiempo\":\"50 S\"}"));
+        ExecutionContext context = context();
+        runner.run(context);
+        context.record("script.txt", 1, "pausa", 0);
+        assertTrue(context.getTimings().get(0).getWaitedNanos() >= Duration.ofMillis(50).toNanos());
+        assertTrue(conditions.isEmpty());
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(InvalidActionException.class,
+                () -> new PauseActionRunner(new TestAction("pause", "{\"time\":\"1 s\",\"url\":\"(\"}")));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.scriptactionrunners;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.interfaces.PathKeeper;
+import oa.com.tests.actions.TestAction;
+import oa.com.tests.lang.SelectorVariable;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Lectura de las opciones sin navegador ni ventana.
+ *
+ * @author nesto
+ */
+public class PickChoiceOptionsTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private WebElement fakeElement(String text) {
+        return Fakes.element((proxy, method, args) -> {
+            calls.incrementAndGet();
+            switch (method) {
+                case "getText":
+                    return text;
+                case "findElement":
+                    return fakeElement(text + "/sub");
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private PickChoiceActionRunner runner() throws Exception {
+        return new PickChoiceActionRunner(new TestAction("pick choice",
+                "{\"selector\":\"ul li\",\"subselector\":\"> a\",\"variable\":\"link\"}"));
+    }
+
+    @Test
+    public void testOneCall() throws Exception {
+        List<WebElement> elements = Arrays.asList(fakeElement("a"), fakeElement("b"));
+        WebDriver driver = Fakes.scriptDriver((proxy, method, args) -> {
+            calls.incrementAndGet();
+            if (method.equals("executeScript")) {
+                Object[] scriptArgs = (Object[]) args[1];
+                assertEquals(Arrays.asList("css", "ul li", "css", "> a"), Arrays.asList(scriptArgs));
+                return Arrays.asList(elements, Arrays.asList("Uno", "Dos"),
+                        Arrays.asList("/html[1]/body[1]/ul[1]/li[1]", "/html[1]/body[1]/ul[1]/li[2]"));
+            }
+            return null;
+        });
+        PickChoiceActionRunner.Options options = runner().readOptions(driver);
+        assertEquals(1, calls.get());
+        assertEquals(2, options.elements.size());
+        assertSame(elements.get(1), options.elements.get(1));
+        assertEquals(Arrays.asList("Uno", "Dos"), options.texts);
+        assertEquals("/html[1]/body[1]/ul[1]/li[2]", options.xpaths.get(1));
+    }
+
+    @Test
+    public void testWithoutJavascript() throws Exception {
+        WebDriver driver = Fakes.driver((proxy, method, args) -> method.equals("findElements")
+                ? Arrays.asList(fakeElement("a"), fakeElement("b")) : null);
+        PickChoiceActionRunner.Options options = runner().readOptions(driver);
+        assertEquals(Arrays.asList("a/sub", "b/sub"), options.texts);
+        assertNull(options.xpaths);
+    }
+
+    @Test
+    public void testIdAnchoredXPath() throws Exception {
+        WebElement selected = fakeElement("a");
+        SelectorVariable variable = runner().toVariable(selected, "//*[@id='menu']/li[2]");
+        assertSame(selected, variable.getValue());
+        assertEquals("link", variable.getName());
+        assertEquals(PathKeeper.SearchTypes.XPATH, variable.getFinder().getType());
+        assertEquals("//*[@id='menu']/li[2]", variable.getFinder().getPath());
+    }
+
+    @Test
+    public void testQuotedXPath() throws Exception {
+        SelectorVariable variable = runner().toVariable(fakeElement("a"), "//*[@id=\"menu\"]/li[2]");
+        assertEquals(PathKeeper.SearchTypes.XPATH, variable.getFinder().getType());
+        assertEquals("//*[@id=\"menu\"]/li[2]", variable.getFinder().getPath());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.scriptactionrunners;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import oa.com.tests.Fakes;
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+import oa.com.tests.actions.TestAction;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Pruebas de la espera desde la pagina, sin navegador.
+ *
+ * @author nesto
+ */
+public class WaitActionRunnerTest {
+
+    /**
+     * Argumentos de cada llamada asincrona.
+     */
+    private final List<List<Object>> calls = new ArrayList<>();
+
+    private WebDriver fakeDriver(Object... results) {
+        return Fakes.scriptDriver((proxy, method, args) -> {
+            if (method.equals("executeAsyncScript")) {
+                calls.add(Arrays.asList((Object[]) args[1]));
+                return results[Math.min(calls.size(), results.length) - 1];
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testWaitInPage() throws Exception {
+        new WaitActionRunner(new TestAction("wait", "{\"selector\":\"#a\",\"until\":\"visible\",\"timeout\":\"5s\"}"))
+                .run(fakeDriver(true));
+        assertEquals(1, calls.size());
+        assertEquals(Map.of("type", "css", "path", "#a", "until", "VISIBLE"), calls.get(0).get(0));
+        assertEquals(5000L, calls.get(0).get(1));
+    }
+
+    @Test
+    public void testSpanish() throws Exception {
+        new WaitActionRunner(new TestAction("esperar", "{\"hasta\":\"presente\",\"tiempo\":\"250\"}"))
+                .run(fakeDriver(true));
+        assertEquals(Map.of("type", "css", "path", "body", "until", "PRESENT"), calls.get(0).get(0));
+        assertEquals(250L, calls.get(0).get(1));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        WaitActionRunner runner = new WaitActionRunner(new TestAction("wait", "{\"selector\":\"#a\",\"timeout\":\"100\"}"));
+        assertThrows(TimeoutException.class, () -> runner.run(fakeDriver(false)));
+        assertEquals("CLICKABLE", ((Map<?, ?>) calls.get(0).get(0)).get("until"));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(InvalidActionException.class,
+                () -> new WaitActionRunner(new TestAction("wait", "{\"selector\":\"#a\",\"until\":\"never\"}")));
+    }
+}
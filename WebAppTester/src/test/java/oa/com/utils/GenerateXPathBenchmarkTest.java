@@ -0,0 +1,76 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Logger;
+import oa.com.tests.actionrunners.exceptions.InvalidVarNameException;
+import oa.com.tests.globals.ActionRunnerBaseTest;
+import oa.com.tests.globals.ActionRunnerManager;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Compara el calculo de rutas xpath en el navegador con el calculo desde
+ * Java, sobre una pagina con un arbol profundo (deepDom.html). Necesita un
+ * navegador, por eso solo corre con -Dwebapptester.benchmark=true.
+ *
+ * @author nesto
+ */
+@EnabledIfSystemProperty(named = "webapptester.benchmark", matches = "true")
+public class GenerateXPathBenchmarkTest extends ActionRunnerBaseTest {
+
+    private static final int ROUNDS = 5;
+
+    private static final Logger LOG = Logger.getLogger("Probador Web");
+
+    @AfterAll
+    public static void quit() {
+        ActionRunnerManager.quit();
+    }
+
+    @Test
+    public void testCompare() throws IOException, InvalidVarNameException {
+        File file = new File("src/test/resources/deepDom.html");
+        run("go={" + file.toURI().toURL() + "}");
+        WebDriver driver = ActionRunnerManager.getStDriver();
+        WebElement target = driver.findElement(By.cssSelector(".target"));
+
+        long start = System.nanoTime();
+        String inPage = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            inPage = WebUtils.generateXPATH(target);
+        }
+        long inPageMillis = (System.nanoTime() - start) / 1_000_000 / ROUNDS;
+
+        start = System.nanoTime();
+        String positional = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            positional = WebUtils.generatePositionalXPATH(target);
+        }
+        long positionalMillis = (System.nanoTime() - start) / 1_000_000 / ROUNDS;
+
+        LOG.info("En el navegador: " + inPageMillis + " ms " + inPage);
+        LOG.info("Desde Java: " + positionalMillis + " ms " + positional);
+        assertTrue(inPage.startsWith("//*[@id='anchor']"));
+        assertEquals(target, driver.findElement(By.xpath(inPage)));
+        assertEquals(target, driver.findElement(By.xpath(positional)));
+    }
+}
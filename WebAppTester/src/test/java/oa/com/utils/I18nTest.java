@@ -0,0 +1,47 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nesto
+ */
+public class I18nTest {
+
+    @Test
+    public void testSupportedLangs() {
+        assertEquals("en", I18n.supportedLangs[0]);
+        assertTrue(Arrays.asList(I18n.supportedLangs).contains("es"));
+    }
+
+    @Test
+    public void testAliases() {
+        assertEquals(List.of("write", "escribir"), I18n.aliases("WriteActionRunner.action"));
+        //Sin repetir
+        assertEquals(List.of("selector"), I18n.aliases("CssSelectorActionRunner.attr.selector"));
+        assertTrue(I18n.aliases("no.existe").isEmpty());
+        assertSame(I18n.aliases("WriteActionRunner.action"), I18n.aliases("WriteActionRunner.action"));
+    }
+
+    @Test
+    public void testKeys() {
+        assertEquals(List.of("WriteActionRunner.action"), I18n.keys("escribir"));
+        assertTrue(I18n.keys("selector").contains("ScrollActionRunner.attr.selector"));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import oa.com.tests.Fakes;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+
+/**
+ *
+ * @author nesto
+ */
+public class WebUtilsTest {
+
+    private final AtomicInteger scripts = new AtomicInteger();
+
+    /**
+     * Un navegador que responde el script con {@code xpath}, o falla si es
+     * null. Revisa que reciba la funcion y el elemento pedido.
+     */
+    private WebDriver fakeDriver(List<WebElement> target, String xpath) {
+        return Fakes.scriptDriver((proxy, method, args) -> {
+            if (method.equals("executeScript")) {
+                scripts.incrementAndGet();
+                assertEquals(WebUtils.XPATH_FUNCTION + "return xpath(arguments[0]);", args[0]);
+                assertArrayEquals(new Object[]{target.get(0)}, (Object[]) args[1]);
+                if (xpath == null) {
+                    throw new JavascriptException("no javascript");
+                }
+                return xpath;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Un nodo con etiqueta, padre e hijos, para calcular la ruta desde Java.
+     */
+    private WebElement fakeNode(String tag, WebElement parent, List<WebElement> children, WebDriver driver) {
+        return Fakes.fake(WebElement.class, (proxy, method, args) -> {
+            switch (method) {
+                case "getWrappedDriver":
+                    return driver;
+                case "getTagName":
+                    return tag;
+                case "findElement":
+                    assertEquals(By.xpath(".."), args[0]);
+                    return parent;
+                case "findElements":
+                    assertEquals(By.xpath("*"), args[0]);
+                    return children;
+                default:
+                    return null;
+            }
+        }, WrapsDriver.class);
+    }
+
+    /**
+     * html > (head, body > (div, div)); retorna el segundo div.
+     */
+    private WebElement fakePage(String xpath) {
+        List<WebElement> target = new ArrayList<>();
+        WebDriver driver = fakeDriver(target, xpath);
+        List<WebElement> htmlChildren = new ArrayList<>();
+        List<WebElement> bodyChildren = new ArrayList<>();
+        WebElement html = fakeNode("html", null, htmlChildren, driver);
+        WebElement body = fakeNode("body", html, bodyChildren, driver);
+        htmlChildren.addAll(Arrays.asList(fakeNode("head", html, null, driver), body));
+        bodyChildren.addAll(Arrays.asList(fakeNode("div", body, null, driver), fakeNode("div", body, null, driver)));
+        target.add(bodyChildren.get(1));
+        return target.get(0);
+    }
+
+    @Test
+    public void testInPage() {
+        assertEquals("//*[@id='main']/div[2]", WebUtils.generateXPATH(fakePage("//*[@id='main']/div[2]")));
+        assertEquals(1, scripts.get());
+    }
+
+    @Test
+    public void testFallback() {
+        assertEquals("/html[1]/body[1]/div[2]", WebUtils.generateXPATH(fakePage(null)));
+        assertEquals(1, scripts.get());
+    }
+
+    @Test
+    public void testIdLiteralsAreSingleQuoted() {
+        assertTrue(WebUtils.XPATH_FUNCTION.contains("\"//*[@id='\"+id+\"']\""));
+        assertFalse(WebUtils.XPATH_FUNCTION.contains("@id=\\\""));
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actionrunners.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca una clase como ejecutor de una accion de script. Al compilar, se
+ * agrega al indice de ejecutores ({@link #INDEX}), de modo que al iniciar no
+ * hay que recorrer el classpath buscandolos.
+ *
+ * @author nesto
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ScriptAction {
+
+    /**
+     * Recurso con el indice generado. Cada linea tiene la forma
+     * <code>clase=clave de la accion</code>.
+     */
+    String INDEX = "META-INF/webapptester/script-actions.idx";
+
+    /**
+     * Clave del nombre de la accion en los archivos de propiedades. Por
+     * omision es el nombre simple de la clase seguido de ".action".
+     *
+     * @return
+     */
+    String value() default "";
+}
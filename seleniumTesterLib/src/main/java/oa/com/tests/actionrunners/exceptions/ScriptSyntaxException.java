@@ -0,0 +1,49 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actionrunners.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Error de sintaxis en un archivo de script, con la posicion donde se
+ * encontro.
+ *
+ * @author nesto
+ */
+@Getter
+public class ScriptSyntaxException extends BadSyntaxException {
+
+    /**
+     * Linea del error, empezando en 1.
+     */
+    private final int line;
+    /**
+     * Columna del error, empezando en 1.
+     */
+    private final int column;
+
+    /**
+     * Constructs an instance of <code>ScriptSyntaxException</code> with the
+     * specified detail message and position.
+     *
+     * @param msg the detail message.
+     * @param line
+     * @param column
+     */
+    public ScriptSyntaxException(String msg, int line, int column) {
+        super(msg);
+        this.line = line;
+        this.column = column;
+    }
+}
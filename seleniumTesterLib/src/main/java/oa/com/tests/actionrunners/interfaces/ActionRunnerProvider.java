@@ -0,0 +1,40 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actionrunners.interfaces;
+
+import oa.com.tests.actionrunners.exceptions.InvalidActionException;
+
+/**
+ * Servicio de un plugin que ofrece acciones de script. Se registra en
+ * <code>META-INF/services/oa.com.tests.actionrunners.interfaces.ActionRunnerProvider</code>
+ * del jar del plugin, y la clase debe tener la anotacion
+ * {@link oa.com.tests.actionrunners.annotations.ProvidedActions} con los
+ * nombres de las acciones: el probador la lee sin crear el proveedor, que solo
+ * se crea la primera vez que un script usa una de sus acciones.
+ *
+ * @author nesto
+ */
+public interface ActionRunnerProvider {
+
+    /**
+     * Crea el ejecutor de una accion.
+     *
+     * @param actionName Nombre de la accion, en minusculas.
+     * @param command Cuerpo de la accion, con las llaves.
+     * @return El ejecutor o null si el proveedor no maneja esa accion.
+     * @throws InvalidActionException Si el cuerpo no es valido para la
+     * accion.
+     */
+    PluginRunner create(String actionName, String command) throws InvalidActionException;
+}
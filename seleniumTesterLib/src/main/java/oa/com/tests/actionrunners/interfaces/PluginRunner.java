@@ -0,0 +1,35 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actionrunners.interfaces;
+
+import java.util.logging.Logger;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Ejecutor de una accion de script ofrecida por un plugin.
+ *
+ * @author nesto
+ */
+@FunctionalInterface
+public interface PluginRunner {
+
+    /**
+     * Ejecuta la accion.
+     *
+     * @param driver
+     * @param log Archivo de registro
+     * @throws Exception
+     */
+    void run(WebDriver driver, Logger log) throws Exception;
+}
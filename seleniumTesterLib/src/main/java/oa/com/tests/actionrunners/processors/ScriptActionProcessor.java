@@ -0,0 +1,157 @@
+/*
+ * Web application tester- Utility to test web applications via Selenium 
+ * Copyright (C) 2021-Nestor Arias
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package oa.com.tests.actionrunners.processors;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import oa.com.tests.actionrunners.annotations.ScriptAction;
+
+/**
+ * Genera el indice de ejecutores marcados con {@link ScriptAction}.
+ *
+ * @author nesto
+ */
+@SupportedAnnotationTypes("oa.com.tests.actionrunners.annotations.ScriptAction")
+public class ScriptActionProcessor extends AbstractProcessor {
+
+    /**
+     * Clase -> clave de la accion.
+     */
+    private final Map<String, String> index = new TreeMap<>();
+    private boolean previousLoaded = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!previousLoaded) {
+            loadPrevious();
+            previousLoaded = true;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(ScriptAction.class)) {
+            if (validate(element)) {
+                final TypeElement type = (TypeElement) element;
+                final String key = type.getAnnotation(ScriptAction.class).value();
+                index.put(processingEnv.getElementUtils().getBinaryName(type).toString(),
+                        key.isEmpty() ? type.getSimpleName() + ".action" : key);
+            }
+        }
+        if (roundEnv.processingOver() && !index.isEmpty()) {
+            write();
+        }
+        return true;
+    }
+
+    /**
+     * Un ejecutor debe ser una clase publica, no abstracta, con un constructor
+     * publico que reciba la accion.
+     *
+     * @param element
+     * @return
+     */
+    private boolean validate(Element element) {
+        if (element.getKind() != ElementKind.CLASS
+                || !element.getModifiers().contains(Modifier.PUBLIC)
+                || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(element, "@ScriptAction must annotate a public, non abstract class");
+            return false;
+        }
+        final boolean hasConstructor = ElementFilter.constructorsIn(element.getEnclosedElements())
+                .stream()
+                .anyMatch(this::isRunnerConstructor);
+        if (!hasConstructor) {
+            error(element, "@ScriptAction classes need a public constructor receiving the action");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isRunnerConstructor(ExecutableElement constructor) {
+        return constructor.getModifiers().contains(Modifier.PUBLIC)
+                && constructor.getParameters().size() == 1;
+    }
+
+    /**
+     * En compilaciones incrementales solo llegan las clases que cambiaron:
+     * conserva las del indice anterior que sigan existiendo y marcadas.
+     */
+    private void loadPrevious() {
+        final FileObject previous;
+        try {
+            previous = processingEnv.getFiler()
+                    .getResource(StandardLocation.CLASS_OUTPUT, "", ScriptAction.INDEX);
+        } catch (IOException | IllegalArgumentException ex) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                previous.openInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                final int sep = line.indexOf('=');
+                if (line.startsWith("#") || sep < 0) {
+                    continue;
+                }
+                final String className = line.substring(0, sep).trim();
+                final TypeElement type = processingEnv.getElementUtils()
+                        .getTypeElement(className.replace('$', '.'));
+                if (type != null && type.getAnnotation(ScriptAction.class) != null) {
+                    index.put(className, line.substring(sep + 1).trim());
+                }
+            }
+        } catch (IOException ex) {
+            //No hay indice anterior
+        }
+    }
+
+    private void write() {
+        try {
+            final FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", ScriptAction.INDEX);
+            try (Writer writer = file.openWriter()) {
+                writer.write("# Generated by " + getClass().getName() + "\n");
+                for (Map.Entry<String, String> entry : index.entrySet()) {
+                    writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+                }
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + ScriptAction.INDEX + ": " + ex.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}